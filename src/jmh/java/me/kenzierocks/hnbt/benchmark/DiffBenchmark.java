@@ -0,0 +1,69 @@
+package me.kenzierocks.hnbt.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jnbt.CompoundTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.kenzierocks.hnbt.NbtDiff;
+import me.kenzierocks.hnbt.tag.NbtCompound;
+import me.kenzierocks.hnbt.tag.NbtTags;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffBenchmark {
+
+    @Param({ "WIDE", "DEEP", "BIG_ARRAYS", "STRINGS" })
+    public DocumentShape shape;
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private CompoundTag expected;
+    private CompoundTag actual;
+    private NbtCompound nativeExpected;
+    private NbtCompound nativeActual;
+
+    @Setup
+    public void setup() {
+        // separate but equal trees, so nothing is skipped by identity
+        this.expected = this.shape.generate(this.size);
+        this.actual = this.shape.generate(this.size);
+        this.nativeExpected = NbtTags.fromJnbt(this.expected);
+        this.nativeActual = NbtTags.fromJnbt(this.actual);
+    }
+
+    @Benchmark
+    public List<NbtDiff.Change> diff() {
+        return NbtDiff.diff(this.expected, this.actual);
+    }
+
+    /**
+     * After the first call, the fingerprints are kept in the trees.
+     */
+    @Benchmark
+    public List<NbtDiff.Change> nativeDiff() {
+        return NbtDiff.diff(this.nativeExpected, this.nativeActual);
+    }
+
+    @Benchmark
+    public boolean equalsBaseline() {
+        return this.expected.equals(this.actual);
+    }
+
+}
@@ -0,0 +1,156 @@
+package me.kenzierocks.hnbt.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+/**
+ * Shapes of generated benchmark documents. The size is roughly the number of
+ * tags or array elements, and the same shape and size always give the same
+ * document.
+ */
+public enum DocumentShape {
+
+    /**
+     * One compound with {@code size} entries of mixed simple types.
+     */
+    WIDE {
+
+        @Override
+        CompoundTag generate(int size, Random random) {
+            Map<String, Tag> entries = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                String name = "entry" + i;
+                switch (i % 4) {
+                    case 0:
+                        entries.put(name, new IntTag(name, random.nextInt()));
+                        break;
+                    case 1:
+                        entries.put(name,
+                                new LongTag(name, random.nextLong()));
+                        break;
+                    case 2:
+                        // HNBT has no exponent notation
+                        entries.put(name, new DoubleTag(name,
+                                random.nextInt(1000000) / 1000.0));
+                        break;
+                    default:
+                        entries.put(name, new StringTag(name, "value" + i));
+                }
+            }
+            return new CompoundTag("root", entries);
+        }
+
+    },
+    /**
+     * Compounds nested {@code size} levels deep, up to {@value #MAX_DEPTH},
+     * with a few entries at each level.
+     */
+    DEEP {
+
+        @Override
+        CompoundTag generate(int size, Random random) {
+            int depth = Math.min(size, MAX_DEPTH);
+            CompoundTag tag = null;
+            for (int level = depth; level > 0; level--) {
+                Map<String, Tag> entries = new LinkedHashMap<>();
+                entries.put("level", new IntTag("level", level));
+                entries.put("id", new StringTag("id", "level-" + level));
+                if (tag != null) {
+                    entries.put("child", rename(tag, "child"));
+                }
+                tag = new CompoundTag("child", entries);
+            }
+            return rename(tag, "root");
+        }
+
+    },
+    /**
+     * A byte-array and an int-array of {@code size} elements each, and a list
+     * of {@code size / 16} small int-arrays.
+     */
+    BIG_ARRAYS {
+
+        @Override
+        CompoundTag generate(int size, Random random) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            int[] ints = new int[size];
+            for (int i = 0; i < size; i++) {
+                ints[i] = random.nextInt();
+            }
+            List<Tag> small = new ArrayList<>();
+            for (int i = 0; i < size / 16; i++) {
+                small.add(new IntArrayTag("",
+                        new int[] { i, random.nextInt(), random.nextInt() }));
+            }
+            Map<String, Tag> entries = new LinkedHashMap<>();
+            entries.put("bytes", new ByteArrayTag("bytes", bytes));
+            entries.put("ints", new IntArrayTag("ints", ints));
+            entries.put("small",
+                    new ListTag("small", IntArrayTag.class, small));
+            return new CompoundTag("root", entries);
+        }
+
+    },
+    /**
+     * A list of {@code size} strings, some of which need escaping.
+     */
+    STRINGS {
+
+        @Override
+        CompoundTag generate(int size, Random random) {
+            List<Tag> strings = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                strings.add(new StringTag("", randomString(random)));
+            }
+            Map<String, Tag> entries = new LinkedHashMap<>();
+            entries.put("strings",
+                    new ListTag("strings", StringTag.class, strings));
+            return new CompoundTag("root", entries);
+        }
+
+    };
+
+    static final int MAX_DEPTH = 500;
+
+    private static final String ESCAPED_CHARS = "\"\\\t\n\u0001\u00e9\u2603";
+
+    static String randomString(Random random) {
+        StringBuilder value = new StringBuilder();
+        int length = 8 + random.nextInt(56);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(16) == 0) {
+                value.append(ESCAPED_CHARS
+                        .charAt(random.nextInt(ESCAPED_CHARS.length())));
+            } else {
+                value.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        // STRING_ONELINE can't end with an escaped backslash
+        return value.append('.').toString();
+    }
+
+    private static CompoundTag rename(CompoundTag tag, String name) {
+        return new CompoundTag(name, tag.getValue());
+    }
+
+    public CompoundTag generate(int size) {
+        return generate(size, new Random(size));
+    }
+
+    abstract CompoundTag generate(int size, Random random);
+
+}
@@ -0,0 +1,122 @@
+package me.kenzierocks.hnbt.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.kenzierocks.hnbt.HnbtParser;
+import me.kenzierocks.hnbt.HnbtQuery;
+import me.kenzierocks.hnbt.HnbtToNbt;
+import me.kenzierocks.hnbt.NbtToHnbt;
+import me.kenzierocks.hnbt.tag.NbtCompound;
+import me.kenzierocks.hnbt.tag.NbtTags;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({ "WIDE", "DEEP", "BIG_ARRAYS", "STRINGS" })
+    public DocumentShape shape;
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private String hnbt;
+    private byte[] utf8;
+    private Path file;
+    // matches a little of DEEP documents, and nothing in the others
+    private final HnbtQuery query = HnbtQuery.compile("*.id");
+    private final HnbtParser parser = HnbtParser.builder().build();
+    private final HnbtParser directParser = HnbtParser.builder()
+            .engine(HnbtParser.Engine.DIRECT).build();
+
+    @Setup
+    public void setup() throws IOException {
+        this.hnbt = NbtToHnbt.parseNbtIntoHnbt(this.shape.generate(this.size));
+        this.utf8 = this.hnbt.getBytes(StandardCharsets.UTF_8);
+        this.file = Files.createTempFile("parse-benchmark", ".hnbt");
+        Files.write(this.file, this.utf8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(this.file);
+    }
+
+    @Benchmark
+    public CompoundTag parseString() throws Exception {
+        return HnbtToNbt.parseHnbtIntoNbt(this.hnbt);
+    }
+
+    @Benchmark
+    public CompoundTag parseReader() throws Exception {
+        return HnbtToNbt.parseHnbtIntoNbt(new StringReader(this.hnbt));
+    }
+
+    @Benchmark
+    public CompoundTag parseInputStream() throws Exception {
+        return HnbtToNbt
+                .parseHnbtIntoNbt(new ByteArrayInputStream(this.utf8));
+    }
+
+    @Benchmark
+    public CompoundTag parseStringDirect() throws Exception {
+        return HnbtToNbt.parseHnbtIntoNbtDirect(this.hnbt);
+    }
+
+    @Benchmark
+    public CompoundTag parseFile() throws Exception {
+        return HnbtToNbt.parseHnbtIntoNbt(this.file);
+    }
+
+    @Benchmark
+    public Tag parseLazyFirstEntry() throws Exception {
+        CompoundTag root = HnbtToNbt.parseHnbtIntoNbtLazy(this.hnbt);
+        return root.getValue().values().iterator().next();
+    }
+
+    @Benchmark
+    public List<Tag> queryString() throws Exception {
+        return this.query.select(this.hnbt);
+    }
+
+    @Benchmark
+    public NbtCompound parseNative() throws Exception {
+        return NbtTags.parse(this.hnbt);
+    }
+
+    @Benchmark
+    public CompoundTag parseStringReused() throws Exception {
+        return this.parser.parse(this.hnbt);
+    }
+
+    @Benchmark
+    public CompoundTag parseStringDirectReused() throws Exception {
+        return this.directParser.parse(this.hnbt);
+    }
+
+}
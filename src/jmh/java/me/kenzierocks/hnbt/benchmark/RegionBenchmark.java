@@ -0,0 +1,75 @@
+package me.kenzierocks.hnbt.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.kenzierocks.hnbt.NbtToHnbt;
+import me.kenzierocks.hnbt.NbtTranscoder;
+import me.kenzierocks.hnbt.region.ChunkCompression;
+import me.kenzierocks.hnbt.region.RegionChunk;
+import me.kenzierocks.hnbt.region.RegionConverter;
+import me.kenzierocks.hnbt.region.RegionFile;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegionBenchmark {
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private ExecutorService executor;
+    private RegionFile region;
+
+    @Setup
+    public void setup() throws Exception {
+        this.executor = Executors.newFixedThreadPool(this.threads);
+        this.region = new RegionFile();
+        for (int i = 0; i < RegionFile.CHUNK_COUNT; i++) {
+            String hnbt = NbtToHnbt
+                    .parseNbtIntoHnbt(DocumentShape.WIDE.generate(200 + i));
+            ByteArrayOutputStream nbt = new ByteArrayOutputStream();
+            NbtTranscoder.transcodeHnbtToNbt(new StringReader(hnbt), nbt, "");
+            this.region.setChunk(i, RegionChunk.compress(nbt.toByteArray(),
+                    ChunkCompression.ZLIB));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Benchmark
+    public String[] toHnbt() throws IOException {
+        return new RegionConverter(this.executor).toHnbt(this.region);
+    }
+
+    @Benchmark
+    public RegionFile roundTrip() throws Exception {
+        RegionConverter converter = new RegionConverter(this.executor);
+        return converter.fromHnbt(converter.toHnbt(this.region),
+                ChunkCompression.ZLIB);
+    }
+
+}
@@ -0,0 +1,80 @@
+package me.kenzierocks.hnbt.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jnbt.CompoundTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteStreams;
+
+import me.kenzierocks.hnbt.HnbtPrinter;
+import me.kenzierocks.hnbt.HnbtToNbt;
+import me.kenzierocks.hnbt.NbtToHnbt;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializeBenchmark {
+
+    @Param({ "WIDE", "DEEP", "BIG_ARRAYS", "STRINGS" })
+    public DocumentShape shape;
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private CompoundTag nbt;
+    private final HnbtPrinter printer = new HnbtPrinter();
+
+    @Setup
+    public void setup() {
+        this.nbt = this.shape.generate(this.size);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return NbtToHnbt.parseNbtIntoHnbt(this.nbt);
+    }
+
+    @Benchmark
+    public String serializeReused() {
+        return this.printer.print(this.nbt);
+    }
+
+    @Benchmark
+    public void serializeUtf8() throws IOException {
+        NbtToHnbt.parseNbtIntoHnbtUtf8(this.nbt,
+                ByteStreams.nullOutputStream());
+    }
+
+    @Benchmark
+    public String serializeParallel() {
+        return NbtToHnbt.parseNbtIntoHnbtParallel(this.nbt);
+    }
+
+    @Benchmark
+    public CompoundTag roundTrip() throws Exception {
+        return HnbtToNbt
+                .parseHnbtIntoNbt(NbtToHnbt.parseNbtIntoHnbt(this.nbt));
+    }
+
+    @Benchmark
+    public CompoundTag roundTripDirect() throws Exception {
+        return HnbtToNbt
+                .parseHnbtIntoNbtDirect(NbtToHnbt.parseNbtIntoHnbt(this.nbt));
+    }
+
+}
@@ -0,0 +1,63 @@
+package me.kenzierocks.hnbt.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.kenzierocks.hnbt.util.StringUtil;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringBenchmark {
+
+    /**
+     * Whether the string has characters that need escaping.
+     */
+    @Param({ "false", "true" })
+    public boolean escapes;
+
+    @Param({ "16", "1024" })
+    public int length;
+
+    private String unescaped;
+    private String escaped;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(this.length);
+        StringBuilder value = new StringBuilder();
+        while (value.length() < this.length) {
+            value.append(this.escapes ? DocumentShape.randomString(random)
+                    : "plain text ");
+        }
+        this.unescaped = value.substring(0, this.length);
+        String quoted = StringUtil.escapedString(this.unescaped);
+        this.escaped = quoted.substring(1, quoted.length() - 1);
+    }
+
+    @Benchmark
+    public String escape() {
+        return StringUtil.escapedString(this.unescaped);
+    }
+
+    @Benchmark
+    public String unescape() {
+        return StringUtil.unescapeString(this.escaped);
+    }
+
+}
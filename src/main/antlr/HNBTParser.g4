@@ -5,7 +5,13 @@ options {tokenVocab = HNBTLexer;}
 @header {
 package me.kenzierocks.hnbt.grammar;
 
+import me.kenzierocks.hnbt.HNBTParsingException;
+import me.kenzierocks.hnbt.HnbtLimits;
+import me.kenzierocks.hnbt.UncheckedHNBTParsingException;
+import me.kenzierocks.hnbt.util.ArrayCharStream;
 import me.kenzierocks.hnbt.util.ByteList;
+import me.kenzierocks.hnbt.util.NumberParsing;
+import me.kenzierocks.hnbt.util.StringTable;
 import me.kenzierocks.hnbt.util.StringUtil;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -17,27 +23,107 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.jnbt.*;
 }
+@members {
+private StringTable strings = new StringTable();
+
+/**
+ * Sets the table that names and short string values are deduplicated with.
+ */
+public void setStringTable(StringTable strings) {
+    this.strings = java.util.Objects.requireNonNull(strings);
+}
+
+private HnbtLimits limits = HnbtLimits.NONE;
+private int depth;
+private long tagCount;
+
+/**
+ * Sets the limits that documents are checked against. A document that
+ * exceeds one fails with an UncheckedHNBTParsingException.
+ */
+public void setLimits(HnbtLimits limits) {
+    this.limits = java.util.Objects.requireNonNull(limits);
+}
+
+private UncheckedHNBTParsingException limitExceeded(String message, Token at) {
+    int line = at.getLine();
+    int column = at.getCharPositionInLine();
+    return new UncheckedHNBTParsingException(new HNBTParsingException(
+            String.format("%s, occured at line %s at pos %s", message, line,
+                    column),
+            line, column, null));
+}
+
+private void enterContainer() {
+    if (++depth > limits.getMaxDepth()) {
+        throw limitExceeded("nesting is deeper than the limit of "
+                + limits.getMaxDepth(), getCurrentToken());
+    }
+}
+
+private void countTag(Token type) {
+    if (++tagCount > limits.getMaxTags()) {
+        throw limitExceeded("document has more than the limit of "
+                + limits.getMaxTags() + " tags", type);
+    }
+}
+
+private void checkElements(int size, String container) {
+    if (size >= limits.getMaxElements()) {
+        throw limitExceeded(container + " has more than the limit of "
+                + limits.getMaxElements() + " elements", getCurrentToken());
+    }
+}
+
+private String internName(Token name) {
+    CharStream input = name.getInputStream();
+    if (input instanceof ArrayCharStream) {
+        int start = name.getStartIndex();
+        return strings.intern(((ArrayCharStream) input).getData(), start,
+                name.getStopIndex() + 1 - start);
+    }
+    return strings.intern(name.getText());
+}
+
+private String internString(Token str) {
+    // between the quotes
+    int start = str.getStartIndex() + 1;
+    int end = str.getStopIndex();
+    CharStream input = str.getInputStream();
+    if (input instanceof ArrayCharStream) {
+        return StringUtil.unescapeString(((ArrayCharStream) input).getData(),
+                start, end, strings);
+    }
+    String v = str.getText();
+    return strings.intern(StringUtil.unescapeString(v, 1, v.length() - 1));
+}
+}
 root
     returns [CompoundTag rootTag]
+    @init
+    {
+        depth = 0;
+        tagCount = 0;
+    }
     : CWS? CompoundTagType CWS RootName WS? TagToValue WS? tag=captureVal["compound","root"] WS? EOF {$rootTag = (CompoundTag) $tag.tag;} ;
 captureTag[boolean inCompound]
     returns [Tag tag]
     locals [String type,String name]
-    : WS? TagType {$type = $TagType.text;}
-                    ({$inCompound}? NWS nameCap=TagName {$name = $nameCap.text;} | {$name = "";})
+    : WS? TagType {$type = $TagType.text; countTag($TagType);}
+                    ({$inCompound}? NWS nameCap=TagName {$name = internName($nameCap);} | {$name = "";})
                                       (NWS|WS)? (NoName|TagToValue) WS? cap=captureVal[$type,$name] WS? {$tag = $cap.tag;} ;
 
 captureVal[String type, String name]
     returns [Tag tag]
     : {$type.equals("compound")}? capC=captureCompound[$name] {$tag = $capC.tag;}
-    | {$type.equals("byte")}? val=INTLIKEVAL {$tag = new ByteTag($name, Byte.parseByte($val.text));}
+    | {$type.equals("byte")}? val=INTLIKEVAL {$tag = new ByteTag($name, (byte) NumberParsing.parseLong($val, Byte.MIN_VALUE, Byte.MAX_VALUE));}
     | {$type.equals("byte-array")}? capBA=captureByteArray[$name] {$tag = $capBA.tag;}
-    | {$type.equals("short")}? val=INTLIKEVAL {$tag = new ShortTag($name, Short.parseShort($val.text));}
-    | {$type.equals("int")}? val=INTLIKEVAL {$tag = new IntTag($name, Integer.parseInt($val.text));}
+    | {$type.equals("short")}? val=INTLIKEVAL {$tag = new ShortTag($name, (short) NumberParsing.parseLong($val, Short.MIN_VALUE, Short.MAX_VALUE));}
+    | {$type.equals("int")}? val=INTLIKEVAL {$tag = new IntTag($name, (int) NumberParsing.parseLong($val, Integer.MIN_VALUE, Integer.MAX_VALUE));}
     | {$type.equals("int-array")}? capIA=captureIntArray[$name] {$tag = $capIA.tag;}
-    | {$type.equals("long")}? val=INTLIKEVAL {$tag = new LongTag($name, Long.parseLong($val.text));}
-    | {$type.equals("float")}? val=FLOATLIKEVAL {$tag = new FloatTag($name, Float.parseFloat($val.text));}
-    | {$type.equals("double")}? val=FLOATLIKEVAL {$tag = new DoubleTag($name, Double.parseDouble($val.text));}
+    | {$type.equals("long")}? val=INTLIKEVAL {$tag = new LongTag($name, NumberParsing.parseLong($val, Long.MIN_VALUE, Long.MAX_VALUE));}
+    | {$type.equals("float")}? val=FLOATLIKEVAL {$tag = new FloatTag($name, NumberParsing.parseFloat($val));}
+    | {$type.equals("double")}? val=FLOATLIKEVAL {$tag = new DoubleTag($name, NumberParsing.parseDouble($val));}
     | {$type.equals("list")}? capL=captureList[$name] {$tag = $capL.tag;}
     | {$type.equals("string")}? str=captureStringVal {$tag = new StringTag($name, $str.val);}
     ;
@@ -46,6 +132,7 @@ captureCompound[String name]
     locals [Map<String,Tag> tagMap]
     @init
     {
+        enterContainer();
         $tagMap = new HashMap<>();
     }
     @after
@@ -53,6 +140,10 @@ captureCompound[String name]
         $tag = new CompoundTag($name, $tagMap);
     }
     : OpenCompound WS? ( | (capInCompoundTag WS? ItemSep WS?)* capInCompoundTag WS?) CloseCompound ;
+    finally
+    {
+        depth--;
+    }
 capInCompoundTag: tag=captureTag[true] {$captureCompound::tagMap.put($tag.tag.getName(), $tag.tag);} ;
 
 captureList[String name]
@@ -60,6 +151,7 @@ captureList[String name]
     locals [List<Tag> tags]
     @init
     {
+        enterContainer();
         $tags = new ArrayList<>();
     }
     @after
@@ -79,11 +171,20 @@ captureList[String name]
         $tag = new ListTag($name, tagClass, $tags);
     }
     : OpenList WS? ( | (capInListTag WS? ItemSep WS?)* capInListTag WS?) CloseList ;
-capInListTag: tag=captureTag[false] {$captureList::tags.add($tag.tag);} ;
+    finally
+    {
+        depth--;
+    }
+capInListTag
+    @init
+    {
+        checkElements($captureList::tags.size(), "list");
+    }
+    : tag=captureTag[false] {$captureList::tags.add($tag.tag);} ;
 
 captureByteArray[String name]
     returns [ByteArrayTag tag]
-    locals [ByteList bytes]
+    locals [ByteList bytes, int size]
     @init
     {
         $bytes = new ByteList();
@@ -93,11 +194,11 @@ captureByteArray[String name]
         $tag = new ByteArrayTag($name, $bytes.toArray());
     }
     : OpenList WS? ( | (capInByteArray WS? ItemSep WS?)* capInByteArray WS?) CloseList ;
-capInByteArray: val=INTLIKEVAL {$captureByteArray::bytes.add(Byte.parseByte($val.text));} ;
+capInByteArray: {checkElements($captureByteArray::size++, "byte array");} val=INTLIKEVAL {$captureByteArray::bytes.add((byte) NumberParsing.parseLong($val, Byte.MIN_VALUE, Byte.MAX_VALUE));} ;
 
 captureIntArray[String name]
     returns [IntArrayTag tag]
-    locals [IntStream.Builder ints]
+    locals [IntStream.Builder ints, int size]
     @init
     {
         $ints = IntStream.builder();
@@ -106,15 +207,19 @@ captureIntArray[String name]
     {
         $tag = new IntArrayTag($name, $ints.build().toArray());
     }
-    : OpenList WS? ( | (capInByteArray WS? ItemSep WS?)* capInByteArray WS?) CloseList ;
-capInIntArray: val=INTLIKEVAL {$captureIntArray::ints.add(Integer.parseInt($val.text));} ;
+    : OpenList WS? ( | (capInIntArray WS? ItemSep WS?)* capInIntArray WS?) CloseList ;
+capInIntArray: {checkElements($captureIntArray::size++, "int array");} val=INTLIKEVAL {$captureIntArray::ints.add((int) NumberParsing.parseLong($val, Integer.MIN_VALUE, Integer.MAX_VALUE));} ;
 
 captureStringVal
     returns [String val]
     : str=STRING_ONELINE?
         {
-        String v = $str.text;
-        $val = StringUtil.unescapeString(v.substring(1, v.length() - 1));
+        if ($str != null && $str.getStopIndex() - $str.getStartIndex() - 1
+                > limits.getMaxStringLength()) {
+            throw limitExceeded("string is longer than the limit of "
+                    + limits.getMaxStringLength() + " characters", $str);
+        }
+        $val = internString($str);
         }
     ; // TODO MULTILINE STRINGS OR ADDITION ACROSS LINES OR SOMETHING
 
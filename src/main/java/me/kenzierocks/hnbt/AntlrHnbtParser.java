@@ -0,0 +1,241 @@
+package me.kenzierocks.hnbt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.jnbt.CompoundTag;
+
+import me.kenzierocks.hnbt.grammar.HNBTLexer;
+import me.kenzierocks.hnbt.grammar.HNBTParser;
+import me.kenzierocks.hnbt.grammar.HNBTParserBaseListener;
+import me.kenzierocks.hnbt.util.CaptureErrorsListenener;
+import me.kenzierocks.hnbt.util.StringTable;
+
+/**
+ * Parses documents with the ANTLR grammar, reusing one lexer and parser for
+ * every document. Instances are not thread-safe.
+ *
+ * <p>
+ * The DFA that ANTLR builds while predicting is shared by all parsers of the
+ * grammar, and is kept for the life of the class.
+ * </p>
+ *
+ * <p>
+ * ANTLR recurses for every level of nesting, and predicts by looking ahead
+ * over whole nested values. Documents nested deeper than
+ * {@link #MAX_RECURSIVE_DEPTH} are parsed with a {@link DirectHnbtParser}
+ * instead, which does not recurse and accepts the same language.
+ * </p>
+ */
+final class AntlrHnbtParser {
+
+    // well within the default thread stack, which overflows at around 1000
+    static final int MAX_RECURSIVE_DEPTH = 256;
+
+    private static int stateCount(DFA[] dfas) {
+        int count = 0;
+        for (DFA dfa : dfas) {
+            count += dfa.states.size();
+        }
+        return count;
+    }
+
+    private final CaptureErrorsListenener cap = new CaptureErrorsListenener();
+    private final List<HNBTParsingException> errorNodeErrors =
+            new ArrayList<>(1);
+    private final CharStream empty = new ANTLRInputStream("");
+    private final HNBTLexer lexer;
+    private final HNBTParser parser;
+    // stands in for the last document's tokens between documents
+    private final CommonTokenStream noTokens;
+    private StringTable strings = new StringTable();
+    private HnbtLimits limits = HnbtLimits.NONE;
+
+    AntlrHnbtParser() {
+        this.lexer = new HNBTLexer(this.empty);
+        this.lexer.removeErrorListeners();
+        this.lexer.addErrorListener(this.cap);
+        this.noTokens = new CommonTokenStream(this.lexer);
+        this.parser = new HNBTParser(this.noTokens);
+        this.parser.removeErrorListeners();
+        this.parser.addErrorListener(this.cap);
+        this.parser.addParseListener(new HNBTParserBaseListener() {
+
+            @Override
+            public void visitErrorNode(ErrorNode node) {
+                AntlrHnbtParser.this.errorNodeErrors
+                        .add(new HNBTParsingException("Error node "
+                                + node.toStringTree(AntlrHnbtParser.this.parser)
+                                + "@" + node.getSymbol().getLine() + ":"
+                                + node.getSymbol().getCharPositionInLine()));
+            }
+        });
+    }
+
+    void setStringTable(StringTable strings) {
+        this.parser.setStringTable(strings);
+        this.strings = strings;
+    }
+
+    void setLimits(HnbtLimits limits) {
+        this.limits = limits;
+        this.parser.setLimits(limits);
+    }
+
+    /**
+     * Makes parsing stop at the first syntax error, instead of recovering
+     * from it to report the rest. Input that SLL prediction rejects is then
+     * parsed again with full LL prediction only up to its first error.
+     */
+    void setFailFast(boolean failFast) {
+        this.parser.setErrorHandler(failFast ? new BailErrorStrategy()
+                : new DefaultErrorStrategy());
+    }
+
+    CompoundTag parse(CharStream hnbt) throws HNBTParsingException {
+        try {
+            return parseRoot(hnbt);
+        } finally {
+            // don't hold on to the document until the next one
+            this.lexer.setInputStream(this.empty);
+            this.parser.setTokenStream(this.noTokens);
+        }
+    }
+
+    private CompoundTag parseRoot(CharStream hnbt)
+            throws HNBTParsingException {
+        if (hnbt.size() > this.limits.getMaxChars()) {
+            throw new HNBTParsingException("input is longer than the limit of "
+                    + this.limits.getMaxChars() + " characters");
+        }
+        // arrays are not counted by the limit, but add at most one level
+        if (nestedDeeperThan(hnbt, (int) Math.min(MAX_RECURSIVE_DEPTH,
+                this.limits.getMaxDepth() + 1L))) {
+            // also reports a document that is deeper than the limit
+            return parseDirect(hnbt);
+        }
+        this.cap.clearErrors();
+        this.errorNodeErrors.clear();
+        this.lexer.setInputStream(hnbt);
+        // token streams can't be rewound once they reach the end
+        CommonTokenStream tokens = new CommonTokenStream(this.lexer);
+        this.parser.setTokenStream(tokens);
+        this.parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        CompoundTag tag = null;
+        try {
+            tag = this.parser.root().rootTag;
+        } catch (UncheckedHNBTParsingException e) {
+            throw e.getCause();
+        } catch (Exception e) {
+            tokens.reset();
+            this.parser.reset();
+            this.errorNodeErrors.clear();
+            this.cap.clearErrors();
+            this.parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            try {
+                tag = this.parser.root().rootTag;
+            } catch (UncheckedHNBTParsingException e2) {
+                throw e2.getCause();
+            } catch (ParseCancellationException e2) {
+                throw syntaxError((RecognitionException) e2.getCause());
+            }
+        }
+        List<Exception> errors = Stream
+                .concat(this.cap.getErrors().stream(),
+                        this.errorNodeErrors.stream())
+                .collect(Collectors.toList());
+        if (!errors.isEmpty()) {
+            HNBTParsingException ex =
+                    new HNBTParsingException("Lexer errors occured");
+            errors.forEach(ex::addSuppressed);
+            throw ex;
+        }
+        return tag;
+    }
+
+    /**
+     * Checks if brackets outside of strings are nested more than
+     * {@code maxDepth} deep.
+     */
+    private static boolean nestedDeeperThan(CharStream hnbt, int maxDepth) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 1, size = hnbt.size(); i <= size; i++) {
+            int c = hnbt.LA(i);
+            if (inString) {
+                inString = c != '"' || hnbt.LA(i - 1) == '\\';
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                if (++depth > maxDepth) {
+                    return true;
+                }
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    private CompoundTag parseDirect(CharStream hnbt)
+            throws HNBTParsingException {
+        char[] chars =
+                hnbt.getText(Interval.of(0, hnbt.size() - 1)).toCharArray();
+        HnbtReader reader =
+                new HnbtReader(new HnbtScanner(chars, 0, chars.length));
+        reader.setStringTable(this.strings);
+        reader.setLimits(this.limits);
+        try {
+            return new DirectHnbtParser(reader).parseRoot();
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+    }
+
+    private static HNBTParsingException syntaxError(RecognitionException e) {
+        Token token = e.getOffendingToken();
+        if (token == null) {
+            return new HNBTParsingException("syntax error", e);
+        }
+        int line = token.getLine();
+        int column = token.getCharPositionInLine();
+        String found = token.getType() == Token.EOF ? "end of input"
+                : "'" + token.getText() + "'";
+        return new HNBTParsingException(String.format(
+                "syntax error at %s, occured at line %s at pos %s", found,
+                line, column), line, column, e);
+    }
+
+    /**
+     * Returns the number of states in the shared lexer and parser DFA.
+     */
+    int dfaStateCount() {
+        return stateCount(this.lexer.getInterpreter().decisionToDFA)
+                + stateCount(this.parser.getInterpreter().decisionToDFA);
+    }
+
+    /**
+     * Drops the shared lexer and parser DFA. Parses that are running keep
+     * using the old states until they finish.
+     */
+    void clearDfa() {
+        this.lexer.getInterpreter().clearDFA();
+        this.parser.getInterpreter().clearDFA();
+    }
+
+}
@@ -0,0 +1,297 @@
+package me.kenzierocks.hnbt;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.NBTConstants;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+/**
+ * Reads and skips the payloads of uncompressed binary NBT tags.
+ */
+final class BinaryNbt {
+
+    /**
+     * @throws IOException
+     *             if {@code id} is not a known tag id
+     */
+    static TagType tagType(int id) throws IOException {
+        TagType type = TagType.fromIdOrNull(id);
+        if (type == null) {
+            throw new IOException("Unknown tag id " + id);
+        }
+        return type;
+    }
+
+    static TagType readType(DataInput nbt) throws IOException {
+        return tagType(nbt.readUnsignedByte());
+    }
+
+    static int readLength(DataInput nbt) throws IOException {
+        int length = nbt.readInt();
+        if (length < 0) {
+            throw new IOException("Negative length " + length);
+        }
+        return length;
+    }
+
+    static String readString(DataInput nbt) throws IOException {
+        byte[] bytes = new byte[nbt.readUnsignedShort()];
+        nbt.readFully(bytes);
+        return new String(bytes, NBTConstants.CHARSET);
+    }
+
+    /**
+     * A binary list or compound whose payload is being read.
+     */
+    static final class Container {
+
+        // null for compounds
+        @Nullable
+        final TagType elementType;
+        int remaining;
+        final String name;
+        @Nullable
+        final Map<String, Tag> entries;
+        @Nullable
+        final List<Tag> elements;
+
+        private Container(String name, @Nullable TagType elementType,
+                int length, boolean collect) {
+            this.name = name;
+            this.elementType = elementType;
+            this.remaining = length;
+            boolean compound = elementType == null;
+            this.entries = collect && compound ? new HashMap<>() : null;
+            this.elements = collect && !compound
+                    ? new ArrayList<>(Math.min(length, 1024)) : null;
+        }
+
+        boolean isCompound() {
+            return this.elementType == null;
+        }
+
+        void add(Tag tag) {
+            if (this.entries != null) {
+                this.entries.put(tag.getName(), tag);
+            } else {
+                this.elements.add(tag);
+            }
+        }
+
+        Tag build() {
+            if (this.entries != null) {
+                return new CompoundTag(this.name, this.entries);
+            }
+            return new ListTag(this.name, this.elementType.getTagClass(),
+                    this.elements);
+        }
+
+    }
+
+    static boolean isContainer(TagType type) {
+        return type == TagType.LIST || type == TagType.COMPOUND;
+    }
+
+    /**
+     * Reads the header of a list or compound payload. When {@code collect} is
+     * set, the container keeps the tags {@link Container#add(Tag) added} to
+     * it so that it can be built.
+     */
+    static Container beginContainer(DataInput nbt, TagType type, String name,
+            boolean collect) throws IOException {
+        if (type == TagType.COMPOUND) {
+            return new Container(name, null, 0, collect);
+        }
+        int typeId = nbt.readUnsignedByte();
+        int length = readLength(nbt);
+        TagType elementType = tagType(typeId);
+        if (elementType == TagType.END && length > 0) {
+            throw new IOException("TAG_End not permitted in a list");
+        }
+        return new Container(name, elementType, length, collect);
+    }
+
+    /**
+     * Returns the type of the next element of {@code container}, or null if
+     * it has ended. The name of a compound entry is left to be read next.
+     */
+    @Nullable
+    static TagType nextType(DataInput nbt, Container container)
+            throws IOException {
+        if (!container.isCompound()) {
+            if (container.remaining == 0) {
+                return null;
+            }
+            container.remaining--;
+            return container.elementType;
+        }
+        TagType type = readType(nbt);
+        return type == TagType.END ? null : type;
+    }
+
+    /**
+     * Reads a payload into a tag. Lists and compounds are read with a stack
+     * of the containers that are open, so the depth is not limited by the
+     * thread's stack.
+     */
+    static Tag readPayload(DataInput nbt, TagType type, String name)
+            throws IOException {
+        if (!isContainer(type)) {
+            return readValuePayload(nbt, type, name);
+        }
+        Deque<Container> open = new ArrayDeque<>();
+        open.push(beginContainer(nbt, type, name, true));
+        while (true) {
+            Container container = open.peek();
+            TagType elementType = nextType(nbt, container);
+            if (elementType == null) {
+                Tag tag = container.build();
+                open.pop();
+                if (open.isEmpty()) {
+                    return tag;
+                }
+                open.peek().add(tag);
+                continue;
+            }
+            String elementName =
+                    container.isCompound() ? readString(nbt) : "";
+            if (isContainer(elementType)) {
+                open.push(
+                        beginContainer(nbt, elementType, elementName, true));
+            } else {
+                container.add(
+                        readValuePayload(nbt, elementType, elementName));
+            }
+        }
+    }
+
+    private static Tag readValuePayload(DataInput nbt, TagType type,
+            String name) throws IOException {
+        switch (type) {
+            case BYTE:
+                return new ByteTag(name, nbt.readByte());
+            case SHORT:
+                return new ShortTag(name, nbt.readShort());
+            case INT:
+                return new IntTag(name, nbt.readInt());
+            case LONG:
+                return new LongTag(name, nbt.readLong());
+            case FLOAT:
+                return new FloatTag(name, nbt.readFloat());
+            case DOUBLE:
+                return new DoubleTag(name, nbt.readDouble());
+            case BYTE_ARRAY:
+                byte[] bytes = new byte[readLength(nbt)];
+                nbt.readFully(bytes);
+                return new ByteArrayTag(name, bytes);
+            case STRING:
+                return new StringTag(name, readString(nbt));
+            case INT_ARRAY:
+                int[] ints = new int[readLength(nbt)];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = nbt.readInt();
+                }
+                return new IntArrayTag(name, ints);
+            default:
+                throw new IOException("Unexpected tag type " + type);
+        }
+    }
+
+    /**
+     * Skips a payload without decoding it. Only the lengths of arrays and
+     * strings, and the structure of lists and compounds, are read.
+     */
+    static void skipPayload(DataInput nbt, TagType type) throws IOException {
+        if (!isContainer(type)) {
+            skipValuePayload(nbt, type);
+            return;
+        }
+        Deque<Container> open = new ArrayDeque<>();
+        open.push(beginContainer(nbt, type, "", false));
+        while (!open.isEmpty()) {
+            Container container = open.peek();
+            TagType elementType = nextType(nbt, container);
+            if (elementType == null) {
+                open.pop();
+                continue;
+            }
+            if (container.isCompound()) {
+                skipFully(nbt, nbt.readUnsignedShort());
+            }
+            if (isContainer(elementType)) {
+                open.push(beginContainer(nbt, elementType, "", false));
+            } else {
+                skipValuePayload(nbt, elementType);
+            }
+        }
+    }
+
+    private static void skipValuePayload(DataInput nbt, TagType type)
+            throws IOException {
+        switch (type) {
+            case BYTE:
+                skipFully(nbt, 1);
+                break;
+            case SHORT:
+                skipFully(nbt, 2);
+                break;
+            case INT:
+            case FLOAT:
+                skipFully(nbt, 4);
+                break;
+            case LONG:
+            case DOUBLE:
+                skipFully(nbt, 8);
+                break;
+            case BYTE_ARRAY:
+                skipFully(nbt, readLength(nbt));
+                break;
+            case STRING:
+                skipFully(nbt, nbt.readUnsignedShort());
+                break;
+            case INT_ARRAY:
+                skipFully(nbt, readLength(nbt) * 4L);
+                break;
+            default:
+                throw new IOException("Unexpected tag type " + type);
+        }
+    }
+
+    private static void skipFully(DataInput nbt, long count)
+            throws IOException {
+        while (count > 0) {
+            int skipped = nbt.skipBytes((int) Math.min(count,
+                    Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            count -= skipped;
+        }
+    }
+
+    private BinaryNbt() {
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,138 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import me.kenzierocks.hnbt.util.ZipStreams;
+
+/**
+ * Compression of NBT and HNBT streams. Compressed streams use pooled
+ * inflaters and deflaters, see {@link ZipStreams}.
+ */
+public enum Compression {
+
+    NONE {
+
+        @Override
+        public InputStream decompress(InputStream in, int bufferSize) {
+            checkArgument(bufferSize > 0, "buffer size must be positive");
+            return checkNotNull(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int bufferSize) {
+            checkArgument(bufferSize > 0, "buffer size must be positive");
+            return checkNotNull(out);
+        }
+
+    },
+    GZIP {
+
+        @Override
+        public InputStream decompress(InputStream in, int bufferSize)
+                throws IOException {
+            return ZipStreams.gzipInput(in, bufferSize);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int bufferSize)
+                throws IOException {
+            return ZipStreams.gzipOutput(out, bufferSize);
+        }
+
+    },
+    /**
+     * Deflate data with a zlib header and checksum.
+     */
+    ZLIB {
+
+        @Override
+        public InputStream decompress(InputStream in, int bufferSize)
+                throws IOException {
+            return ZipStreams.zlibInput(in, bufferSize);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int bufferSize)
+                throws IOException {
+            return ZipStreams.zlibOutput(out, bufferSize);
+        }
+
+    };
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Detects the compression of {@code in} from its first two bytes, without
+     * consuming them.
+     *
+     * @throws IllegalArgumentException
+     *             if {@code in} does not support mark and reset
+     */
+    public static Compression detect(InputStream in) throws IOException {
+        checkArgument(in.markSupported(), "stream must support mark");
+        in.mark(2);
+        int b0;
+        int b1;
+        try {
+            b0 = in.read();
+            b1 = in.read();
+        } finally {
+            in.reset();
+        }
+        if (b0 == -1 || b1 == -1) {
+            return NONE;
+        }
+        if (ZipStreams.isGzipHeader(b0, b1)) {
+            return GZIP;
+        }
+        if (ZipStreams.isZlibHeader(b0, b1)) {
+            return ZLIB;
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the decompressed contents of {@code in}, after detecting its
+     * compression. Neither NBT nor HNBT can start like compressed data, so
+     * this is safe for both.
+     */
+    public static InputStream decompressDetected(InputStream in)
+            throws IOException {
+        return decompressDetected(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public static InputStream decompressDetected(InputStream in,
+            int bufferSize) throws IOException {
+        if (!in.markSupported()) {
+            in = new BufferedInputStream(in, bufferSize);
+        }
+        return detect(in).decompress(in, bufferSize);
+    }
+
+    public InputStream decompress(InputStream in) throws IOException {
+        return decompress(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public abstract InputStream decompress(InputStream in, int bufferSize)
+            throws IOException;
+
+    /**
+     * The returned stream must be closed to finish the compressed data.
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        return compress(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @see #compress(OutputStream)
+     */
+    public abstract OutputStream compress(OutputStream out, int bufferSize)
+            throws IOException;
+
+}
@@ -0,0 +1,180 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.EndTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+/**
+ * Builds the JNBT tree from the events of a {@link HnbtReader}, without going
+ * through ANTLR. It accepts the same language as {@code HNBTParser.g4}.
+ * Open compounds and lists are kept on a stack instead of recursing, so the
+ * depth is only bounded by the reader's {@link HnbtLimits}.
+ */
+final class DirectHnbtParser {
+
+    /**
+     * A compound or list whose elements are being parsed.
+     */
+    private static final class Frame {
+
+        final String name;
+        @Nullable
+        final Map<String, Tag> entries;
+        @Nullable
+        final List<Tag> elements;
+
+        Frame(String name, boolean compound) {
+            this.name = name;
+            this.entries = compound ? new HashMap<>() : null;
+            this.elements = compound ? null : new ArrayList<>();
+        }
+
+        void add(Tag tag) {
+            if (this.entries != null) {
+                this.entries.put(tag.getName(), tag);
+            } else {
+                this.elements.add(tag);
+            }
+        }
+
+        Tag build() {
+            if (this.entries != null) {
+                return new CompoundTag(this.name, this.entries);
+            }
+            Class<? extends Tag> tagClass = this.elements.isEmpty()
+                    ? EndTag.class : this.elements.get(0).getClass();
+            return new ListTag(this.name, tagClass, this.elements);
+        }
+
+    }
+
+    private final HnbtReader reader;
+
+    DirectHnbtParser(HnbtReader reader) {
+        this.reader = checkNotNull(reader);
+    }
+
+    CompoundTag parseRoot() throws IOException, HNBTParsingException {
+        this.reader.beginCompound();
+        CompoundTag root =
+                (CompoundTag) parseContainer(new Frame("root", true));
+        // checks for trailing input
+        this.reader.peek();
+        return root;
+    }
+
+    /**
+     * Parses the items of a {@link HnbtReader#forItems fragment} reader, in
+     * order. Compound entries are named after their keys.
+     */
+    List<Tag> parseItems(boolean inCompound)
+            throws IOException, HNBTParsingException {
+        List<Tag> tags = new ArrayList<>();
+        while (this.reader.hasNext()) {
+            String name = inCompound ? this.reader.nextName() : "";
+            tags.add(parseTag(name));
+        }
+        this.reader.end();
+        // checks for trailing input
+        this.reader.peek();
+        return tags;
+    }
+
+    Tag parseTag(String name)
+            throws IOException, HNBTParsingException {
+        HnbtEvent event = this.reader.peek();
+        switch (event) {
+            case BEGIN_COMPOUND:
+                this.reader.beginCompound();
+                return parseContainer(new Frame(name, true));
+            case BEGIN_LIST:
+                this.reader.beginList();
+                return parseContainer(new Frame(name, false));
+            default:
+                return parseValue(name, event);
+        }
+    }
+
+    private Tag parseValue(String name, HnbtEvent event)
+            throws IOException, HNBTParsingException {
+        switch (event) {
+            case BYTE_VALUE:
+                return new ByteTag(name, this.reader.nextByte());
+            case SHORT_VALUE:
+                return new ShortTag(name, this.reader.nextShort());
+            case INT_VALUE:
+                return new IntTag(name, this.reader.nextInt());
+            case LONG_VALUE:
+                return new LongTag(name, this.reader.nextLong());
+            case FLOAT_VALUE:
+                return new FloatTag(name, this.reader.nextFloat());
+            case DOUBLE_VALUE:
+                return new DoubleTag(name, this.reader.nextDouble());
+            case STRING_VALUE:
+                return new StringTag(name, this.reader.nextString());
+            case BYTE_ARRAY_VALUE:
+                return new ByteArrayTag(name, this.reader.nextByteArray());
+            case INT_ARRAY_VALUE:
+                return new IntArrayTag(name, this.reader.nextIntArray());
+            default:
+                throw new IllegalStateException("Unexpected event " + event);
+        }
+    }
+
+    /**
+     * Parses the elements of {@code root}, which has just been opened, and
+     * everything nested in them.
+     */
+    private Tag parseContainer(Frame root)
+            throws IOException, HNBTParsingException {
+        Deque<Frame> open = new ArrayDeque<>();
+        open.push(root);
+        while (true) {
+            Frame frame = open.peek();
+            if (!this.reader.hasNext()) {
+                this.reader.end();
+                Tag tag = frame.build();
+                open.pop();
+                if (open.isEmpty()) {
+                    return tag;
+                }
+                open.peek().add(tag);
+                continue;
+            }
+            String name = frame.entries != null ? this.reader.nextName() : "";
+            HnbtEvent event = this.reader.peek();
+            if (event == HnbtEvent.BEGIN_COMPOUND) {
+                this.reader.beginCompound();
+                open.push(new Frame(name, true));
+            } else if (event == HnbtEvent.BEGIN_LIST) {
+                this.reader.beginList();
+                open.push(new Frame(name, false));
+            } else {
+                frame.add(parseValue(name, event));
+            }
+        }
+    }
+
+}
@@ -7,19 +7,57 @@ public class HNBTParsingException extends Exception {
 
     private static final long serialVersionUID = -1260202145611792778L;
 
+    private final int line;
+    private final int column;
+
     public HNBTParsingException() {
+        this.line = -1;
+        this.column = -1;
     }
 
     public HNBTParsingException(String message) {
         super(message);
+        this.line = -1;
+        this.column = -1;
     }
 
     public HNBTParsingException(Throwable cause) {
         super(cause);
+        this.line = -1;
+        this.column = -1;
     }
 
     public HNBTParsingException(String message, Throwable cause) {
         super(message, cause);
+        this.line = -1;
+        this.column = -1;
+    }
+
+    /**
+     * Creates an exception for an error at {@code line} and {@code column},
+     * which are not added to the message.
+     */
+    public HNBTParsingException(String message, int line, int column,
+            Throwable cause) {
+        super(message, cause);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the line the error occured at, starting at 1, or -1 if it is
+     *         not known
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * @return the column the error occured at, starting at 0, or -1 if it is
+     *         not known
+     */
+    public int getColumn() {
+        return this.column;
     }
 
 }
@@ -0,0 +1,69 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import javax.annotation.Nullable;
+
+/**
+ * The events produced by {@link HnbtReader}.
+ */
+public enum HnbtEvent {
+
+    BEGIN_COMPOUND(TagType.COMPOUND),
+    BEGIN_LIST(TagType.LIST),
+    /**
+     * The name of an entry in a compound. The next event is its value.
+     */
+    NAME(null),
+    BYTE_VALUE(TagType.BYTE),
+    SHORT_VALUE(TagType.SHORT),
+    INT_VALUE(TagType.INT),
+    LONG_VALUE(TagType.LONG),
+    FLOAT_VALUE(TagType.FLOAT),
+    DOUBLE_VALUE(TagType.DOUBLE),
+    STRING_VALUE(TagType.STRING),
+    BYTE_ARRAY_VALUE(TagType.BYTE_ARRAY),
+    INT_ARRAY_VALUE(TagType.INT_ARRAY),
+    /**
+     * The end of the current compound or list.
+     */
+    END(null),
+    END_DOCUMENT(null);
+
+    private static final HnbtEvent[] BY_TYPE =
+            new HnbtEvent[TagType.values().length];
+
+    static {
+        for (HnbtEvent event : values()) {
+            if (event.valueType != null) {
+                BY_TYPE[event.valueType.ordinal()] = event;
+            }
+        }
+    }
+
+    /**
+     * @return the event that starts a value of the given type
+     */
+    public static HnbtEvent forValueType(TagType type) {
+        HnbtEvent event = BY_TYPE[type.ordinal()];
+        checkArgument(event != null, "no values of type %s", type);
+        return event;
+    }
+
+    @Nullable
+    private final TagType valueType;
+
+    HnbtEvent(@Nullable TagType valueType) {
+        this.valueType = valueType;
+    }
+
+    /**
+     * @return the type of the value this event starts, or {@code null} if it
+     *         doesn't start a value
+     */
+    @Nullable
+    public TagType getValueType() {
+        return this.valueType;
+    }
+
+}
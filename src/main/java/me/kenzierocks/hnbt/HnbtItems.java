@@ -0,0 +1,138 @@
+package me.kenzierocks.hnbt;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import me.kenzierocks.hnbt.util.StringTable;
+
+/**
+ * Positions of the items of a compound or list, found by a structural scan
+ * that does not parse them. Items are separated by commas outside of strings
+ * and nested brackets, and strings end at the first quote that is not
+ * preceded by a backslash, like {@code STRING_ONELINE}. The syntax of each
+ * item is only checked when it is parsed.
+ */
+final class HnbtItems {
+
+    /**
+     * Scans the container whose opening bracket is at {@code open}, which is
+     * on the given line.
+     *
+     * @return the items, or {@code null} if the brackets, strings or commas
+     *         are not well-formed
+     */
+    @Nullable
+    static HnbtItems scan(char[] chars, int open, int line, int lineStart) {
+        HnbtItems items = new HnbtItems();
+        int depth = 0;
+        int itemStart = open + 1;
+        int itemLine = line;
+        int itemLineStart = lineStart;
+        for (int i = open + 1; i < chars.length; i++) {
+            char c = chars[i];
+            switch (c) {
+                case '\n':
+                    line++;
+                    lineStart = i + 1;
+                    break;
+                case '"':
+                    i++;
+                    while (i < chars.length
+                            && (chars[i] != '"' || chars[i - 1] == '\\')) {
+                        if (chars[i] == '\n') {
+                            line++;
+                            lineStart = i + 1;
+                        }
+                        i++;
+                    }
+                    if (i == chars.length) {
+                        return null;
+                    }
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        if (isBlank(chars, itemStart, i)) {
+                            // only an empty container may have no items
+                            if (items.count > 0) {
+                                return null;
+                            }
+                        } else {
+                            items.add(itemStart, i, itemLine, itemLineStart);
+                        }
+                        items.close = i;
+                        return items;
+                    }
+                    depth--;
+                    break;
+                case ',':
+                    if (depth == 0) {
+                        if (isBlank(chars, itemStart, i)) {
+                            return null;
+                        }
+                        items.add(itemStart, i, itemLine, itemLineStart);
+                        itemStart = i + 1;
+                        itemLine = line;
+                        itemLineStart = lineStart;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    static boolean isBlank(char[] chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!HnbtScanner.isWhitespace(chars[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int count;
+    int[] starts = new int[16];
+    int[] ends = new int[16];
+    int[] lines = new int[16];
+    int[] lineStarts = new int[16];
+    // offset of the closing bracket
+    int close;
+
+    private HnbtItems() {
+    }
+
+    private void add(int start, int end, int line, int lineStart) {
+        if (this.count == this.starts.length) {
+            int size = this.count * 2;
+            this.starts = Arrays.copyOf(this.starts, size);
+            this.ends = Arrays.copyOf(this.ends, size);
+            this.lines = Arrays.copyOf(this.lines, size);
+            this.lineStarts = Arrays.copyOf(this.lineStarts, size);
+        }
+        this.starts[this.count] = start;
+        this.ends[this.count] = end;
+        this.lines[this.count] = line;
+        this.lineStarts[this.count] = lineStart;
+        this.count++;
+    }
+
+    /**
+     * Creates a reader for the items {@code first} to {@code last}, which
+     * looks up names and strings in {@code strings}.
+     */
+    HnbtReader reader(char[] chars, int first, int last, boolean inCompound,
+            @Nullable StringTable strings) {
+        HnbtScanner scanner = new HnbtScanner(chars, this.starts[first],
+                this.ends[last], this.lines[first], this.lineStarts[first]);
+        scanner.setStringTable(strings);
+        return HnbtReader.forItems(scanner, inCompound);
+    }
+
+}
@@ -0,0 +1,125 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounds on the size of a document, for parsing input that may be hostile
+ * or broken. Parsing stops with an {@link HNBTParsingException} as soon as a
+ * limit is exceeded, before the memory or stack it would take is used.
+ *
+ * @see HnbtParser.Builder#limits(HnbtLimits)
+ * @see HnbtReader#setLimits(HnbtLimits)
+ */
+public final class HnbtLimits {
+
+    /**
+     * No limits, which is what the static parsing methods use.
+     */
+    public static final HnbtLimits NONE = builder().build();
+
+    public static final class Builder {
+
+        private long maxChars = Long.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private int maxElements = Integer.MAX_VALUE;
+        private int maxStringLength = Integer.MAX_VALUE;
+        private long maxTags = Long.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        /**
+         * The length of the whole document, in characters.
+         */
+        public Builder maxChars(long maxChars) {
+            checkArgument(maxChars > 0, "maxChars must be positive");
+            this.maxChars = maxChars;
+            return this;
+        }
+
+        /**
+         * How deeply compounds and lists may be nested. The root compound is
+         * at depth one.
+         */
+        public Builder maxDepth(int maxDepth) {
+            checkArgument(maxDepth > 0, "maxDepth must be positive");
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * The number of elements in each list, byte array or int array.
+         */
+        public Builder maxElements(int maxElements) {
+            checkArgument(maxElements >= 0,
+                    "maxElements must not be negative");
+            this.maxElements = maxElements;
+            return this;
+        }
+
+        /**
+         * The length of each string value, counted between the quotes
+         * before escapes are replaced.
+         */
+        public Builder maxStringLength(int maxStringLength) {
+            checkArgument(maxStringLength >= 0,
+                    "maxStringLength must not be negative");
+            this.maxStringLength = maxStringLength;
+            return this;
+        }
+
+        /**
+         * The number of compound entries and list elements in the whole
+         * document.
+         */
+        public Builder maxTags(long maxTags) {
+            checkArgument(maxTags >= 0, "maxTags must not be negative");
+            this.maxTags = maxTags;
+            return this;
+        }
+
+        public HnbtLimits build() {
+            return new HnbtLimits(this);
+        }
+
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final long maxChars;
+    private final int maxDepth;
+    private final int maxElements;
+    private final int maxStringLength;
+    private final long maxTags;
+
+    private HnbtLimits(Builder builder) {
+        this.maxChars = builder.maxChars;
+        this.maxDepth = builder.maxDepth;
+        this.maxElements = builder.maxElements;
+        this.maxStringLength = builder.maxStringLength;
+        this.maxTags = builder.maxTags;
+    }
+
+    public long getMaxChars() {
+        return this.maxChars;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public int getMaxElements() {
+        return this.maxElements;
+    }
+
+    public int getMaxStringLength() {
+        return this.maxStringLength;
+    }
+
+    public long getMaxTags() {
+        return this.maxTags;
+    }
+
+}
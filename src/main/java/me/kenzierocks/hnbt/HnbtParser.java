@@ -0,0 +1,279 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.CompoundTag;
+
+import me.kenzierocks.hnbt.util.ArrayCharStream;
+import me.kenzierocks.hnbt.util.StringTable;
+
+/**
+ * A parser that is configured once and reused for many documents. It can be
+ * shared between threads: each thread that uses it keeps its own ANTLR
+ * parser and scratch buffer, so a parse only allocates what the document
+ * needs. Names and short strings are deduplicated across all documents.
+ *
+ * <p>
+ * ANTLR's DFA is shared by every parser of the grammar. {@link #warmUp()}
+ * fills it in ahead of time, and {@link Builder#maxDfaStates(int)} bounds
+ * how large it can grow.
+ * </p>
+ *
+ * <p>
+ * For untrusted input, {@link Builder#limits(HnbtLimits) limits} bound the
+ * size of the documents that are accepted.
+ * </p>
+ */
+public final class HnbtParser {
+
+    public enum Engine {
+        /**
+         * The ANTLR grammar, as used by
+         * {@link HnbtToNbt#parseHnbtIntoNbt(String)}.
+         */
+        ANTLR,
+        /**
+         * The hand-written parser, as used by
+         * {@link HnbtToNbt#parseHnbtIntoNbtDirect(String)}.
+         */
+        DIRECT;
+    }
+
+    public static final class Builder {
+
+        private Engine engine = Engine.ANTLR;
+        private int maxDfaStates;
+        private HnbtLimits limits = HnbtLimits.NONE;
+        private boolean failFast;
+
+        private Builder() {
+        }
+
+        public Builder engine(Engine engine) {
+            this.engine = checkNotNull(engine);
+            return this;
+        }
+
+        /**
+         * Clears the ANTLR DFA after a parse that leaves it with more than
+         * {@code maxDfaStates} states. Zero, the default, never clears it.
+         */
+        public Builder maxDfaStates(int maxDfaStates) {
+            checkArgument(maxDfaStates >= 0,
+                    "maxDfaStates must not be negative");
+            this.maxDfaStates = maxDfaStates;
+            return this;
+        }
+
+        public Builder limits(HnbtLimits limits) {
+            this.limits = checkNotNull(limits);
+            return this;
+        }
+
+        /**
+         * Makes the ANTLR engine stop at the first syntax error, which is the
+         * only one reported. Broken input then costs at most one parse with
+         * fast prediction and one with full prediction up to the error,
+         * instead of a full second parse that recovers from every error. The
+         * direct engine always stops at the first error.
+         */
+        public Builder failFast(boolean failFast) {
+            this.failFast = failFast;
+            return this;
+        }
+
+        public HnbtParser build() {
+            return new HnbtParser(this);
+        }
+
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // scratch buffers larger than this are not kept between documents
+    private static final int MAX_RETAINED_CHARS = 1 << 20;
+    // uses every tag type, and every kind of literal
+    private static final String WARM_UP_DOCUMENT = "compound root = {\n"
+            + "    byte byte = -1,\n" + "    short short = 2,\n"
+            + "    int int = 3,\n" + "    long long = -4,\n"
+            + "    float float = 5.5,\n" + "    double double = -6.0,\n"
+            + "    string string = \"s\\n\\\"\",\n"
+            + "    byte-array byte-array = [1, -2],\n"
+            + "    int-array int-array = [3, 4],\n"
+            + "    list list = [compound = {string s = \"\"}, compound = {}],\n"
+            + "    list empty = [],\n"
+            + "    compound compound = {list list = [int = 1, int = 2]}\n"
+            + "}\n";
+
+    /**
+     * What a thread keeps between documents.
+     */
+    private static final class Scratch {
+
+        @Nullable
+        AntlrHnbtParser antlr;
+        @Nullable
+        char[] chars;
+
+        char[] chars(int length) {
+            if (length > MAX_RETAINED_CHARS) {
+                return new char[length];
+            }
+            if (this.chars == null || this.chars.length < length) {
+                this.chars = new char[Math.max(length, 256)];
+            }
+            return this.chars;
+        }
+
+    }
+
+    private final Engine engine;
+    private final int maxDfaStates;
+    private final HnbtLimits limits;
+    private final boolean failFast;
+    private final StringTable strings = new StringTable();
+    private final ThreadLocal<Scratch> scratch =
+            ThreadLocal.withInitial(Scratch::new);
+
+    private HnbtParser(Builder builder) {
+        this.engine = builder.engine;
+        this.maxDfaStates = builder.maxDfaStates;
+        this.limits = builder.limits;
+        this.failFast = builder.failFast;
+    }
+
+    public Engine getEngine() {
+        return this.engine;
+    }
+
+    public HnbtLimits getLimits() {
+        return this.limits;
+    }
+
+    public CompoundTag parse(String hnbt) throws HNBTParsingException {
+        int length = hnbt.length();
+        if (length > this.limits.getMaxChars()) {
+            throw tooLong();
+        }
+        Scratch scratch = this.scratch.get();
+        char[] chars = scratch.chars(length);
+        hnbt.getChars(0, length, chars, 0);
+        try {
+            if (this.engine == Engine.ANTLR) {
+                return parseAntlr(scratch,
+                        new ArrayCharStream(chars, length));
+            }
+            HnbtScanner scanner = new HnbtScanner(chars, 0, length);
+            scanner.setStringTable(this.strings);
+            HnbtReader reader = new HnbtReader(scanner);
+            reader.setLimits(this.limits);
+            return new DirectHnbtParser(reader).parseRoot();
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        } catch (HNBTParsingException | RuntimeException e) {
+            // the error may still point into the buffer
+            scratch.chars = null;
+            throw e;
+        }
+    }
+
+    public CompoundTag parse(Reader hnbt)
+            throws IOException, HNBTParsingException {
+        if (this.engine == Engine.ANTLR) {
+            return parseAntlr(this.scratch.get(), readAll(hnbt));
+        }
+        HnbtReader reader = new HnbtReader(hnbt);
+        reader.setStringTable(this.strings);
+        reader.setLimits(this.limits);
+        return new DirectHnbtParser(reader).parseRoot();
+    }
+
+    /**
+     * Reads all of {@code hnbt} for ANTLR, stopping early if it is longer
+     * than the limit.
+     */
+    private ArrayCharStream readAll(Reader hnbt)
+            throws IOException, HNBTParsingException {
+        char[] chars = new char[1024];
+        int length = 0;
+        while (true) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            int read = hnbt.read(chars, length, chars.length - length);
+            if (read == -1) {
+                return new ArrayCharStream(chars, length);
+            }
+            length += read;
+            if (length > this.limits.getMaxChars()) {
+                throw tooLong();
+            }
+        }
+    }
+
+    private HNBTParsingException tooLong() {
+        return new HNBTParsingException("input is longer than the limit of "
+                + this.limits.getMaxChars() + " characters");
+    }
+
+    private CompoundTag parseAntlr(Scratch scratch, ArrayCharStream hnbt)
+            throws HNBTParsingException {
+        AntlrHnbtParser antlr = antlr(scratch);
+        try {
+            return antlr.parse(hnbt);
+        } finally {
+            if (this.maxDfaStates > 0
+                    && antlr.dfaStateCount() > this.maxDfaStates) {
+                antlr.clearDfa();
+            }
+        }
+    }
+
+    private AntlrHnbtParser antlr(Scratch scratch) {
+        if (scratch.antlr == null) {
+            scratch.antlr = new AntlrHnbtParser();
+            scratch.antlr.setStringTable(this.strings);
+            scratch.antlr.setLimits(this.limits);
+            scratch.antlr.setFailFast(this.failFast);
+        }
+        return scratch.antlr;
+    }
+
+    /**
+     * Parses a document that uses every tag type, so that the ANTLR DFA and
+     * the parser code are ready before the first real document.
+     */
+    public void warmUp() {
+        try {
+            parse(WARM_UP_DOCUMENT);
+        } catch (HNBTParsingException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+    }
+
+    /**
+     * Returns the number of states in the ANTLR DFA, which is shared by all
+     * parsers.
+     */
+    public int getDfaStateCount() {
+        return antlr(this.scratch.get()).dfaStateCount();
+    }
+
+    /**
+     * Clears the ANTLR DFA, which is shared by all parsers. It is rebuilt as
+     * documents are parsed.
+     */
+    public void clearDfaCache() {
+        antlr(this.scratch.get()).clearDfa();
+    }
+
+}
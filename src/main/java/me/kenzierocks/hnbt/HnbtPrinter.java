@@ -0,0 +1,123 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import org.jnbt.CompoundTag;
+
+import me.kenzierocks.hnbt.util.IndentedOutput;
+
+/**
+ * A serializer that is configured once and reused for many trees. It can be
+ * shared between threads: each thread that uses it keeps its own serializer
+ * and text buffer, so printing a tree only allocates the result. The text is
+ * the same as {@link NbtToHnbt#parseNbtIntoHnbt(CompoundTag, String)}
+ * writes.
+ */
+public final class HnbtPrinter {
+
+    // buffers that grew past this are not kept between trees
+    private static final int MAX_RETAINED_CHARS = 1 << 20;
+
+    /**
+     * What a thread keeps between trees.
+     */
+    private static final class Scratch {
+
+        final StringBuilder text = new StringBuilder();
+        final HnbtSerializer serializer;
+
+        Scratch(String indent, int maxDepth) {
+            this.serializer = new HnbtSerializer(this.text, indent);
+            this.serializer.setMaxDepth(maxDepth);
+        }
+
+    }
+
+    private final String indent;
+    private final int maxDepth;
+    private final ThreadLocal<Scratch> scratch;
+
+    public HnbtPrinter() {
+        this(IndentedOutput.DEFAULT_INDENT);
+    }
+
+    /**
+     * Creates a printer that indents each level with {@code indent}, which
+     * may only contain spaces and tabs.
+     */
+    public HnbtPrinter(String indent) {
+        this(indent, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a printer that refuses trees with compounds and lists nested
+     * more than {@code maxDepth} deep, counting the root compound as one.
+     * Without a limit, the depth is only bounded by memory.
+     */
+    public HnbtPrinter(String indent, int maxDepth) {
+        this.indent = IndentedOutput.checkIndent(indent);
+        checkArgument(maxDepth > 0, "maxDepth must be positive");
+        this.maxDepth = maxDepth;
+        this.scratch = ThreadLocal
+                .withInitial(() -> new Scratch(this.indent, this.maxDepth));
+    }
+
+    public String getIndent() {
+        return this.indent;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public String print(CompoundTag nbt) {
+        Scratch scratch = render(nbt);
+        String text = scratch.text.toString();
+        release(scratch);
+        return text;
+    }
+
+    /**
+     * Appends the text of {@code nbt} to {@code target}. The text is built
+     * up first, so nothing is appended if {@code nbt} cannot be serialized.
+     */
+    public void print(CompoundTag nbt, Appendable target) throws IOException {
+        checkNotNull(target);
+        Scratch scratch = render(nbt);
+        try {
+            target.append(scratch.text);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    private Scratch render(CompoundTag nbt) {
+        checkNotNull(nbt);
+        Scratch scratch = this.scratch.get();
+        scratch.text.setLength(0);
+        try {
+            scratch.serializer.writeCompoundTag(nbt, "root");
+            scratch.serializer.flushBuffer();
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        } catch (RuntimeException e) {
+            // the serializer may be left part way through the tree
+            this.scratch.remove();
+            throw e;
+        }
+        scratch.text.append('\n');
+        return scratch;
+    }
+
+    private void release(Scratch scratch) {
+        if (scratch.text.capacity() > MAX_RETAINED_CHARS) {
+            this.scratch.remove();
+        } else {
+            scratch.text.setLength(0);
+        }
+    }
+
+}
@@ -0,0 +1,287 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.NBTConstants;
+import org.jnbt.Tag;
+
+import me.kenzierocks.hnbt.util.NonClosingInputStream;
+import me.kenzierocks.hnbt.util.TagNames;
+
+/**
+ * A compiled path into a tag tree, such as {@code Level.Sections[*].Y}. Paths
+ * start inside the root compound: each name selects the matching entries of
+ * a compound, and each {@code [index]} the matching elements of a list.
+ * A name or index of just {@code *} matches anything. Other names match
+ * exactly, even if they contain {@code *}, and {@code \*} stands for a
+ * literal {@code *}, so {@code \*} selects an entry named {@code *}. The
+ * empty path selects the root.
+ *
+ * <p>
+ * Queries run over a stream of HNBT events or binary NBT, and only build
+ * tags for the values they select. Everything else is skipped without being
+ * kept, so memory use depends on the matches and the nesting depth, not on
+ * the size of the document. Matches are reported in document order, and a
+ * path that runs into a value of another type simply does not match there.
+ * </p>
+ */
+public final class HnbtQuery {
+
+    private static final String ANY = "*";
+    private static final String ESCAPED_ANY = "\\*";
+
+    /**
+     * @throws IllegalArgumentException
+     *             if {@code path} is not a valid path
+     */
+    public static HnbtQuery compile(String path) {
+        checkNotNull(path);
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        int length = path.length();
+        while (i < length) {
+            int start = i;
+            while (i < length && path.charAt(i) != '.'
+                    && path.charAt(i) != '[') {
+                i++;
+            }
+            String segment = path.substring(start, i);
+            String name = segment.replace(ESCAPED_ANY, ANY);
+            if (!TagNames.isValidName(name)) {
+                throw invalidPath(path, start, "expected a name");
+            }
+            steps.add(new Step(segment.equals(ANY) ? null : name, -1));
+            while (i < length && path.charAt(i) == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) {
+                    throw invalidPath(path, i, "unclosed [");
+                }
+                steps.add(new Step(null, parseIndex(path, i + 1, close)));
+                i = close + 1;
+            }
+            if (i < length) {
+                if (path.charAt(i) != '.' || i + 1 == length) {
+                    throw invalidPath(path, i, "expected . or [");
+                }
+                i++;
+            }
+        }
+        return new HnbtQuery(path, steps.toArray(new Step[steps.size()]));
+    }
+
+    private static int parseIndex(String path, int start, int end) {
+        String index = path.substring(start, end);
+        if (index.equals(ANY)) {
+            return Step.ANY_INDEX;
+        }
+        if (index.isEmpty() || index.length() > 9) {
+            throw invalidPath(path, start, "expected an index or *");
+        }
+        for (int i = 0; i < index.length(); i++) {
+            if (index.charAt(i) < '0' || index.charAt(i) > '9') {
+                throw invalidPath(path, start, "expected an index or *");
+            }
+        }
+        return Integer.parseInt(index);
+    }
+
+    private static IllegalArgumentException invalidPath(String path,
+            int index, String message) {
+        return new IllegalArgumentException(
+                "Invalid path \"" + path + "\" at " + index + ": " + message);
+    }
+
+    /**
+     * Selects either compound entries by name, or list elements by index.
+     */
+    private static final class Step {
+
+        static final int ANY_INDEX = -2;
+
+        final boolean inCompound;
+        // null matches any name
+        @Nullable
+        final String name;
+        final int index;
+
+        Step(@Nullable String name, int index) {
+            this.inCompound = index == -1;
+            this.name = name;
+            this.index = index;
+        }
+
+        boolean matchesName(String name) {
+            return this.name == null || this.name.equals(name);
+        }
+
+        boolean matchesIndex(int index) {
+            return this.index == ANY_INDEX || this.index == index;
+        }
+
+    }
+
+    private final String path;
+    private final Step[] steps;
+
+    private HnbtQuery(String path, Step[] steps) {
+        this.path = path;
+        this.steps = steps;
+    }
+
+    /**
+     * Runs the query over HNBT, and returns the matches.
+     */
+    public List<Tag> select(String hnbt) throws HNBTParsingException {
+        char[] data = hnbt.toCharArray();
+        List<Tag> matches = new ArrayList<>();
+        try {
+            select(new HnbtReader(HnbtScanner.forDocument(data)),
+                    matches::add);
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+        return matches;
+    }
+
+    public void select(Reader hnbt, Consumer<? super Tag> matches)
+            throws IOException, HNBTParsingException {
+        select(new HnbtReader(hnbt), matches);
+    }
+
+    /**
+     * Runs the query over a whole document, passing each match to
+     * {@code matches} as soon as it is read. The reader must not have been
+     * read from yet.
+     */
+    public void select(HnbtReader hnbt, Consumer<? super Tag> matches)
+            throws IOException, HNBTParsingException {
+        checkNotNull(matches);
+        selectValue(hnbt, 0, "root", matches);
+        // checks for trailing input
+        hnbt.peek();
+    }
+
+    private void selectValue(HnbtReader reader, int stepIndex, String name,
+            Consumer<? super Tag> matches)
+            throws IOException, HNBTParsingException {
+        if (stepIndex == this.steps.length) {
+            matches.accept(new DirectHnbtParser(reader).parseTag(name));
+            return;
+        }
+        Step step = this.steps[stepIndex];
+        HnbtEvent event = reader.peek();
+        if (step.inCompound && event == HnbtEvent.BEGIN_COMPOUND) {
+            reader.beginCompound();
+            while (reader.hasNext()) {
+                String entryName = reader.nextName();
+                if (step.matchesName(entryName)) {
+                    selectValue(reader, stepIndex + 1, entryName, matches);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.end();
+        } else if (!step.inCompound && event == HnbtEvent.BEGIN_LIST) {
+            reader.beginList();
+            for (int i = 0; reader.hasNext(); i++) {
+                if (step.matchesIndex(i)) {
+                    selectValue(reader, stepIndex + 1, "", matches);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.end();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    /**
+     * Runs the query over binary NBT, which may be gzip or zlib compressed,
+     * and returns the matches. The root tag is named {@code root}, as in
+     * HNBT.
+     */
+    public List<Tag> selectNbt(InputStream nbt) throws IOException {
+        List<Tag> matches = new ArrayList<>();
+        try (InputStream in = Compression
+                .decompressDetected(new NonClosingInputStream(nbt))) {
+            selectNbt(new DataInputStream(new BufferedInputStream(in)),
+                    matches::add);
+        }
+        return matches;
+    }
+
+    /**
+     * Runs the query over uncompressed binary NBT, passing each match to
+     * {@code matches} as soon as it is read.
+     */
+    public void selectNbt(DataInput nbt, Consumer<? super Tag> matches)
+            throws IOException {
+        checkNotNull(matches);
+        int type = nbt.readUnsignedByte();
+        if (type != NBTConstants.TYPE_COMPOUND) {
+            throw new IOException("the root tag must be a compound, not "
+                    + BinaryNbt.tagType(type));
+        }
+        nbt.skipBytes(nbt.readUnsignedShort());
+        selectPayload(nbt, TagType.COMPOUND, 0, "root", matches);
+    }
+
+    private void selectPayload(DataInput nbt, TagType type, int stepIndex,
+            String name, Consumer<? super Tag> matches) throws IOException {
+        if (stepIndex == this.steps.length) {
+            matches.accept(BinaryNbt.readPayload(nbt, type, name));
+            return;
+        }
+        Step step = this.steps[stepIndex];
+        if (step.inCompound && type == TagType.COMPOUND) {
+            while (true) {
+                TagType entryType = BinaryNbt.readType(nbt);
+                if (entryType == TagType.END) {
+                    break;
+                }
+                String entryName = BinaryNbt.readString(nbt);
+                if (step.matchesName(entryName)) {
+                    selectPayload(nbt, entryType, stepIndex + 1, entryName,
+                            matches);
+                } else {
+                    BinaryNbt.skipPayload(nbt, entryType);
+                }
+            }
+        } else if (!step.inCompound && type == TagType.LIST) {
+            TagType elementType = BinaryNbt.readType(nbt);
+            int length = BinaryNbt.readLength(nbt);
+            if (elementType == TagType.END && length > 0) {
+                throw new IOException("TAG_End not permitted in a list");
+            }
+            for (int i = 0; i < length; i++) {
+                if (step.matchesIndex(i)) {
+                    selectPayload(nbt, elementType, stepIndex + 1, "",
+                            matches);
+                } else {
+                    BinaryNbt.skipPayload(nbt, elementType);
+                }
+            }
+        } else {
+            BinaryNbt.skipPayload(nbt, type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.path;
+    }
+
+}
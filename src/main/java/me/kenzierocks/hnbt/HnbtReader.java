@@ -0,0 +1,578 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import me.kenzierocks.hnbt.util.ByteList;
+import me.kenzierocks.hnbt.util.StringTable;
+
+/**
+ * Pull reader for HNBT. The document is read as a stream of
+ * {@link HnbtEvent events}, starting with the {@link HnbtEvent#BEGIN_COMPOUND
+ * BEGIN_COMPOUND} of the root tag and ending with
+ * {@link HnbtEvent#END_DOCUMENT END_DOCUMENT}. Only the current nesting is
+ * kept in memory, so {@link #skipValue()} can be used to pass over large
+ * subtrees without holding them.
+ *
+ * <p>
+ * Compound entries are reported as a {@link HnbtEvent#NAME NAME} followed by
+ * the value. List elements are reported as just their values. The reader
+ * checks that all elements of a list have the same type.
+ * </p>
+ */
+public final class HnbtReader implements Closeable {
+
+    private static final int DOCUMENT_START = 0;
+    private static final int DOCUMENT_END = 1;
+    private static final int COMPOUND_FIRST = 2;
+    private static final int COMPOUND_NEXT = 3;
+    private static final int COMPOUND_VALUE = 4;
+    private static final int LIST_FIRST = 5;
+    private static final int LIST_NEXT = 6;
+
+    @Nullable
+    private final Reader source;
+    private final HnbtScanner scanner;
+    private int[] stack = new int[32];
+    private TagType[] listTypes = new TagType[32];
+    // number of elements read from each list
+    private int[] listSizes = new int[32];
+    private int stackSize = 1;
+    @Nullable
+    private HnbtEvent peeked;
+    // type and name of the value the last header introduced
+    @Nullable
+    private TagType pendingType;
+    @Nullable
+    private String pendingName;
+    // items are read until the end of input instead of a closing bracket
+    private boolean fragment;
+    // an array is being skipped, so its bracket is open
+    private boolean inArray;
+    private HnbtLimits limits = HnbtLimits.NONE;
+    private long tagCount;
+
+    /**
+     * Creates a reader over UTF-8 encoded HNBT.
+     */
+    public HnbtReader(InputStream source) {
+        this(new InputStreamReader(source, StandardCharsets.UTF_8));
+    }
+
+    public HnbtReader(Reader source) {
+        this(checkNotNull(source), new HnbtScanner(source));
+        this.scanner.setStringTable(new StringTable());
+    }
+
+    HnbtReader(HnbtScanner scanner) {
+        this(null, scanner);
+    }
+
+    private HnbtReader(@Nullable Reader source, HnbtScanner scanner) {
+        this.source = source;
+        this.scanner = scanner;
+        this.stack[0] = DOCUMENT_START;
+    }
+
+    /**
+     * Creates a reader for some of the items of a compound or list, without
+     * the brackets around them. The reader starts inside the container, and
+     * reports its {@link HnbtEvent#END END} at the end of the input.
+     */
+    static HnbtReader forItems(HnbtScanner scanner, boolean inCompound) {
+        HnbtReader reader = new HnbtReader(null, scanner);
+        reader.stack[0] = DOCUMENT_END;
+        reader.push(inCompound ? COMPOUND_FIRST : LIST_FIRST);
+        reader.fragment = true;
+        return reader;
+    }
+
+    /**
+     * Sets the table that names and short string values are deduplicated
+     * with. Readers start with a table of their own, which can be replaced
+     * by one shared between documents, or by {@code null} to turn
+     * deduplication off.
+     */
+    public void setStringTable(@Nullable StringTable strings) {
+        this.scanner.setStringTable(strings);
+    }
+
+    /**
+     * Sets the limits that the document is checked against as it is read.
+     * Readers start with {@link HnbtLimits#NONE}.
+     */
+    public void setLimits(HnbtLimits limits) {
+        this.limits = checkNotNull(limits);
+        this.scanner.setMaxChars(limits.getMaxChars());
+        this.scanner.setMaxStringLength(limits.getMaxStringLength());
+    }
+
+    /**
+     * @return the next event, without consuming it
+     */
+    public HnbtEvent peek() throws IOException, HNBTParsingException {
+        if (this.peeked == null) {
+            this.peeked = doPeek();
+        }
+        return this.peeked;
+    }
+
+    private HnbtEvent doPeek() throws IOException, HNBTParsingException {
+        int top = this.stackSize - 1;
+        switch (this.stack[top]) {
+            case DOCUMENT_START:
+                readRootHeader();
+                this.stack[top] = DOCUMENT_END;
+                return HnbtEvent.BEGIN_COMPOUND;
+            case DOCUMENT_END:
+                this.scanner.skipWhitespace();
+                if (!this.scanner.atEnd()) {
+                    throw this.scanner.unexpected("end of input");
+                }
+                return HnbtEvent.END_DOCUMENT;
+            case COMPOUND_FIRST:
+            case COMPOUND_NEXT:
+                if (!nextItem(this.stack[top] == COMPOUND_FIRST, '}')) {
+                    return HnbtEvent.END;
+                }
+                countTag();
+                readHeader(true);
+                this.stack[top] = COMPOUND_VALUE;
+                return HnbtEvent.NAME;
+            case COMPOUND_VALUE:
+                return HnbtEvent.forValueType(this.pendingType);
+            case LIST_FIRST:
+            case LIST_NEXT:
+                if (!nextItem(this.stack[top] == LIST_FIRST, ']')) {
+                    return HnbtEvent.END;
+                }
+                countTag();
+                checkElements(this.listSizes[top]++, "list");
+                int line = this.scanner.getLine();
+                int column = this.scanner.getColumn();
+                readHeader(false);
+                if (this.stack[top] == LIST_FIRST
+                        || this.listTypes[top] == null) {
+                    this.listTypes[top] = this.pendingType;
+                    this.stack[top] = LIST_NEXT;
+                } else if (this.listTypes[top] != this.pendingType) {
+                    throw HnbtScanner.errorAt(
+                            "Multiple types in list: " + this.listTypes[top]
+                                    + " and " + this.pendingType,
+                            line, column, null);
+                }
+                return HnbtEvent.forValueType(this.pendingType);
+            default:
+                throw new AssertionError("unknown state " + this.stack[top]);
+        }
+    }
+
+    /**
+     * Moves to the next item in a compound or list.
+     *
+     * @return {@code true} if there is another item, {@code false} if the
+     *         closing bracket was consumed instead
+     */
+    private boolean nextItem(boolean first, char close)
+            throws IOException, HNBTParsingException {
+        this.scanner.skipWhitespace();
+        int c = this.scanner.peek();
+        if (c == close) {
+            this.scanner.skip(1);
+            return false;
+        }
+        if (c == -1 && this.fragment && this.stackSize == 2) {
+            return false;
+        }
+        if (!first) {
+            if (c != ',') {
+                throw this.scanner.unexpected("',' or '" + close + "'");
+            }
+            this.scanner.skip(1);
+            this.scanner.skipWhitespace();
+        }
+        return true;
+    }
+
+    private void readRootHeader() throws IOException, HNBTParsingException {
+        this.scanner.skipWhitespace();
+        if (this.scanner.readTagType() != TagType.COMPOUND) {
+            throw this.scanner.error("the root tag must be a compound");
+        }
+        if (!this.scanner.skipWhitespace()) {
+            throw this.scanner.unexpected("whitespace");
+        }
+        this.scanner.expectLiteral("root");
+        this.scanner.skipWhitespace();
+        this.scanner.expect('=');
+        this.scanner.skipWhitespace();
+        this.pendingType = TagType.COMPOUND;
+        this.pendingName = "root";
+    }
+
+    /**
+     * Reads the {@code type [name] =} part of a tag.
+     */
+    private void readHeader(boolean inCompound)
+            throws IOException, HNBTParsingException {
+        TagType type = this.scanner.readTagType();
+        int next = this.scanner.peek();
+        if (next != '=' && !HnbtScanner.isWhitespace(next)) {
+            throw this.scanner.unexpected("whitespace or '='");
+        }
+        this.scanner.skipWhitespace();
+        String name = "";
+        if (inCompound && this.scanner.atNameStart()) {
+            name = this.scanner.readName();
+            this.scanner.skipWhitespace();
+        }
+        this.scanner.expect('=');
+        this.scanner.skipWhitespace();
+        this.pendingType = type;
+        this.pendingName = name;
+    }
+
+    private void countTag() throws HNBTParsingException {
+        if (++this.tagCount > this.limits.getMaxTags()) {
+            throw this.scanner.error("document has more than the limit of "
+                    + this.limits.getMaxTags() + " tags");
+        }
+    }
+
+    /**
+     * Checks that an element can be added to a list or array that has
+     * {@code size} elements.
+     */
+    private void checkElements(int size, String container)
+            throws HNBTParsingException {
+        if (size >= this.limits.getMaxElements()) {
+            throw this.scanner.error(container + " has more than the limit of "
+                    + this.limits.getMaxElements() + " elements");
+        }
+    }
+
+    /**
+     * Checks that a compound or list can be opened at the current depth.
+     */
+    private void checkDepth() throws HNBTParsingException {
+        // the bottom of the stack is the document
+        if (this.stackSize > this.limits.getMaxDepth()) {
+            throw this.scanner.error("nesting is deeper than the limit of "
+                    + this.limits.getMaxDepth());
+        }
+    }
+
+    private void expectEvent(HnbtEvent expected)
+            throws IOException, HNBTParsingException {
+        HnbtEvent event = peek();
+        if (event != expected) {
+            throw new IllegalStateException(
+                    "Expected " + expected + " but was " + event + " at line "
+                            + getLine() + " at pos " + getColumn());
+        }
+        this.peeked = null;
+    }
+
+    private void push(int state) {
+        if (this.stackSize == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.stackSize * 2);
+            this.listTypes =
+                    Arrays.copyOf(this.listTypes, this.stackSize * 2);
+            this.listSizes =
+                    Arrays.copyOf(this.listSizes, this.stackSize * 2);
+        }
+        this.listSizes[this.stackSize] = 0;
+        this.stack[this.stackSize++] = state;
+    }
+
+    private void valueConsumed() {
+        int top = this.stackSize - 1;
+        if (this.stack[top] == COMPOUND_VALUE) {
+            this.stack[top] = COMPOUND_NEXT;
+        }
+    }
+
+    public boolean hasNext() throws IOException, HNBTParsingException {
+        HnbtEvent event = peek();
+        return event != HnbtEvent.END && event != HnbtEvent.END_DOCUMENT;
+    }
+
+    public void beginCompound() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.BEGIN_COMPOUND);
+        checkDepth();
+        this.scanner.expect('{');
+        push(COMPOUND_FIRST);
+    }
+
+    public void beginList() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.BEGIN_LIST);
+        checkDepth();
+        this.scanner.expect('[');
+        push(LIST_FIRST);
+    }
+
+    /**
+     * Consumes the end of the current compound or list.
+     */
+    public void end() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.END);
+        this.stackSize--;
+        valueConsumed();
+    }
+
+    public String nextName() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.NAME);
+        return this.pendingName;
+    }
+
+    public byte nextByte() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.BYTE_VALUE);
+        byte value = readByte();
+        valueConsumed();
+        return value;
+    }
+
+    public short nextShort() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.SHORT_VALUE);
+        short value = (short) this.scanner.readIntegerLiteral("short",
+                Short.MIN_VALUE, Short.MAX_VALUE);
+        valueConsumed();
+        return value;
+    }
+
+    public int nextInt() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.INT_VALUE);
+        int value = readInt();
+        valueConsumed();
+        return value;
+    }
+
+    public long nextLong() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.LONG_VALUE);
+        long value = this.scanner.readIntegerLiteral("long", Long.MIN_VALUE,
+                Long.MAX_VALUE);
+        valueConsumed();
+        return value;
+    }
+
+    public float nextFloat() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.FLOAT_VALUE);
+        float value = this.scanner.readFloatLiteral();
+        valueConsumed();
+        return value;
+    }
+
+    public double nextDouble() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.DOUBLE_VALUE);
+        double value = this.scanner.readDoubleLiteral();
+        valueConsumed();
+        return value;
+    }
+
+    public String nextString() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.STRING_VALUE);
+        String value = this.scanner.readStringLiteral();
+        valueConsumed();
+        return value;
+    }
+
+    public byte[] nextByteArray() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.BYTE_ARRAY_VALUE);
+        ByteList bytes = new ByteList();
+        this.scanner.expect('[');
+        int size = 0;
+        while (nextItem(size == 0, ']')) {
+            checkElements(size++, "byte array");
+            bytes.add(readByte());
+        }
+        valueConsumed();
+        return bytes.toArray();
+    }
+
+    public int[] nextIntArray() throws IOException, HNBTParsingException {
+        expectEvent(HnbtEvent.INT_ARRAY_VALUE);
+        int[] ints = new int[8];
+        int size = 0;
+        this.scanner.expect('[');
+        while (nextItem(size == 0, ']')) {
+            checkElements(size, "int array");
+            if (size == ints.length) {
+                ints = Arrays.copyOf(ints, size * 2);
+            }
+            ints[size++] = readInt();
+        }
+        valueConsumed();
+        return Arrays.copyOf(ints, size);
+    }
+
+    private byte readByte() throws IOException, HNBTParsingException {
+        return (byte) this.scanner.readIntegerLiteral("byte", Byte.MIN_VALUE,
+                Byte.MAX_VALUE);
+    }
+
+    private int readInt() throws IOException, HNBTParsingException {
+        return (int) this.scanner.readIntegerLiteral("int", Integer.MIN_VALUE,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Skips the next value, including all of its children. If the next event
+     * is a {@link HnbtEvent#NAME NAME}, the name and its value are skipped.
+     * The skipped input is still checked for syntax errors.
+     */
+    public void skipValue() throws IOException, HNBTParsingException {
+        if (peek() == HnbtEvent.NAME) {
+            nextName();
+        }
+        int depth = 0;
+        do {
+            HnbtEvent event = peek();
+            switch (event) {
+                case BEGIN_COMPOUND:
+                    beginCompound();
+                    depth++;
+                    break;
+                case BEGIN_LIST:
+                    beginList();
+                    depth++;
+                    break;
+                case END:
+                    if (depth == 0) {
+                        throw new IllegalStateException("No value to skip");
+                    }
+                    end();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case STRING_VALUE:
+                    this.peeked = null;
+                    this.scanner.skipStringLiteral();
+                    valueConsumed();
+                    break;
+                case BYTE_VALUE:
+                    nextByte();
+                    break;
+                case SHORT_VALUE:
+                    nextShort();
+                    break;
+                case INT_VALUE:
+                    nextInt();
+                    break;
+                case LONG_VALUE:
+                    nextLong();
+                    break;
+                case FLOAT_VALUE:
+                    nextFloat();
+                    break;
+                case DOUBLE_VALUE:
+                    nextDouble();
+                    break;
+                case BYTE_ARRAY_VALUE:
+                    skipArray(true);
+                    break;
+                case INT_ARRAY_VALUE:
+                    skipArray(false);
+                    break;
+                default:
+                    throw new IllegalStateException("No value to skip");
+            }
+        } while (depth > 0);
+    }
+
+    private void skipArray(boolean bytes)
+            throws IOException, HNBTParsingException {
+        this.peeked = null;
+        this.scanner.expect('[');
+        this.inArray = true;
+        int size = 0;
+        while (nextItem(size == 0, ']')) {
+            checkElements(size++, bytes ? "byte array" : "int array");
+            if (bytes) {
+                readByte();
+            } else {
+                readInt();
+            }
+        }
+        this.inArray = false;
+        valueConsumed();
+    }
+
+    /**
+     * Recovers from an error thrown by this reader, by skipping the rest of
+     * the compound entry or list element it was thrown in. Reading goes on
+     * with the next item of the innermost compound or list. A closing
+     * bracket of the wrong kind is taken as the end of that compound or list.
+     *
+     * @return {@code false} if reading can not go on, because the error was
+     *         in the header of the root tag or after it, or the input ended
+     */
+    boolean recover() throws IOException {
+        this.peeked = null;
+        int top = this.stackSize - 1;
+        int state = this.stack[top];
+        if (state == DOCUMENT_START || state == DOCUMENT_END) {
+            return false;
+        }
+        int c = this.scanner.skipToItemEnd(this.inArray ? 1 : 0);
+        this.inArray = false;
+        if (c == -1) {
+            return false;
+        }
+        boolean inCompound = state == COMPOUND_FIRST || state == COMPOUND_NEXT
+                || state == COMPOUND_VALUE;
+        if (c == (inCompound ? ']' : '}')) {
+            this.scanner.skip(1);
+            this.stackSize--;
+            valueConsumed();
+        } else if (inCompound) {
+            this.stack[top] = COMPOUND_NEXT;
+        } else {
+            if (state == LIST_FIRST) {
+                // the element type is taken from the next good element
+                this.listTypes[top] = null;
+            }
+            this.stack[top] = LIST_NEXT;
+        }
+        return true;
+    }
+
+    /**
+     * @return the offset of the reader's position in the input
+     */
+    long getOffset() {
+        return this.scanner.getOffset();
+    }
+
+    /**
+     * @return the line of the reader's position in the input, starting at 1
+     */
+    public int getLine() {
+        return this.scanner.getLine();
+    }
+
+    /**
+     * @return the column of the reader's position in the input, starting at 0
+     */
+    public int getColumn() {
+        return this.scanner.getColumn();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.source != null) {
+            this.source.close();
+        }
+    }
+
+}
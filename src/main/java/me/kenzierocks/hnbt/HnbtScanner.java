@@ -0,0 +1,516 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import me.kenzierocks.hnbt.util.NumberParsing;
+import me.kenzierocks.hnbt.util.StringTable;
+import me.kenzierocks.hnbt.util.StringUtil;
+import me.kenzierocks.hnbt.util.TagNames;
+
+/**
+ * Character source for the hand-written HNBT parser. It reads the input once,
+ * through a buffer that only grows when a single token does not fit in it.
+ * Tokens are always contiguous in the buffer while they are being scanned.
+ *
+ * <p>
+ * The token rules mirror {@code HNBTLexer.g4}.
+ * </p>
+ */
+final class HnbtScanner {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+
+    @Nullable
+    private final Reader source;
+    private char[] buffer;
+    private int pos;
+    private int limit;
+    // absolute offset of buffer[0] in the input
+    private long bufferOffset;
+    private int line = 1;
+    // absolute offset of the first character of the current line
+    private long lineStart;
+    // names and string values are looked up here, if set
+    @Nullable
+    private StringTable strings;
+    private long maxChars = Long.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    // input past maxChars was cut off
+    private boolean truncated;
+
+    HnbtScanner(Reader source) {
+        this.source = checkNotNull(source);
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    HnbtScanner(char[] data, int start, int end) {
+        this(data, start, end, 1, start);
+    }
+
+    /**
+     * Creates a scanner for part of a document, where {@code start} is on the
+     * given line, and {@code lineStart} is the offset of that line.
+     */
+    HnbtScanner(char[] data, int start, int end, int line, int lineStart) {
+        this.source = null;
+        this.buffer = checkNotNull(data);
+        this.pos = start;
+        this.limit = end;
+        this.line = line;
+        this.lineStart = lineStart;
+    }
+
+    void setStringTable(@Nullable StringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Treats the input as ending after {@code maxChars} characters. Reading
+     * past that point fails with an error that says the limit was exceeded.
+     */
+    void setMaxChars(long maxChars) {
+        this.maxChars = maxChars;
+        truncate();
+    }
+
+    void setMaxStringLength(int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+    }
+
+    private void truncate() {
+        long excess = this.bufferOffset + this.limit - this.maxChars;
+        if (excess > 0) {
+            this.limit -= (int) excess;
+            this.truncated = true;
+        }
+    }
+
+    /**
+     * Creates a scanner for all of {@code data}, with a string table of its
+     * own.
+     */
+    static HnbtScanner forDocument(char[] data) {
+        HnbtScanner scanner = new HnbtScanner(data, 0, data.length);
+        scanner.setStringTable(new StringTable());
+        return scanner;
+    }
+
+    /**
+     * Ensures that at least {@code minimum} characters are available starting
+     * at {@link #pos}. This may move the buffer contents, so offsets into the
+     * buffer must be kept relative to {@link #pos} across calls.
+     *
+     * @return {@code false} if the input ended first
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (this.limit - this.pos >= minimum) {
+            return true;
+        }
+        if (this.source == null || this.truncated) {
+            return false;
+        }
+        if (this.pos > 0) {
+            System.arraycopy(this.buffer, this.pos, this.buffer, 0,
+                    this.limit - this.pos);
+            this.bufferOffset += this.pos;
+            this.limit -= this.pos;
+            this.pos = 0;
+        }
+        if (minimum > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer,
+                    Math.max(minimum, this.buffer.length * 2));
+        }
+        while (this.limit < minimum) {
+            int read = this.source.read(this.buffer, this.limit,
+                    this.buffer.length - this.limit);
+            if (read == -1) {
+                return false;
+            }
+            this.limit += read;
+            truncate();
+            if (this.truncated) {
+                return this.limit - this.pos >= minimum;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the character at {@code offset} past the current position, or
+     *         {@code -1} if the input ends before it
+     */
+    int peek(int offset) throws IOException {
+        if (!fill(offset + 1)) {
+            return -1;
+        }
+        return this.buffer[this.pos + offset];
+    }
+
+    int peek() throws IOException {
+        return peek(0);
+    }
+
+    void skip(int count) {
+        this.pos += count;
+    }
+
+    /**
+     * @return {@code true} if any whitespace was skipped
+     */
+    boolean skipWhitespace() throws IOException {
+        boolean skipped = false;
+        while (this.pos < this.limit || fill(1)) {
+            char c = this.buffer[this.pos];
+            if (!isWhitespace(c)) {
+                break;
+            }
+            this.pos++;
+            if (c == '\n') {
+                this.line++;
+                this.lineStart = this.bufferOffset + this.pos;
+            }
+            skipped = true;
+        }
+        return skipped;
+    }
+
+    void expect(char expected) throws IOException, HNBTParsingException {
+        int c = peek();
+        if (c != expected) {
+            throw unexpected("'" + expected + "'");
+        }
+        this.pos++;
+    }
+
+    /**
+     * Reads a {@code TagType}, or the root {@code CompoundTagType}. Like the
+     * lexer, this picks the longest matching keyword.
+     */
+    TagType readTagType() throws IOException, HNBTParsingException {
+        int length = 0;
+        while (true) {
+            int c = peek(length);
+            if (!(('a' <= c && c <= 'z') || c == '-')) {
+                break;
+            }
+            length++;
+        }
+        TagType match = null;
+        int matchLength = 0;
+        for (TagType type : TagType.values()) {
+            String keyword = type.getHnbtName();
+            if (keyword != null && keyword.length() > matchLength
+                    && keyword.length() <= length && regionMatches(keyword)) {
+                match = type;
+                matchLength = keyword.length();
+            }
+        }
+        if (match == null) {
+            throw unexpected("a tag type");
+        }
+        this.pos += matchLength;
+        return match;
+    }
+
+    void expectLiteral(String literal)
+            throws IOException, HNBTParsingException {
+        if (!fill(literal.length()) || !regionMatches(literal)) {
+            throw unexpected("'" + literal + "'");
+        }
+        this.pos += literal.length();
+    }
+
+    private boolean regionMatches(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (this.buffer[this.pos + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean atNameStart() throws IOException {
+        return TagNames.isNameStartChar(peek());
+    }
+
+    String readName() throws IOException, HNBTParsingException {
+        if (!atNameStart()) {
+            throw unexpected("a tag name");
+        }
+        int length = 1;
+        while (TagNames.isNameChar(peek(length))) {
+            length++;
+        }
+        if (this.strings != null) {
+            String name = this.strings.intern(this.buffer, this.pos, length);
+            this.pos += length;
+            return name;
+        }
+        return take(length);
+    }
+
+    /**
+     * Reads an {@code INTLIKEVAL}, and rejects anything that would lex as a
+     * {@code FLOATLIKEVAL} instead. The value is parsed straight from the
+     * buffer.
+     *
+     * @param type
+     *            the name of the type, for the out of range error
+     */
+    long readIntegerLiteral(String type, long min, long max)
+            throws IOException, HNBTParsingException {
+        int length = peek() == '-' ? 1 : 0;
+        int digits = countDigits(length);
+        if (digits == 0 || peek(length + digits) == '.') {
+            throw unexpected("an integer");
+        }
+        length += digits;
+        long value;
+        try {
+            value = NumberParsing.parseLong(this.buffer, this.pos,
+                    this.pos + length, min, max);
+        } catch (NumberFormatException e) {
+            throw error(type + " out of range: "
+                    + new String(this.buffer, this.pos, length), e);
+        }
+        this.pos += length;
+        return value;
+    }
+
+    double readDoubleLiteral() throws IOException, HNBTParsingException {
+        int length = scanDecimalLiteral();
+        double value = NumberParsing.parseDouble(this.buffer, this.pos,
+                this.pos + length);
+        this.pos += length;
+        return value;
+    }
+
+    float readFloatLiteral() throws IOException, HNBTParsingException {
+        int length = scanDecimalLiteral();
+        float value = NumberParsing.parseFloat(this.buffer, this.pos,
+                this.pos + length);
+        this.pos += length;
+        return value;
+    }
+
+    /**
+     * Finds the length of the {@code FLOATLIKEVAL} at the current position.
+     * Integers lex as {@code INTLIKEVAL}, so a decimal point is required.
+     */
+    private int scanDecimalLiteral()
+            throws IOException, HNBTParsingException {
+        boolean negative = peek() == '-';
+        int length = negative ? 1 : 0;
+        int intDigits = countDigits(length);
+        length += intDigits;
+        int fractionDigits =
+                peek(length) == '.' ? countDigits(length + 1) : 0;
+        if (fractionDigits == 0 || (negative && intDigits == 0)) {
+            throw unexpected("a decimal number");
+        }
+        return length + 1 + fractionDigits;
+    }
+
+    private int countDigits(int offset) throws IOException {
+        int count = 0;
+        while (true) {
+            int c = peek(offset + count);
+            if (c < '0' || '9' < c) {
+                return count;
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Reads a {@code STRING_ONELINE}, returning its unescaped contents. The
+     * contents are unescaped straight from the buffer.
+     */
+    String readStringLiteral() throws IOException, HNBTParsingException {
+        int end = scanStringLiteral();
+        String value;
+        try {
+            value = this.strings == null
+                    ? StringUtil.unescapeString(this.buffer, this.pos + 1,
+                            this.pos + end)
+                    : StringUtil.unescapeString(this.buffer, this.pos + 1,
+                            this.pos + end, this.strings);
+        } catch (IllegalArgumentException e) {
+            throw error("invalid string", e);
+        }
+        consumeStringLiteral(end);
+        return value;
+    }
+
+    void skipStringLiteral() throws IOException, HNBTParsingException {
+        consumeStringLiteral(scanStringLiteral());
+    }
+
+    /**
+     * Finds the end of the {@code STRING_ONELINE} at the current position.
+     * Like the lexer, the literal ends at the first quote that is not preceded
+     * by a backslash, or at the last escaped quote if the input ends before
+     * that.
+     *
+     * @return the offset of the closing quote
+     */
+    private int scanStringLiteral() throws IOException, HNBTParsingException {
+        if (peek() != '"') {
+            throw unexpected("a string");
+        }
+        int lastEscapedQuote = -1;
+        for (int i = 1;; i++) {
+            if (i - 1 > this.maxStringLength) {
+                throw error("string is longer than the limit of "
+                        + this.maxStringLength + " characters");
+            }
+            int c = peek(i);
+            if (c == -1) {
+                if (this.truncated) {
+                    throw charLimitError();
+                }
+                if (lastEscapedQuote == -1) {
+                    throw error("unterminated string");
+                }
+                return lastEscapedQuote;
+            }
+            if (c == '"') {
+                if (i > 1 && this.buffer[this.pos + i - 1] == '\\') {
+                    lastEscapedQuote = i;
+                } else {
+                    return i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips to the next {@code ','} or closing bracket that is not inside a
+     * string or a bracket opened after the current position, without
+     * consuming it. The first {@code depth} closing brackets are skipped too,
+     * as if their opening brackets had been read.
+     *
+     * @return the character that was found, or {@code -1} if the input ended
+     *         first
+     */
+    int skipToItemEnd(int depth) throws IOException {
+        while (true) {
+            int c = peek();
+            switch (c) {
+                case -1:
+                    return -1;
+                case '"':
+                    try {
+                        consumeStringLiteral(scanStringLiteral());
+                    } catch (HNBTParsingException e) {
+                        return -1;
+                    }
+                    continue;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        return c;
+                    }
+                    depth--;
+                    break;
+                case ',':
+                    if (depth == 0) {
+                        return c;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            this.pos++;
+            if (c == '\n') {
+                this.line++;
+                this.lineStart = this.bufferOffset + this.pos;
+            }
+        }
+    }
+
+    private void consumeStringLiteral(int end) {
+        for (int i = 1; i < end; i++) {
+            if (this.buffer[this.pos + i] == '\n') {
+                this.line++;
+                this.lineStart = this.bufferOffset + this.pos + i + 1;
+            }
+        }
+        this.pos += end + 1;
+    }
+
+    private String take(int length) {
+        String text = new String(this.buffer, this.pos, length);
+        this.pos += length;
+        return text;
+    }
+
+    /**
+     * @return {@code true} if the input ended, and was not cut off by the
+     *         character limit
+     */
+    boolean atEnd() throws IOException {
+        return peek() == -1 && !this.truncated;
+    }
+
+    /**
+     * @return the offset of the current position in the input
+     */
+    long getOffset() {
+        return this.bufferOffset + this.pos;
+    }
+
+    int getLine() {
+        return this.line;
+    }
+
+    int getColumn() {
+        return (int) (this.bufferOffset + this.pos - this.lineStart);
+    }
+
+    HNBTParsingException unexpected(String expected) throws IOException {
+        int c = peek();
+        if (c == -1 && this.truncated) {
+            return charLimitError();
+        }
+        String found = c == -1 ? "end of input" : "'" + (char) c + "'";
+        return error("expected " + expected + " but found " + found);
+    }
+
+    private HNBTParsingException charLimitError() {
+        // like the up-front checks, which do not know where the limit is
+        return new HNBTParsingException("input is longer than the limit of "
+                + this.maxChars + " characters");
+    }
+
+    HNBTParsingException error(String message) {
+        return error(message, null);
+    }
+
+    HNBTParsingException error(String message, @Nullable Throwable cause) {
+        return errorAt(message, getLine(), getColumn(), cause);
+    }
+
+    static HNBTParsingException errorAt(String message, int line,
+            int column, @Nullable Throwable cause) {
+        return new HNBTParsingException(
+                String.format("%s, occured at line %s at pos %s", message,
+                        line, column),
+                line, column, cause);
+    }
+
+}
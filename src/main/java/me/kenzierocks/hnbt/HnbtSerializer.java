@@ -4,16 +4,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map.Entry;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.Token;
 import org.jnbt.ByteArrayTag;
 import org.jnbt.ByteTag;
 import org.jnbt.CompoundTag;
@@ -27,92 +24,182 @@ import org.jnbt.ShortTag;
 import org.jnbt.StringTag;
 import org.jnbt.Tag;
 
-import com.google.common.base.Strings;
-
-import me.kenzierocks.hnbt.grammar.HNBTLexer;
-import me.kenzierocks.hnbt.util.IndentAddingAppendable;
+import me.kenzierocks.hnbt.util.IndentedOutput;
 import me.kenzierocks.hnbt.util.StringUtil;
+import me.kenzierocks.hnbt.util.TagNames;
 
 final class HnbtSerializer {
 
-    private static final String FOUR_SPACES = Strings.repeat(" ", 4).intern();
+    /**
+     * A compound or list that is being written.
+     */
+    private static final class Frame {
+
+        final Tag tag;
+        final Iterator<?> elements;
+        int count;
 
-    private final Appendable target;
-    private final String indentString = FOUR_SPACES; // TODO: configurable
-    private transient HnbtSerializer indented;
+        Frame(Tag tag) {
+            this.tag = tag;
+            this.elements = tag instanceof CompoundTag
+                    ? ((CompoundTag) tag).getValue().entrySet().iterator()
+                    : ((ListTag) tag).getValue().iterator();
+        }
+
+    }
+
+    private final IndentedOutput out;
+    private final int depth;
+    private int maxDepth = Integer.MAX_VALUE;
 
     HnbtSerializer(Appendable target) {
-        this.target = checkNotNull(target);
+        this(target, IndentedOutput.DEFAULT_INDENT);
     }
 
-    private HnbtSerializer getIndentedSerializer() {
-        if (this.indented == null) {
-            this.indented = new HnbtSerializer(
-                    new IndentAddingAppendable(this.indentString, this.target));
-        }
-        return this.indented;
+    HnbtSerializer(Appendable target, String indent) {
+        this(target, indent, 0);
+    }
+
+    /**
+     * Creates a serializer for a tag that is nested {@code depth} levels deep
+     * in the document.
+     */
+    HnbtSerializer(Appendable target, String indent, int depth) {
+        this.out = new IndentedOutput(target, indent, depth);
+        this.depth = depth;
+    }
+
+    /**
+     * Limits how deeply compounds and lists may be nested, counting the
+     * levels above the tag this serializer was created for. The root
+     * compound is at depth one.
+     */
+    void setMaxDepth(int maxDepth) {
+        checkArgument(maxDepth > 0, "maxDepth must be positive");
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Writes any buffered output to the target.
+     */
+    void flushBuffer() throws IOException {
+        this.out.flushBuffer();
     }
 
     private void writePreTag(String type, @Nullable String name)
             throws IOException {
-        this.target.append(type);
+        this.out.append(type);
         if (name != null) {
-            ANTLRInputStream data = new ANTLRInputStream(name);
-            HNBTLexer lexer = new HNBTLexer(data);
-            // Push into NAME so it pulls out tag names
-            lexer.mode(HNBTLexer.NAME);
-            List<? extends Token> allTokens = lexer.getAllTokens();
-            checkArgument(!allTokens.isEmpty(), "name is invalid: %s", name);
-            checkArgument(allTokens.get(0).getType() == HNBTLexer.TagName,
-                    "name is invalid: %s", name);
-            this.target.append(' ').append(name);
+            TagNames.checkTagName(name);
+            this.out.append(' ').append(name);
+        }
+        this.out.append(" = ");
+    }
+
+    private void beginElements(char open) throws IOException {
+        this.out.append(open);
+        this.out.indent();
+    }
+
+    /**
+     * Starts the line for an element of a list or array.
+     */
+    void beginElement(int index) throws IOException {
+        if (index > 0) {
+            this.out.append(',');
+        }
+        this.out.newline();
+    }
+
+    private void endElements(int count, char close) throws IOException {
+        this.out.dedent();
+        if (count > 0) {
+            this.out.newline();
+        }
+        this.out.append(close);
+    }
+
+    /**
+     * Writes everything before the first element of a compound or list.
+     */
+    void beginContainer(Tag tag, @Nullable String name) throws IOException {
+        if (tag instanceof CompoundTag) {
+            writePreTag("compound", name);
+            beginElements('{');
+        } else if (tag instanceof ListTag) {
+            writePreTag("list", name);
+            beginElements('[');
+        } else {
+            throw new IllegalArgumentException("not a container: " + tag);
         }
-        this.target.append(" = ");
-    }
-
-    private void writeSimpleTag(String type, Object value,
-            @Nullable String name) throws IOException {
-        checkNotNull(type);
-        checkNotNull(value);
-        writePreTag(type, name);
-        this.target.append(value.toString());
-    }
-
-    private void writeListLikeTag(String type, Stream<? extends Object> values,
-            @Nullable String name) throws IOException {
-        checkNotNull(type);
-        checkNotNull(values);
-        writePreTag(type, name);
-        this.target.append('[');
-        HnbtSerializer subserializer = getIndentedSerializer();
-        Iterator<? extends Object> iter = values.iterator();
-        if (iter.hasNext()) {
-            subserializer.target.append('\n');
+    }
+
+    /**
+     * Writes everything after the last element of a compound or list.
+     */
+    void endContainer(Tag tag, int count) throws IOException {
+        endElements(count, tag instanceof CompoundTag ? '}' : ']');
+    }
+
+    void writeAnyTag(Tag tag, @Nullable String name) throws IOException {
+        checkNotNull(tag);
+        if (tag instanceof CompoundTag || tag instanceof ListTag) {
+            writeContainer(tag, name);
+        } else {
+            writeValueTag(tag, name);
         }
-        while (iter.hasNext()) {
-            Object obj = iter.next();
-            checkNotNull(obj);
+    }
 
-            if (obj instanceof Tag) {
-                subserializer.writeAnyTag((Tag) obj, null);
+    /**
+     * Writes a compound or list with a stack of the containers that are open,
+     * so the depth is not limited by the thread's stack.
+     */
+    private void writeContainer(Tag tag, @Nullable String name)
+            throws IOException {
+        Deque<Frame> open = new ArrayDeque<>();
+        open.push(beginFrame(tag, name, 0));
+        while (!open.isEmpty()) {
+            Frame frame = open.peek();
+            if (!frame.elements.hasNext()) {
+                endContainer(frame.tag, frame.count);
+                open.pop();
+                continue;
+            }
+            Object next = frame.elements.next();
+            Tag element;
+            String elementName;
+            if (next instanceof Entry) {
+                Entry<?, ?> entry = (Entry<?, ?>) next;
+                element = (Tag) entry.getValue();
+                elementName = (String) entry.getKey();
             } else {
-                subserializer.target.append(obj.toString());
+                element = (Tag) next;
+                elementName = null;
             }
-            if (iter.hasNext()) {
-                subserializer.target.append(',');
+            checkNotNull(element);
+            beginElement(frame.count++);
+            if (element instanceof CompoundTag
+                    || element instanceof ListTag) {
+                open.push(beginFrame(element, elementName, open.size()));
+            } else {
+                writeValueTag(element, elementName);
             }
-            subserializer.target.append('\n');
         }
-        this.target.append(']');
     }
 
-    void writeAnyTag(Tag tag, @Nullable String name) throws IOException {
-        checkNotNull(tag);
-        if (tag instanceof CompoundTag) {
-            writeCompoundTag((CompoundTag) tag, name);
-        } else if (tag instanceof ListTag) {
-            writeListTag((ListTag) tag, name);
-        } else if (tag instanceof ByteTag) {
+    private Frame beginFrame(Tag tag, @Nullable String name, int openCount)
+            throws IOException {
+        if (this.depth + openCount >= this.maxDepth) {
+            throw new IllegalArgumentException(
+                    "tag is nested deeper than the limit of " + this.maxDepth);
+        }
+        beginContainer(tag, name);
+        return new Frame(tag);
+    }
+
+    private void writeValueTag(Tag tag, @Nullable String name)
+            throws IOException {
+        if (tag instanceof ByteTag) {
             writeByteTag((ByteTag) tag, name);
         } else if (tag instanceof ByteArrayTag) {
             writeByteArrayTag((ByteArrayTag) tag, name);
@@ -139,81 +226,82 @@ final class HnbtSerializer {
     void writeCompoundTag(CompoundTag nbt, @Nullable String name)
             throws IOException {
         checkNotNull(nbt);
-        writePreTag("compound", name);
-        this.target.append('{');
-        HnbtSerializer subserializer = getIndentedSerializer();
-        if (!nbt.getValue().isEmpty()) {
-            subserializer.target.append('\n');
-        }
-        for (Iterator<Entry<String, Tag>> iter =
-                nbt.getValue().entrySet().iterator(); iter.hasNext();) {
-            Entry<String, Tag> tagEntry = iter.next();
-
-            subserializer.writeAnyTag(tagEntry.getValue(), tagEntry.getKey());
-            if (iter.hasNext()) {
-                subserializer.target.append(',');
-            }
-            subserializer.target.append('\n');
-        }
-        this.target.append('}');
+        writeContainer(nbt, name);
     }
 
     void writeListTag(ListTag nbt, @Nullable String name) throws IOException {
         checkNotNull(nbt);
-        writeListLikeTag("list", nbt.getValue().stream(), name);
+        writeContainer(nbt, name);
     }
 
     void writeByteTag(ByteTag nbt, @Nullable String name) throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("byte", nbt.getValue(), name);
+        writePreTag("byte", name);
+        this.out.appendInt(nbt.getValue());
     }
 
     void writeByteArrayTag(ByteArrayTag nbt, @Nullable String name)
             throws IOException {
         checkNotNull(nbt);
+        writePreTag("byte-array", name);
         byte[] val = nbt.getValue();
-        writeListLikeTag("byte-array",
-                IntStream.range(0, val.length).mapToObj(x -> val[x]), name);
+        beginElements('[');
+        for (int i = 0; i < val.length; i++) {
+            beginElement(i);
+            this.out.appendInt(val[i]);
+        }
+        endElements(val.length, ']');
     }
 
     void writeShortTag(ShortTag nbt, @Nullable String name) throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("short", nbt.getValue(), name);
+        writePreTag("short", name);
+        this.out.appendInt(nbt.getValue());
     }
 
     void writeIntTag(IntTag nbt, @Nullable String name) throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("int", nbt.getValue(), name);
+        writePreTag("int", name);
+        this.out.appendInt(nbt.getValue());
     }
 
     void writeIntArrayTag(IntArrayTag nbt, @Nullable String name)
             throws IOException {
         checkNotNull(nbt);
-        writeListLikeTag("int-array", IntStream.of(nbt.getValue()).boxed(),
-                name);
+        writePreTag("int-array", name);
+        int[] val = nbt.getValue();
+        beginElements('[');
+        for (int i = 0; i < val.length; i++) {
+            beginElement(i);
+            this.out.appendInt(val[i]);
+        }
+        endElements(val.length, ']');
     }
 
     void writeLongTag(LongTag nbt, @Nullable String name) throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("long", nbt.getValue(), name);
+        writePreTag("long", name);
+        this.out.appendLong(nbt.getValue());
     }
 
     void writeFloatTag(FloatTag nbt, @Nullable String name) throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("float", nbt.getValue(), name);
+        writePreTag("float", name);
+        this.out.appendFloat(nbt.getValue());
     }
 
     void writeDoubleTag(DoubleTag nbt, @Nullable String name)
             throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("double", nbt.getValue(), name);
+        writePreTag("double", name);
+        this.out.appendDouble(nbt.getValue());
     }
 
     void writeStringTag(StringTag nbt, @Nullable String name)
             throws IOException {
         checkNotNull(nbt);
-        writeSimpleTag("string", StringUtil.escapedString(nbt.getValue()),
-                name);
+        writePreTag("string", name);
+        StringUtil.appendEscapedString(nbt.getValue(), this.out);
     }
 
 }
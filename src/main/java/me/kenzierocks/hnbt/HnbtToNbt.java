@@ -1,84 +1,146 @@
 package me.kenzierocks.hnbt;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.atn.PredictionMode;
-import org.antlr.v4.runtime.tree.ErrorNode;
 import org.jnbt.CompoundTag;
 
-import me.kenzierocks.hnbt.grammar.HNBTLexer;
-import me.kenzierocks.hnbt.grammar.HNBTParser;
-import me.kenzierocks.hnbt.grammar.HNBTParserBaseListener;
-import me.kenzierocks.hnbt.util.CaptureErrorsListenener;
+import me.kenzierocks.hnbt.util.ArrayCharStream;
+import me.kenzierocks.hnbt.util.MappedFileReader;
+import me.kenzierocks.hnbt.util.NonClosingInputStream;
 
 public final class HnbtToNbt {
 
     public static CompoundTag parseHnbtIntoNbt(String hnbt)
             throws HNBTParsingException {
-        return parseHnbtIntoNbt(new ANTLRInputStream(hnbt));
+        return parseHnbtIntoNbt(new ArrayCharStream(hnbt));
     }
 
+    /**
+     * Parses UTF-8 encoded HNBT, which may be gzip or zlib compressed.
+     */
     public static CompoundTag parseHnbtIntoNbt(InputStream hnbt)
             throws IOException, HNBTParsingException {
-        return parseHnbtIntoNbt(new ANTLRInputStream(hnbt));
+        try (InputStream in = Compression
+                .decompressDetected(new NonClosingInputStream(hnbt))) {
+            return parseHnbtIntoNbt(new ArrayCharStream(in));
+        }
     }
 
     public static CompoundTag parseHnbtIntoNbt(Reader hnbt)
             throws IOException, HNBTParsingException {
-        return parseHnbtIntoNbt(new ANTLRInputStream(hnbt));
+        return parseHnbtIntoNbt(new ArrayCharStream(hnbt));
+    }
+
+    /**
+     * Parses a UTF-8 encoded HNBT file. The file is memory-mapped and decoded
+     * as it is parsed, using the hand-written parser, so it is never held in
+     * memory as a whole. Compressed files are streamed through a decompressor
+     * instead.
+     *
+     * @see #parseHnbtIntoNbtDirect(Reader)
+     */
+    public static CompoundTag parseHnbtIntoNbt(Path hnbt)
+            throws IOException, HNBTParsingException {
+        try (InputStream in = new BufferedInputStream(
+                Files.newInputStream(hnbt), 2)) {
+            Compression compression = Compression.detect(in);
+            if (compression != Compression.NONE) {
+                try (InputStream decompressed = compression.decompress(in)) {
+                    return parseHnbtIntoNbtDirect(decompressed);
+                }
+            }
+        }
+        try (Reader reader = new MappedFileReader(hnbt)) {
+            return parseHnbtIntoNbtDirect(reader);
+        }
     }
 
     public static CompoundTag parseHnbtIntoNbt(ANTLRInputStream hnbt)
             throws HNBTParsingException {
-        HNBTLexer lexer = new HNBTLexer(hnbt);
-        lexer.removeErrorListeners();
-        CaptureErrorsListenener cap = new CaptureErrorsListenener();
-        lexer.addErrorListener(cap);
-        CommonTokenStream comTokStream = new CommonTokenStream(lexer);
-        HNBTParser parser = new HNBTParser(comTokStream);
-        parser.removeErrorListeners();
-        parser.addErrorListener(cap);
-        List<HNBTParsingException> errorNodeErrors = new ArrayList<>(1);
-        parser.addParseListener(new HNBTParserBaseListener() {
-
-            @Override
-            public void visitErrorNode(ErrorNode node) {
-                errorNodeErrors.add(new HNBTParsingException(
-                        "Error node " + node.toStringTree(parser) + "@"
-                                + node.getSymbol().getLine() + ":"
-                                + node.getSymbol().getCharPositionInLine()));
-            }
-        });
-        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
-        CompoundTag tag = null;
+        return new AntlrHnbtParser().parse(hnbt);
+    }
+
+    /**
+     * Parses HNBT with the hand-written parser instead of ANTLR. It reads the
+     * input in a single pass and builds the tags as it goes.
+     */
+    public static CompoundTag parseHnbtIntoNbtDirect(String hnbt)
+            throws HNBTParsingException {
+        char[] data = hnbt.toCharArray();
         try {
-            tag = parser.root().rootTag;
-        } catch (Exception e) {
-            comTokStream.reset();
-            parser.reset();
-            errorNodeErrors.clear();
-            cap.clearErrors();
-            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
-            tag = parser.root().rootTag;
+            return new DirectHnbtParser(
+                    new HnbtReader(HnbtScanner.forDocument(data)))
+                            .parseRoot();
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
         }
-        List<Exception> errors = Stream
-                .concat(cap.getErrors().stream(), errorNodeErrors.stream())
-                .collect(Collectors.toList());
-        if (!errors.isEmpty()) {
-            HNBTParsingException ex =
-                    new HNBTParsingException("Lexer errors occured");
-            errors.forEach(ex::addSuppressed);
-            throw ex;
+    }
+
+    /**
+     * Parses UTF-8 encoded HNBT with the hand-written parser. Gzip and zlib
+     * compressed input is decompressed as it is parsed.
+     *
+     * @see #parseHnbtIntoNbtDirect(String)
+     */
+    public static CompoundTag parseHnbtIntoNbtDirect(InputStream hnbt)
+            throws IOException, HNBTParsingException {
+        try (InputStream in = Compression
+                .decompressDetected(new NonClosingInputStream(hnbt))) {
+            return new DirectHnbtParser(new HnbtReader(in)).parseRoot();
         }
-        return tag;
+    }
+
+    /**
+     * @see #parseHnbtIntoNbtDirect(String)
+     */
+    public static CompoundTag parseHnbtIntoNbtDirect(Reader hnbt)
+            throws IOException, HNBTParsingException {
+        return new DirectHnbtParser(new HnbtReader(hnbt)).parseRoot();
+    }
+
+    /**
+     * Parses HNBT with the hand-written parser, splitting large compounds and
+     * lists across the {@link ForkJoinPool#commonPool() common pool}. The
+     * result and any errors are the same as
+     * {@link #parseHnbtIntoNbtDirect(String)}.
+     */
+    public static CompoundTag parseHnbtIntoNbtParallel(String hnbt)
+            throws HNBTParsingException {
+        return parseHnbtIntoNbtParallel(hnbt, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @see #parseHnbtIntoNbtParallel(String)
+     */
+    public static CompoundTag parseHnbtIntoNbtParallel(String hnbt,
+            ForkJoinPool pool) throws HNBTParsingException {
+        return new ParallelHnbtParser(hnbt.toCharArray(),
+                ParallelHnbtParser.DEFAULT_SLICE_SIZE).parseRoot(pool);
+    }
+
+    /**
+     * Parses HNBT into a compound whose entries are parsed when they are first
+     * read, so that only the parts of a large document that are used cost
+     * time and memory. Reading every entry, for example by iterating or
+     * comparing the compounds, gives the same tree as
+     * {@link #parseHnbtIntoNbtDirect(String)}.
+     *
+     * <p>
+     * Errors in the brackets or entry names of the root are thrown here.
+     * Errors inside an entry are thrown when the entry is read, as an
+     * {@link UncheckedHNBTParsingException}.
+     * </p>
+     */
+    public static CompoundTag parseHnbtIntoNbtLazy(String hnbt)
+            throws HNBTParsingException {
+        return LazyHnbtParser.parseRoot(hnbt.toCharArray());
     }
 
     private HnbtToNbt() {
@@ -0,0 +1,236 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.google.common.collect.ImmutableList;
+
+import me.kenzierocks.hnbt.util.MappedFileReader;
+
+/**
+ * Checks that HNBT is well-formed without building any tags. The syntax, tag
+ * types, number ranges, string escapes and list element types are checked
+ * like {@link HnbtToNbt#parseHnbtIntoNbtDirect(Reader)} does, but instead of
+ * stopping at the first error, the rest of the compound entry or list element
+ * it was found in is skipped, and checking goes on with the next one.
+ *
+ * <p>
+ * Only the current nesting is kept in memory. Every error has the line and
+ * column it was found at.
+ * </p>
+ */
+public final class HnbtValidator {
+
+    /**
+     * Checking stops after this many errors in one document.
+     */
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
+    /**
+     * The errors found in a set of files.
+     */
+    public static final class Report {
+
+        private final int fileCount;
+        private final Map<Path, List<HNBTParsingException>> errors;
+
+        private Report(int fileCount,
+                Map<Path, List<HNBTParsingException>> errors) {
+            this.fileCount = fileCount;
+            this.errors = Collections.unmodifiableMap(errors);
+        }
+
+        public int getFileCount() {
+            return this.fileCount;
+        }
+
+        /**
+         * @return the errors of each file that has any, in the order the
+         *         files were given
+         */
+        public Map<Path, List<HNBTParsingException>> getErrors() {
+            return this.errors;
+        }
+
+        public int getErrorCount() {
+            int count = 0;
+            for (List<HNBTParsingException> errors : this.errors.values()) {
+                count += errors.size();
+            }
+            return count;
+        }
+
+        public boolean isValid() {
+            return this.errors.isEmpty();
+        }
+
+        /**
+         * Lists every error with its file, followed by a summary line.
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<Path, List<HNBTParsingException>> entry : this.errors
+                    .entrySet()) {
+                for (HNBTParsingException error : entry.getValue()) {
+                    builder.append(entry.getKey()).append(": ")
+                            .append(error.getMessage()).append('\n');
+                }
+            }
+            return builder.append(this.fileCount).append(" files checked, ")
+                    .append(this.errors.size()).append(" invalid, ")
+                    .append(getErrorCount()).append(" errors").toString();
+        }
+
+    }
+
+    public static List<HNBTParsingException> validate(String hnbt) {
+        char[] chars = hnbt.toCharArray();
+        try {
+            return validate(
+                    new HnbtReader(new HnbtScanner(chars, 0, chars.length)),
+                    DEFAULT_MAX_ERRORS);
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+    }
+
+    public static List<HNBTParsingException> validate(Reader hnbt)
+            throws IOException {
+        return validate(hnbt, DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * @return the errors in {@code hnbt}, at most {@code maxErrors} of them
+     */
+    public static List<HNBTParsingException> validate(Reader hnbt,
+            int maxErrors) throws IOException {
+        checkArgument(maxErrors > 0, "maxErrors must be positive");
+        HnbtReader reader = new HnbtReader(hnbt);
+        reader.setStringTable(null);
+        return validate(reader, maxErrors);
+    }
+
+    /**
+     * Checks a UTF-8 encoded HNBT file, which may be gzip or zlib compressed.
+     * Uncompressed files are memory-mapped.
+     */
+    public static List<HNBTParsingException> validate(Path file)
+            throws IOException {
+        try (InputStream in = new BufferedInputStream(
+                Files.newInputStream(file), 2)) {
+            Compression compression = Compression.detect(in);
+            if (compression != Compression.NONE) {
+                try (Reader reader = new InputStreamReader(
+                        compression.decompress(in), StandardCharsets.UTF_8)) {
+                    return validate(reader);
+                }
+            }
+        }
+        try (Reader reader = new MappedFileReader(file)) {
+            return validate(reader);
+        }
+    }
+
+    private static List<HNBTParsingException> validate(HnbtReader reader,
+            int maxErrors) throws IOException {
+        List<HNBTParsingException> errors = new ArrayList<>(0);
+        while (true) {
+            try {
+                switch (reader.peek()) {
+                    case END_DOCUMENT:
+                        return errors;
+                    case BEGIN_COMPOUND:
+                        reader.beginCompound();
+                        break;
+                    case BEGIN_LIST:
+                        reader.beginList();
+                        break;
+                    case END:
+                        reader.end();
+                        break;
+                    case NAME:
+                        reader.nextName();
+                        break;
+                    case STRING_VALUE:
+                        // skipping would not check the escapes
+                        reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            } catch (HNBTParsingException e) {
+                errors.add(e);
+                if (errors.size() == maxErrors || !reader.recover()) {
+                    return errors;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks {@code files} in parallel on the
+     * {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @see #validate(Path)
+     */
+    public static Report validateAll(Collection<Path> files) {
+        return validateAll(files, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Checks {@code files} in parallel on {@code pool}. A file that can not
+     * be read is reported with an error whose cause is the
+     * {@link IOException}.
+     */
+    public static Report validateAll(Collection<Path> files,
+            ForkJoinPool pool) {
+        checkNotNull(pool);
+        List<Path> paths = ImmutableList.copyOf(files);
+        List<ForkJoinTask<List<HNBTParsingException>>> tasks =
+                new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            tasks.add(pool.submit(() -> validateFile(path)));
+        }
+        Map<Path, List<HNBTParsingException>> errors = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            List<HNBTParsingException> fileErrors = tasks.get(i).join();
+            if (!fileErrors.isEmpty()) {
+                errors.put(paths.get(i), fileErrors);
+            }
+        }
+        return new Report(paths.size(), errors);
+    }
+
+    private static List<HNBTParsingException> validateFile(Path file) {
+        try {
+            return validate(file);
+        } catch (IOException e) {
+            return ImmutableList.of(new HNBTParsingException(
+                    "Could not read the file: " + e.getMessage(), e));
+        }
+    }
+
+    private HnbtValidator() {
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,293 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import me.kenzierocks.hnbt.util.IndentedOutput;
+import me.kenzierocks.hnbt.util.StringUtil;
+import me.kenzierocks.hnbt.util.TagNames;
+
+/**
+ * Streaming writer for HNBT. Tags are written straight to the target as they
+ * are given, and only the current nesting is kept in memory. The output is
+ * the same as {@link NbtToHnbt} would produce for the same tree.
+ *
+ * <p>
+ * The document starts with {@link #beginCompound()} for the root tag. Inside
+ * a compound, each value must be preceded by a {@link #name(String) name}.
+ * Inside a list, values have no names and must all be of the same type.
+ * </p>
+ *
+ * <p>
+ * Output is buffered, and is written to the target when the root compound
+ * ends, or on {@link #flush()} or {@link #close()}.
+ * </p>
+ */
+public final class HnbtWriter implements Closeable, Flushable {
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int CLOSED_DOCUMENT = 1;
+    private static final int EMPTY_COMPOUND = 2;
+    private static final int NONEMPTY_COMPOUND = 3;
+    private static final int EMPTY_LIST = 4;
+    private static final int NONEMPTY_LIST = 5;
+
+    private final Appendable target;
+    private final IndentedOutput out;
+    private int[] stack = new int[32];
+    private TagType[] listTypes = new TagType[32];
+    private int stackSize = 1;
+    @Nullable
+    private String pendingName;
+
+    public HnbtWriter(Appendable target) {
+        this(target, IndentedOutput.DEFAULT_INDENT);
+    }
+
+    /**
+     * Creates a writer that indents each level with {@code indent}, which may
+     * only contain spaces and tabs.
+     */
+    public HnbtWriter(Appendable target, String indent) {
+        this.target = checkNotNull(target);
+        this.out = new IndentedOutput(target, indent);
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Sets the name of the next value in the current compound.
+     */
+    public HnbtWriter name(String name) {
+        checkNotNull(name);
+        int state = this.stack[this.stackSize - 1];
+        checkState(state == EMPTY_COMPOUND || state == NONEMPTY_COMPOUND,
+                "names are only allowed in compounds");
+        checkState(this.pendingName == null, "name already set to %s",
+                this.pendingName);
+        TagNames.checkTagName(name);
+        this.pendingName = name;
+        return this;
+    }
+
+    /**
+     * Writes everything before the value, up to and including {@code " = "}.
+     */
+    private void beforeValue(TagType type) throws IOException {
+        int top = this.stackSize - 1;
+        switch (this.stack[top]) {
+            case EMPTY_DOCUMENT:
+                checkState(type == TagType.COMPOUND,
+                        "the root tag must be a compound");
+                this.pendingName = "root";
+                this.stack[top] = CLOSED_DOCUMENT;
+                break;
+            case CLOSED_DOCUMENT:
+                throw new IllegalStateException("the document is complete");
+            case EMPTY_COMPOUND:
+            case NONEMPTY_COMPOUND:
+                checkState(this.pendingName != null, "missing name for %s",
+                        type);
+                newItem(top, NONEMPTY_COMPOUND);
+                break;
+            case EMPTY_LIST:
+            case NONEMPTY_LIST:
+                if (this.listTypes[top] == null) {
+                    this.listTypes[top] = type;
+                }
+                checkState(this.listTypes[top] == type,
+                        "Multiple types in list: %s and %s",
+                        this.listTypes[top], type);
+                newItem(top, NONEMPTY_LIST);
+                break;
+            default:
+                throw new AssertionError("unknown state " + this.stack[top]);
+        }
+        this.out.append(type.getHnbtName());
+        if (this.pendingName != null) {
+            this.out.append(' ').append(this.pendingName);
+            this.pendingName = null;
+        }
+        this.out.append(" = ");
+    }
+
+    private void newItem(int top, int nonEmptyState) throws IOException {
+        if (this.stack[top] == nonEmptyState) {
+            this.out.append(',');
+        }
+        this.stack[top] = nonEmptyState;
+        this.out.newline();
+    }
+
+    private void push(int state, @Nullable TagType listType) {
+        if (this.stackSize == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.stackSize * 2);
+            this.listTypes =
+                    Arrays.copyOf(this.listTypes, this.stackSize * 2);
+        }
+        this.listTypes[this.stackSize] = listType;
+        this.stack[this.stackSize++] = state;
+        this.out.indent();
+    }
+
+    public HnbtWriter beginCompound() throws IOException {
+        beforeValue(TagType.COMPOUND);
+        this.out.append('{');
+        push(EMPTY_COMPOUND, null);
+        return this;
+    }
+
+    public HnbtWriter beginCompound(String name) throws IOException {
+        return name(name).beginCompound();
+    }
+
+    /**
+     * Starts a list whose type is decided by its first element.
+     */
+    public HnbtWriter beginList() throws IOException {
+        return beginList(null);
+    }
+
+    /**
+     * Starts a list whose elements must all be of the given type.
+     */
+    public HnbtWriter beginList(@Nullable TagType elementType)
+            throws IOException {
+        beforeValue(TagType.LIST);
+        this.out.append('[');
+        push(EMPTY_LIST, elementType == TagType.END ? null : elementType);
+        return this;
+    }
+
+    /**
+     * Ends the current compound or list.
+     */
+    public HnbtWriter end() throws IOException {
+        int state = this.stack[this.stackSize - 1];
+        char close;
+        if (state == EMPTY_COMPOUND || state == NONEMPTY_COMPOUND) {
+            checkState(this.pendingName == null, "dangling name %s",
+                    this.pendingName);
+            close = '}';
+        } else if (state == EMPTY_LIST || state == NONEMPTY_LIST) {
+            close = ']';
+        } else {
+            throw new IllegalStateException("nothing to end");
+        }
+        this.stackSize--;
+        this.out.dedent();
+        if (state == NONEMPTY_COMPOUND || state == NONEMPTY_LIST) {
+            this.out.newline();
+        }
+        this.out.append(close);
+        if (this.stackSize == 1) {
+            this.out.append('\n');
+            this.out.flushBuffer();
+        }
+        return this;
+    }
+
+    public HnbtWriter value(byte value) throws IOException {
+        beforeValue(TagType.BYTE);
+        this.out.appendInt(value);
+        return this;
+    }
+
+    public HnbtWriter value(short value) throws IOException {
+        beforeValue(TagType.SHORT);
+        this.out.appendInt(value);
+        return this;
+    }
+
+    public HnbtWriter value(int value) throws IOException {
+        beforeValue(TagType.INT);
+        this.out.appendInt(value);
+        return this;
+    }
+
+    public HnbtWriter value(long value) throws IOException {
+        beforeValue(TagType.LONG);
+        this.out.appendLong(value);
+        return this;
+    }
+
+    public HnbtWriter value(float value) throws IOException {
+        beforeValue(TagType.FLOAT);
+        this.out.appendFloat(value);
+        return this;
+    }
+
+    public HnbtWriter value(double value) throws IOException {
+        beforeValue(TagType.DOUBLE);
+        this.out.appendDouble(value);
+        return this;
+    }
+
+    public HnbtWriter value(String value) throws IOException {
+        checkNotNull(value);
+        beforeValue(TagType.STRING);
+        StringUtil.appendEscapedString(value, this.out);
+        return this;
+    }
+
+    public HnbtWriter value(byte[] value) throws IOException {
+        checkNotNull(value);
+        beforeValue(TagType.BYTE_ARRAY);
+        this.out.append('[');
+        for (int i = 0; i < value.length; i++) {
+            beginArrayElement(i);
+            this.out.appendInt(value[i]);
+        }
+        endArray(value.length);
+        return this;
+    }
+
+    public HnbtWriter value(int[] value) throws IOException {
+        checkNotNull(value);
+        beforeValue(TagType.INT_ARRAY);
+        this.out.append('[');
+        for (int i = 0; i < value.length; i++) {
+            beginArrayElement(i);
+            this.out.appendInt(value[i]);
+        }
+        endArray(value.length);
+        return this;
+    }
+
+    private void beginArrayElement(int index) throws IOException {
+        if (index == 0) {
+            this.out.indent();
+        } else {
+            this.out.append(',');
+        }
+        this.out.newline();
+    }
+
+    private void endArray(int length) throws IOException {
+        if (length > 0) {
+            this.out.dedent();
+            this.out.newline();
+        }
+        this.out.append(']');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.flushBuffer();
+        if (this.target instanceof Closeable) {
+            ((Closeable) this.target).close();
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.Tag;
+
+import me.kenzierocks.hnbt.util.StringTable;
+
+/**
+ * Parses a document into compounds that only parse an entry when it is first
+ * read. A compound is indexed by a structural pre-scan, which records where
+ * each entry is and reads its name. Entries that are compounds become lazy
+ * compounds in turn, and anything else is parsed in one go.
+ *
+ * <p>
+ * The brackets and the entry names of a compound are checked when it is
+ * indexed, and a broken compound is parsed eagerly so that the error is
+ * reported as {@link DirectHnbtParser} reports it. Errors inside an entry
+ * only show up when the entry is read, as an
+ * {@link UncheckedHNBTParsingException}.
+ * </p>
+ */
+final class LazyHnbtParser {
+
+    static CompoundTag parseRoot(char[] chars) throws HNBTParsingException {
+        checkNotNull(chars);
+        try {
+            // shared by the whole tree
+            StringTable strings = new StringTable();
+            HnbtScanner scanner = new HnbtScanner(chars, 0, chars.length);
+            scanner.setStringTable(strings);
+            HnbtReader reader = new HnbtReader(scanner);
+            if (reader.peek() == HnbtEvent.BEGIN_COMPOUND) {
+                int open = (int) reader.getOffset();
+                LazyTagMap map = LazyTagMap.index(chars, strings, open,
+                        reader.getLine(), open - reader.getColumn(),
+                        chars.length);
+                if (map != null) {
+                    return new CompoundTag("root", map);
+                }
+            }
+            // reports the error
+            return new DirectHnbtParser(
+                    new HnbtReader(HnbtScanner.forDocument(chars)))
+                            .parseRoot();
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+    }
+
+    /**
+     * The entries of a compound, parsed on first access. Entries are iterated
+     * in the order a {@link HashMap} filled in document order would use, and
+     * the last of several entries with the same name wins, as with
+     * {@link DirectHnbtParser}.
+     */
+    private static final class LazyTagMap extends AbstractMap<String, Tag> {
+
+        /**
+         * Indexes the compound whose opening bracket is at {@code open}, and
+         * which must be followed by whitespace up to {@code end}.
+         *
+         * @return the entries, or {@code null} if the compound is broken
+         */
+        @Nullable
+        static LazyTagMap index(char[] chars, StringTable strings,
+                int open, int line, int lineStart, int end)
+                throws IOException {
+            HnbtItems items = HnbtItems.scan(chars, open, line, lineStart);
+            if (items == null || items.close >= end
+                    || !HnbtItems.isBlank(chars, items.close + 1, end)) {
+                return null;
+            }
+            LazyTagMap map = new LazyTagMap(chars, strings, items);
+            for (int i = 0; i < items.count; i++) {
+                HnbtReader reader = items.reader(chars, i, i, true, strings);
+                try {
+                    if (reader.peek() != HnbtEvent.NAME) {
+                        return null;
+                    }
+                    map.names[i] = reader.nextName();
+                    if (reader.peek() == HnbtEvent.BEGIN_COMPOUND) {
+                        int valueOpen = (int) reader.getOffset();
+                        map.opens[i] = valueOpen;
+                        map.openLines[i] = reader.getLine();
+                        map.openLineStarts[i] =
+                                valueOpen - reader.getColumn();
+                    } else {
+                        map.opens[i] = -1;
+                    }
+                } catch (HNBTParsingException e) {
+                    return null;
+                }
+                map.indices.put(map.names[i], i);
+            }
+            return map;
+        }
+
+        private final char[] chars;
+        private final StringTable strings;
+        private final HnbtItems items;
+        private final String[] names;
+        // offset of the opening bracket of compound values, otherwise -1
+        private final int[] opens;
+        private final int[] openLines;
+        private final int[] openLineStarts;
+        private final Map<String, Integer> indices = new HashMap<>();
+        // racing readers may parse an entry twice, but tags are immutable
+        private final Tag[] tags;
+        private Set<Entry<String, Tag>> entrySet;
+
+        private LazyTagMap(char[] chars, StringTable strings,
+                HnbtItems items) {
+            this.chars = chars;
+            this.strings = strings;
+            this.items = items;
+            this.names = new String[items.count];
+            this.opens = new int[items.count];
+            this.openLines = new int[items.count];
+            this.openLineStarts = new int[items.count];
+            this.tags = new Tag[items.count];
+        }
+
+        private Tag tag(int index) {
+            Tag tag = this.tags[index];
+            if (tag == null) {
+                try {
+                    tag = parse(index);
+                } catch (HNBTParsingException e) {
+                    throw new UncheckedHNBTParsingException(e);
+                } catch (IOException e) {
+                    throw new IllegalStateException("impossible exception",
+                            e);
+                }
+                this.tags[index] = tag;
+            }
+            return tag;
+        }
+
+        private Tag parse(int index)
+                throws IOException, HNBTParsingException {
+            if (this.opens[index] >= 0) {
+                LazyTagMap map = index(this.chars, this.strings,
+                        this.opens[index], this.openLines[index],
+                        this.openLineStarts[index], this.items.ends[index]);
+                if (map != null) {
+                    return new CompoundTag(this.names[index], map);
+                }
+            }
+            try {
+                return new DirectHnbtParser(
+                        this.items.reader(this.chars, index, index, true,
+                                this.strings))
+                                .parseItems(true).get(0);
+            } catch (HNBTParsingException e) {
+                throw entryError(index, e);
+            }
+        }
+
+        /**
+         * Parses a broken entry again with the rest of the document after it,
+         * so that the error names the same token as the sequential parser.
+         */
+        private HNBTParsingException entryError(int index,
+                HNBTParsingException sliceError) throws IOException {
+            HnbtReader reader = HnbtReader.forItems(new HnbtScanner(
+                    this.chars, this.items.starts[index], this.chars.length,
+                    this.items.lines[index], this.items.lineStarts[index]),
+                    true);
+            try {
+                new DirectHnbtParser(reader).parseTag(reader.nextName());
+                reader.hasNext();
+            } catch (HNBTParsingException e) {
+                return e;
+            }
+            return sliceError;
+        }
+
+        @Override
+        public Tag get(Object key) {
+            Integer index = this.indices.get(key);
+            return index == null ? null : tag(index);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.indices.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return this.indices.size();
+        }
+
+        @Override
+        public Set<Entry<String, Tag>> entrySet() {
+            Set<Entry<String, Tag>> entrySet = this.entrySet;
+            if (entrySet == null) {
+                this.entrySet = entrySet = new EntrySet();
+            }
+            return entrySet;
+        }
+
+        private final class EntrySet extends AbstractSet<Entry<String, Tag>> {
+
+            @Override
+            public Iterator<Entry<String, Tag>> iterator() {
+                Iterator<Entry<String, Integer>> indices =
+                        LazyTagMap.this.indices.entrySet().iterator();
+                return new Iterator<Entry<String, Tag>>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return indices.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Tag> next() {
+                        Entry<String, Integer> next = indices.next();
+                        return new SimpleImmutableEntry<>(next.getKey(),
+                                tag(next.getValue()));
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyTagMap.this.size();
+            }
+
+        }
+
+    }
+
+    private LazyHnbtParser() {
+        throw new AssertionError();
+    }
+
+}
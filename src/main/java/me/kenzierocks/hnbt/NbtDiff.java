@@ -0,0 +1,624 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+import me.kenzierocks.hnbt.tag.NbtCompound;
+import me.kenzierocks.hnbt.tag.NbtList;
+import me.kenzierocks.hnbt.tag.NbtTag;
+import me.kenzierocks.hnbt.tag.NbtTags;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+/**
+ * Compares two tag trees, and lists the differences by
+ * {@link HnbtQuery path}, with the tags rendered as HNBT.
+ *
+ * <p>
+ * Trees of the native {@link NbtTag} model cannot change, so each of their
+ * compounds and lists keeps its {@link NbtTag#fingerprint() fingerprint}
+ * once it is computed. Compounds and lists with the same fingerprint are
+ * skipped without walking them, so comparing a tree with a changed copy only
+ * walks the paths to the changes. This is wrong only in the case of a 64-bit
+ * hash collision. JNBT tags can be changed through the maps, lists and
+ * arrays they wrap, so JNBT trees are always compared tag by tag.
+ * </p>
+ *
+ * <p>
+ * The names of the two compared tags are ignored, since they are not part
+ * of a path. Lists are compared index by index, so an element inserted at
+ * the front shows up as a change to every element after it. Trees are
+ * walked with a stack, so the depth is not limited by the thread's stack.
+ * </p>
+ */
+public final class NbtDiff {
+
+    /**
+     * One difference between two trees.
+     */
+    public static final class Change {
+
+        public enum Kind {
+            ADDED('+'), REMOVED('-'), CHANGED('~');
+
+            private final char symbol;
+
+            Kind(char symbol) {
+                this.symbol = symbol;
+            }
+
+        }
+
+        private final Kind kind;
+        private final String path;
+        @Nullable
+        private final Tag expected;
+        @Nullable
+        private final Tag actual;
+
+        Change(String path, @Nullable Tag expected, @Nullable Tag actual) {
+            this.kind = expected == null ? Kind.ADDED
+                    : actual == null ? Kind.REMOVED : Kind.CHANGED;
+            this.path = path;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * @return the path of the changed tag, in {@link HnbtQuery} syntax
+         */
+        public String getPath() {
+            return this.path;
+        }
+
+        /**
+         * @return the tag in the expected tree, or {@code null} if it was
+         *         {@link Kind#ADDED added}
+         */
+        @Nullable
+        public Tag getExpected() {
+            return this.expected;
+        }
+
+        /**
+         * @return the tag in the actual tree, or {@code null} if it was
+         *         {@link Kind#REMOVED removed}
+         */
+        @Nullable
+        public Tag getActual() {
+            return this.actual;
+        }
+
+        /**
+         * Renders the change as a line with the path, followed by the
+         * expected tag on lines starting with {@code -} and the actual tag on
+         * lines starting with {@code +}.
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(this.kind.symbol).append(' ')
+                    .append(this.path.isEmpty() ? "(root)" : this.path);
+            render(out, '-', this.expected);
+            render(out, '+', this.actual);
+            return out.toString();
+        }
+
+        private void render(StringBuilder out, char prefix,
+                @Nullable Tag tag) {
+            if (tag == null) {
+                return;
+            }
+            StringBuilder hnbt = new StringBuilder();
+            // list elements have no name in HNBT
+            String name = this.path.endsWith("]") ? null : tag.getName();
+            try {
+                HnbtSerializer serializer = new HnbtSerializer(hnbt);
+                serializer.writeAnyTag(tag, name);
+                serializer.flushBuffer();
+            } catch (IOException e) {
+                throw new IllegalStateException("impossible exception", e);
+            }
+            for (String line : hnbt.toString().split("\n", -1)) {
+                out.append('\n').append(prefix).append(' ').append(line);
+            }
+        }
+
+    }
+
+    /**
+     * The parts of a tag model that a comparison needs.
+     */
+    private abstract static class Model<T> {
+
+        abstract boolean isCompound(T tag);
+
+        abstract boolean isList(T tag);
+
+        abstract int size(T compound);
+
+        abstract void addEntries(T compound, List<String> names,
+                List<T> values);
+
+        @Nullable
+        abstract T get(T compound, String name);
+
+        abstract List<T> elements(T list);
+
+        abstract TagType elementType(T list);
+
+        /**
+         * Compares two tags that are not both compounds or both lists.
+         */
+        abstract boolean sameValue(T expected, T actual);
+
+        /**
+         * Returns whether two compounds or two lists can be taken to be equal
+         * without walking them.
+         */
+        abstract boolean knownEqual(T expected, T actual);
+
+        abstract Tag toJnbt(T tag, String name);
+
+    }
+
+    private static final Model<Tag> JNBT = new Model<Tag>() {
+
+        @Override
+        boolean isCompound(Tag tag) {
+            return tag instanceof CompoundTag;
+        }
+
+        @Override
+        boolean isList(Tag tag) {
+            return tag instanceof ListTag;
+        }
+
+        @Override
+        int size(Tag compound) {
+            return ((CompoundTag) compound).getValue().size();
+        }
+
+        @Override
+        void addEntries(Tag compound, List<String> names,
+                List<Tag> values) {
+            for (Entry<String, Tag> entry : ((CompoundTag) compound)
+                    .getValue().entrySet()) {
+                names.add(entry.getKey());
+                values.add(entry.getValue());
+            }
+        }
+
+        @Override
+        Tag get(Tag compound, String name) {
+            return ((CompoundTag) compound).getValue().get(name);
+        }
+
+        @Override
+        List<Tag> elements(Tag list) {
+            return ((ListTag) list).getValue();
+        }
+
+        @Override
+        TagType elementType(Tag list) {
+            return TagType.fromTagClass(((ListTag) list).getType());
+        }
+
+        @Override
+        boolean sameValue(Tag expected, Tag actual) {
+            if (expected.getClass() != actual.getClass()) {
+                return false;
+            }
+            if (expected instanceof ByteArrayTag) {
+                return Arrays.equals(((ByteArrayTag) expected).getValue(),
+                        ((ByteArrayTag) actual).getValue());
+            } else if (expected instanceof IntArrayTag) {
+                return Arrays.equals(((IntArrayTag) expected).getValue(),
+                        ((IntArrayTag) actual).getValue());
+            }
+            return Objects.equals(expected.getValue(), actual.getValue());
+        }
+
+        @Override
+        boolean knownEqual(Tag expected, Tag actual) {
+            // the contents may have changed since any earlier comparison
+            return false;
+        }
+
+        @Override
+        Tag toJnbt(Tag tag, String name) {
+            return tag;
+        }
+
+    };
+
+    private static final Model<NbtTag> NATIVE = new Model<NbtTag>() {
+
+        @Override
+        boolean isCompound(NbtTag tag) {
+            return tag instanceof NbtCompound;
+        }
+
+        @Override
+        boolean isList(NbtTag tag) {
+            return tag instanceof NbtList;
+        }
+
+        @Override
+        int size(NbtTag compound) {
+            return ((NbtCompound) compound).size();
+        }
+
+        @Override
+        void addEntries(NbtTag compound, List<String> names,
+                List<NbtTag> values) {
+            NbtCompound nbt = (NbtCompound) compound;
+            for (int i = 0; i < nbt.size(); i++) {
+                names.add(nbt.getName(i));
+                values.add(nbt.getValue(i));
+            }
+        }
+
+        @Override
+        NbtTag get(NbtTag compound, String name) {
+            return ((NbtCompound) compound).get(name);
+        }
+
+        @Override
+        List<NbtTag> elements(NbtTag list) {
+            return ((NbtList) list).asList();
+        }
+
+        @Override
+        TagType elementType(NbtTag list) {
+            return ((NbtList) list).getElementType();
+        }
+
+        @Override
+        boolean sameValue(NbtTag expected, NbtTag actual) {
+            return expected.equals(actual);
+        }
+
+        @Override
+        boolean knownEqual(NbtTag expected, NbtTag actual) {
+            return expected.fingerprint() == actual.fingerprint();
+        }
+
+        @Override
+        Tag toJnbt(NbtTag tag, String name) {
+            return NbtTags.toJnbt(tag, name);
+        }
+
+    };
+
+    /**
+     * A pair of tags at the same path, waiting to be compared.
+     */
+    private static final class Pending<T> {
+
+        final String path;
+        final String name;
+        @Nullable
+        final T expected;
+        @Nullable
+        final T actual;
+
+        Pending(String path, String name, @Nullable T expected,
+                @Nullable T actual) {
+            this.path = path;
+            this.name = name;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+    }
+
+    /**
+     * Returns the differences between two trees, ordered by path, or an empty
+     * list if they are equal.
+     */
+    public static List<Change> diff(Tag expected, Tag actual) {
+        return diff(JNBT, checkNotNull(expected), checkNotNull(actual));
+    }
+
+    /**
+     * Returns the differences between two native trees, ordered by path, or
+     * an empty list if they are equal. Changed tags are reported as JNBT
+     * views of the native ones.
+     */
+    public static List<Change> diff(NbtTag expected, NbtTag actual) {
+        return diff(NATIVE, checkNotNull(expected), checkNotNull(actual));
+    }
+
+    /**
+     * Renders the differences between two trees, one {@link Change} after
+     * another, or returns {@code null} if they are equal.
+     */
+    @Nullable
+    public static String describe(Tag expected, Tag actual) {
+        return describe(diff(expected, actual));
+    }
+
+    /**
+     * @see #describe(Tag, Tag)
+     */
+    @Nullable
+    public static String describe(NbtTag expected, NbtTag actual) {
+        return describe(diff(expected, actual));
+    }
+
+    @Nullable
+    private static String describe(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder();
+        for (Change change : changes) {
+            if (out.length() > 0) {
+                out.append('\n');
+            }
+            out.append(change);
+        }
+        return out.toString();
+    }
+
+    private static <T> List<Change> diff(Model<T> model, T expected,
+            T actual) {
+        List<Change> changes = new ArrayList<>();
+        Deque<Pending<T>> pending = new ArrayDeque<>();
+        pending.push(new Pending<>("", "root", expected, actual));
+        while (!pending.isEmpty()) {
+            Pending<T> next = pending.pop();
+            T expectedTag = next.expected;
+            T actualTag = next.actual;
+            if (expectedTag == actualTag) {
+                continue;
+            }
+            if (expectedTag == null || actualTag == null) {
+                changes.add(change(model, next));
+                continue;
+            }
+            boolean compounds = model.isCompound(expectedTag)
+                    && model.isCompound(actualTag);
+            boolean lists =
+                    model.isList(expectedTag) && model.isList(actualTag);
+            if (!compounds && !lists) {
+                if (!model.sameValue(expectedTag, actualTag)) {
+                    changes.add(change(model, next));
+                }
+                continue;
+            }
+            if (model.knownEqual(expectedTag, actualTag)) {
+                continue;
+            }
+            // only pairs that may differ are pushed, in reverse so that they
+            // are compared in path order
+            if (compounds) {
+                List<String> names = new ArrayList<>();
+                List<T> values = new ArrayList<>();
+                model.addEntries(expectedTag, names, values);
+                List<String> candidates = new ArrayList<>();
+                int found = 0;
+                for (int i = 0; i < names.size(); i++) {
+                    T actualValue = model.get(actualTag, names.get(i));
+                    if (actualValue != null) {
+                        found++;
+                    }
+                    if (mayDiffer(model, values.get(i), actualValue)) {
+                        candidates.add(names.get(i));
+                    }
+                }
+                if (found < model.size(actualTag)) {
+                    names.clear();
+                    values.clear();
+                    model.addEntries(actualTag, names, values);
+                    for (String name : names) {
+                        if (model.get(expectedTag, name) == null) {
+                            candidates.add(name);
+                        }
+                    }
+                }
+                Collections.sort(candidates);
+                String prefix = next.path.isEmpty() ? "" : next.path + ".";
+                for (int i = candidates.size() - 1; i >= 0; i--) {
+                    String name = candidates.get(i);
+                    pending.push(new Pending<>(prefix + name, name,
+                            model.get(expectedTag, name),
+                            model.get(actualTag, name)));
+                }
+            } else if (model.elementType(expectedTag) == model
+                    .elementType(actualTag)) {
+                List<T> expectedList = model.elements(expectedTag);
+                List<T> actualList = model.elements(actualTag);
+                int size = Math.max(expectedList.size(), actualList.size());
+                for (int i = size - 1; i >= 0; i--) {
+                    T expectedValue = i < expectedList.size()
+                            ? expectedList.get(i) : null;
+                    T actualValue =
+                            i < actualList.size() ? actualList.get(i) : null;
+                    if (mayDiffer(model, expectedValue, actualValue)) {
+                        pending.push(new Pending<>(next.path + "[" + i + "]",
+                                "", expectedValue, actualValue));
+                    }
+                }
+            } else {
+                changes.add(change(model, next));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Returns whether a pair needs to be compared further, which is always
+     * the case for two compounds or two lists that are not known to be equal.
+     */
+    private static <T> boolean mayDiffer(Model<T> model,
+            @Nullable T expected, @Nullable T actual) {
+        if (expected == actual) {
+            return false;
+        }
+        if (expected == null || actual == null) {
+            return true;
+        }
+        if ((model.isCompound(expected) && model.isCompound(actual))
+                || (model.isList(expected) && model.isList(actual))) {
+            return !model.knownEqual(expected, actual);
+        }
+        return !model.sameValue(expected, actual);
+    }
+
+    private static <T> Change change(Model<T> model, Pending<T> pending) {
+        return new Change(pending.path,
+                pending.expected == null ? null
+                        : model.toJnbt(pending.expected, pending.name),
+                pending.actual == null ? null
+                        : model.toJnbt(pending.actual, pending.name));
+    }
+
+    private static boolean isContainer(Tag tag) {
+        return tag instanceof CompoundTag || tag instanceof ListTag;
+    }
+
+    /**
+     * A JNBT compound or list whose fingerprint is being computed.
+     */
+    private static final class FingerprintFrame {
+
+        final boolean compound;
+        final Iterator<?> elements;
+        final int type;
+        // the name of the entry that is added next
+        String name = "";
+        long fingerprint;
+
+        FingerprintFrame(Tag tag) {
+            this.compound = tag instanceof CompoundTag;
+            if (this.compound) {
+                Map<String, Tag> entries = ((CompoundTag) tag).getValue();
+                this.elements = entries.entrySet().iterator();
+                this.type = TagType.COMPOUND.getId();
+                this.fingerprint = entries.size();
+            } else {
+                ListTag list = (ListTag) tag;
+                this.elements = list.getValue().iterator();
+                this.type = TagType.LIST.getId();
+                this.fingerprint =
+                        TagType.fromTagClass(list.getType()).getId();
+            }
+        }
+
+        void add(long fingerprint) {
+            this.fingerprint = this.compound
+                    ? Fingerprints.addEntry(this.fingerprint, this.name,
+                            fingerprint)
+                    : Fingerprints.addElement(this.fingerprint, fingerprint);
+        }
+
+    }
+
+    /**
+     * Returns the fingerprint of the type and contents of {@code tag}, as
+     * described in {@link Fingerprints}. The name of the tag itself is not
+     * included, but the names of compound entries are. It is the same as the
+     * {@link NbtTag#fingerprint() fingerprint} of the equivalent native tag,
+     * but is computed again on every call, since JNBT tags can change.
+     */
+    public static long fingerprint(Tag tag) {
+        checkNotNull(tag);
+        if (!isContainer(tag)) {
+            return valueFingerprint(tag);
+        }
+        Deque<FingerprintFrame> open = new ArrayDeque<>();
+        open.push(new FingerprintFrame(tag));
+        while (true) {
+            FingerprintFrame frame = open.peek();
+            if (!frame.elements.hasNext()) {
+                long fingerprint =
+                        Fingerprints.finish(frame.type, frame.fingerprint);
+                open.pop();
+                if (open.isEmpty()) {
+                    return fingerprint;
+                }
+                open.peek().add(fingerprint);
+                continue;
+            }
+            Object next = frame.elements.next();
+            Tag element;
+            if (next instanceof Entry) {
+                Entry<?, ?> entry = (Entry<?, ?>) next;
+                frame.name = (String) entry.getKey();
+                element = (Tag) entry.getValue();
+            } else {
+                element = (Tag) next;
+            }
+            if (isContainer(checkNotNull(element))) {
+                open.push(new FingerprintFrame(element));
+            } else {
+                frame.add(valueFingerprint(element));
+            }
+        }
+    }
+
+    private static long valueFingerprint(Tag tag) {
+        long value;
+        if (tag instanceof ByteArrayTag) {
+            value = Fingerprints.ofBytes(((ByteArrayTag) tag).getValue());
+        } else if (tag instanceof IntArrayTag) {
+            value = Fingerprints.ofInts(((IntArrayTag) tag).getValue());
+        } else if (tag instanceof StringTag) {
+            value = Fingerprints.ofString(((StringTag) tag).getValue());
+        } else if (tag instanceof ByteTag) {
+            value = ((ByteTag) tag).getValue();
+        } else if (tag instanceof ShortTag) {
+            value = ((ShortTag) tag).getValue();
+        } else if (tag instanceof IntTag) {
+            value = ((IntTag) tag).getValue();
+        } else if (tag instanceof LongTag) {
+            value = ((LongTag) tag).getValue();
+        } else if (tag instanceof FloatTag) {
+            value = Float.floatToIntBits(((FloatTag) tag).getValue());
+        } else if (tag instanceof DoubleTag) {
+            value = Double
+                    .doubleToLongBits(((DoubleTag) tag).getValue());
+        } else {
+            throw new IllegalArgumentException(
+                    "Don't know how to fingerprint a " + tag.getClass());
+        }
+        return Fingerprints.finish(
+                TagType.fromTagClass(tag.getClass()).getId(), value);
+    }
+
+    private NbtDiff() {
+        throw new AssertionError();
+    }
+
+}
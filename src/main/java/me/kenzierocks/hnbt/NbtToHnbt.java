@@ -1,25 +1,121 @@
 package me.kenzierocks.hnbt;
 
-import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ForkJoinPool;
 
 import org.jnbt.CompoundTag;
 
+import me.kenzierocks.hnbt.util.IndentedOutput;
+import me.kenzierocks.hnbt.util.NonClosingOutputStream;
+import me.kenzierocks.hnbt.util.Utf8Writer;
+
 public final class NbtToHnbt {
 
     public static String parseNbtIntoHnbt(CompoundTag nbt) {
-        CharArrayWriter appendable = new CharArrayWriter();
+        return parseNbtIntoHnbt(nbt, IndentedOutput.DEFAULT_INDENT);
+    }
+
+    /**
+     * Serializes {@code nbt}, indenting each level with {@code indent}, which
+     * may only contain spaces and tabs.
+     */
+    public static String parseNbtIntoHnbt(CompoundTag nbt, String indent) {
+        StringBuilder builder = new StringBuilder();
         try {
-            parseNbtIntoHnbt(nbt, appendable);
+            parseNbtIntoHnbt(nbt, builder, indent);
         } catch (IOException e) {
             throw new IllegalStateException("impossible exception", e);
         }
-        return appendable.toString();
+        return builder.toString();
     }
 
     public static void parseNbtIntoHnbt(CompoundTag nbt, Appendable target)
             throws IOException {
-        new HnbtSerializer(target).writeCompoundTag(nbt, "root");
+        parseNbtIntoHnbt(nbt, target, IndentedOutput.DEFAULT_INDENT);
+    }
+
+    public static void parseNbtIntoHnbt(CompoundTag nbt, Appendable target,
+            String indent) throws IOException {
+        HnbtSerializer serializer = new HnbtSerializer(target, indent);
+        serializer.writeCompoundTag(nbt, "root");
+        serializer.flushBuffer();
+        target.append('\n');
+    }
+
+    /**
+     * Serializes {@code nbt} as UTF-8 straight into {@code target}, through a
+     * fixed-size buffer. The channel is not closed.
+     */
+    public static void parseNbtIntoHnbtUtf8(CompoundTag nbt,
+            WritableByteChannel target) throws IOException {
+        parseNbtIntoHnbtUtf8(nbt, new Utf8Writer(target));
+    }
+
+    /**
+     * Like {@link #parseNbtIntoHnbtUtf8(CompoundTag, WritableByteChannel)},
+     * encoding into {@code buffer}, which can be reused afterwards.
+     */
+    public static void parseNbtIntoHnbtUtf8(CompoundTag nbt,
+            WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        parseNbtIntoHnbtUtf8(nbt, new Utf8Writer(target, buffer));
+    }
+
+    /**
+     * Serializes {@code nbt} as UTF-8 straight into {@code target}, through a
+     * fixed-size buffer. The stream is flushed but not closed.
+     */
+    public static void parseNbtIntoHnbtUtf8(CompoundTag nbt,
+            OutputStream target) throws IOException {
+        parseNbtIntoHnbtUtf8(nbt, new Utf8Writer(target));
+    }
+
+    /**
+     * Like {@link #parseNbtIntoHnbtUtf8(CompoundTag, OutputStream)}, but
+     * compresses the output. The stream is not closed.
+     */
+    public static void parseNbtIntoHnbtUtf8(CompoundTag nbt,
+            OutputStream target, Compression compression) throws IOException {
+        try (OutputStream out =
+                compression.compress(new NonClosingOutputStream(target))) {
+            parseNbtIntoHnbtUtf8(nbt, new Utf8Writer(out));
+        }
+    }
+
+    private static void parseNbtIntoHnbtUtf8(CompoundTag nbt,
+            Utf8Writer writer) throws IOException {
+        parseNbtIntoHnbt(nbt, writer);
+        writer.flush();
+    }
+
+    /**
+     * Serializes {@code nbt} like {@link #parseNbtIntoHnbt(CompoundTag)},
+     * rendering large subtrees in parallel on the
+     * {@link ForkJoinPool#commonPool() common pool}. Small trees are
+     * serialized on the calling thread.
+     */
+    public static String parseNbtIntoHnbtParallel(CompoundTag nbt) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            parseNbtIntoHnbtParallel(nbt, builder,
+                    IndentedOutput.DEFAULT_INDENT, ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @see #parseNbtIntoHnbtParallel(CompoundTag)
+     */
+    public static void parseNbtIntoHnbtParallel(CompoundTag nbt,
+            Appendable target, String indent, ForkJoinPool pool)
+            throws IOException {
+        new ParallelHnbtSerializer(indent,
+                ParallelHnbtSerializer.DEFAULT_THRESHOLD).writeRoot(nbt,
+                        target, pool);
         target.append('\n');
     }
 
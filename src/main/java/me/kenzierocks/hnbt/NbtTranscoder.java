@@ -0,0 +1,387 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jnbt.NBTConstants;
+
+import me.kenzierocks.hnbt.util.ByteBufferDataInput;
+import me.kenzierocks.hnbt.util.NonClosingInputStream;
+import me.kenzierocks.hnbt.util.NonClosingOutputStream;
+
+/**
+ * Converts between uncompressed binary NBT and HNBT without building a tag
+ * tree. Tags are written out as they are read, so memory use depends on the
+ * nesting depth and not on the size of the document. The one exception is
+ * binary lists, which need their length up front: when writing binary NBT,
+ * the outermost open list is buffered until it ends.
+ *
+ * <p>
+ * The root tag is always named {@code root} in HNBT, so its binary name is
+ * dropped when reading, and written as {@code root} unless another name is
+ * given.
+ * </p>
+ */
+public final class NbtTranscoder {
+
+    /**
+     * Converts binary NBT, which may be gzip or zlib compressed, to HNBT.
+     */
+    public static void transcodeNbtToHnbt(InputStream nbt, Appendable hnbt)
+            throws IOException {
+        try (InputStream in = Compression
+                .decompressDetected(new NonClosingInputStream(nbt))) {
+            DataInput data = new DataInputStream(new BufferedInputStream(in));
+            transcodeNbtToHnbt(data, hnbt);
+        }
+    }
+
+    public static void transcodeNbtToHnbt(ByteBuffer nbt, Appendable hnbt)
+            throws IOException {
+        transcodeNbtToHnbt(new ByteBufferDataInput(nbt), hnbt);
+    }
+
+    public static void transcodeNbtToHnbt(DataInput nbt, Appendable hnbt)
+            throws IOException {
+        int type = nbt.readUnsignedByte();
+        if (type != NBTConstants.TYPE_COMPOUND) {
+            throw new IOException("the root tag must be a compound, not "
+                    + BinaryNbt.tagType(type));
+        }
+        // the root name is always "root" in HNBT
+        nbt.skipBytes(nbt.readUnsignedShort());
+        HnbtWriter writer = new HnbtWriter(hnbt);
+        copyPayload(nbt, writer, TagType.COMPOUND);
+        writer.flush();
+    }
+
+    /**
+     * Copies a payload with a stack of the lists and compounds that are open,
+     * so the depth is not limited by the thread's stack.
+     */
+    private static void copyPayload(DataInput nbt, HnbtWriter writer,
+            TagType type) throws IOException {
+        if (!BinaryNbt.isContainer(type)) {
+            copyValuePayload(nbt, writer, type);
+            return;
+        }
+        Deque<BinaryNbt.Container> open = new ArrayDeque<>();
+        open.push(beginContainer(nbt, writer, type));
+        while (!open.isEmpty()) {
+            BinaryNbt.Container container = open.peek();
+            TagType elementType = BinaryNbt.nextType(nbt, container);
+            if (elementType == null) {
+                writer.end();
+                open.pop();
+                continue;
+            }
+            if (container.isCompound()) {
+                writer.name(BinaryNbt.readString(nbt));
+            }
+            if (BinaryNbt.isContainer(elementType)) {
+                open.push(beginContainer(nbt, writer, elementType));
+            } else {
+                copyValuePayload(nbt, writer, elementType);
+            }
+        }
+    }
+
+    private static BinaryNbt.Container beginContainer(DataInput nbt,
+            HnbtWriter writer, TagType type) throws IOException {
+        BinaryNbt.Container container =
+                BinaryNbt.beginContainer(nbt, type, "", false);
+        if (container.isCompound()) {
+            writer.beginCompound();
+        } else {
+            writer.beginList(container.elementType);
+        }
+        return container;
+    }
+
+    private static void copyValuePayload(DataInput nbt, HnbtWriter writer,
+            TagType type) throws IOException {
+        switch (type) {
+            case BYTE:
+                writer.value(nbt.readByte());
+                break;
+            case SHORT:
+                writer.value(nbt.readShort());
+                break;
+            case INT:
+                writer.value(nbt.readInt());
+                break;
+            case LONG:
+                writer.value(nbt.readLong());
+                break;
+            case FLOAT:
+                writer.value(nbt.readFloat());
+                break;
+            case DOUBLE:
+                writer.value(nbt.readDouble());
+                break;
+            case BYTE_ARRAY:
+                byte[] bytes = new byte[BinaryNbt.readLength(nbt)];
+                nbt.readFully(bytes);
+                writer.value(bytes);
+                break;
+            case STRING:
+                writer.value(BinaryNbt.readString(nbt));
+                break;
+            case INT_ARRAY:
+                int[] ints = new int[BinaryNbt.readLength(nbt)];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = nbt.readInt();
+                }
+                writer.value(ints);
+                break;
+            default:
+                throw new IOException("Unexpected tag type " + type);
+        }
+    }
+
+    /**
+     * Converts UTF-8 encoded HNBT, which may be gzip or zlib compressed, to
+     * binary NBT.
+     */
+    public static void transcodeHnbtToNbt(InputStream hnbt, OutputStream nbt)
+            throws IOException, HNBTParsingException {
+        transcodeHnbtToNbt(hnbt, nbt, Compression.NONE);
+    }
+
+    /**
+     * Like {@link #transcodeHnbtToNbt(InputStream, OutputStream)}, but
+     * compresses the binary NBT. {@code nbt} is not closed.
+     */
+    public static void transcodeHnbtToNbt(InputStream hnbt, OutputStream nbt,
+            Compression compression)
+            throws IOException, HNBTParsingException {
+        try (HnbtReader reader = new HnbtReader(Compression
+                .decompressDetected(new NonClosingInputStream(hnbt)));
+                OutputStream out = compression
+                        .compress(new NonClosingOutputStream(nbt))) {
+            transcodeHnbtToNbt(reader, out, "root");
+        }
+    }
+
+    public static void transcodeHnbtToNbt(Reader hnbt, OutputStream nbt)
+            throws IOException, HNBTParsingException {
+        transcodeHnbtToNbt(new HnbtReader(hnbt), nbt, "root");
+    }
+
+    /**
+     * Converts HNBT to binary NBT, naming the root tag {@code rootName}
+     * instead of {@code root}. Minecraft, for example, leaves it empty.
+     */
+    public static void transcodeHnbtToNbt(Reader hnbt, OutputStream nbt,
+            String rootName) throws IOException, HNBTParsingException {
+        checkNotNull(rootName);
+        transcodeHnbtToNbt(new HnbtReader(hnbt), nbt, rootName);
+    }
+
+    private static void transcodeHnbtToNbt(HnbtReader reader,
+            OutputStream nbt, String rootName)
+            throws IOException, HNBTParsingException {
+        DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(nbt));
+        out.writeByte(NBTConstants.TYPE_COMPOUND);
+        writeString(out, rootName);
+        copyPayload(reader, out);
+        // checks for trailing input
+        reader.peek();
+        out.flush();
+    }
+
+    /**
+     * Buffers the elements of the open lists, since a binary list starts with
+     * its length. Each list leaves room for its header, which is filled in
+     * when the list ends, so nested lists are not copied once per level.
+     */
+    private static final class ListBuffer extends ByteArrayOutputStream {
+
+        private static final int HEADER_SIZE = 5;
+
+        final DataOutputStream out = new DataOutputStream(this);
+        int open;
+
+        /**
+         * @return the position of the list's header
+         */
+        int beginList() {
+            int header = size();
+            write(new byte[HEADER_SIZE], 0, HEADER_SIZE);
+            this.open++;
+            return header;
+        }
+
+        /**
+         * Fills in the header of a list. The buffer is written to
+         * {@code target} once no lists are open.
+         */
+        void endList(int header, TagType elementType, int length,
+                OutputStream target) throws IOException {
+            this.buf[header] = (byte) elementType.getId();
+            this.buf[header + 1] = (byte) (length >>> 24);
+            this.buf[header + 2] = (byte) (length >>> 16);
+            this.buf[header + 3] = (byte) (length >>> 8);
+            this.buf[header + 4] = (byte) length;
+            if (--this.open == 0) {
+                writeTo(target);
+                reset();
+            }
+        }
+
+    }
+
+    /**
+     * An HNBT compound or list that is being copied.
+     */
+    private static final class Frame {
+
+        // the position of a list's header, or -1 for compounds
+        final int header;
+        TagType elementType = TagType.END;
+        int length;
+
+        Frame(int header) {
+            this.header = header;
+        }
+
+        boolean isCompound() {
+            return this.header < 0;
+        }
+
+    }
+
+    /**
+     * Copies a value with a stack of the compounds and lists that are open,
+     * so the depth is only limited by the reader's limits, and not by the
+     * thread's stack.
+     */
+    private static void copyPayload(HnbtReader reader, DataOutputStream out)
+            throws IOException, HNBTParsingException {
+        HnbtEvent event = reader.peek();
+        if (!isContainer(event)) {
+            copyValuePayload(reader, out, event);
+            return;
+        }
+        ListBuffer lists = new ListBuffer();
+        Deque<Frame> open = new ArrayDeque<>();
+        open.push(beginContainer(reader, event, lists));
+        while (!open.isEmpty()) {
+            Frame frame = open.peek();
+            DataOutputStream target = lists.open > 0 ? lists.out : out;
+            if (!reader.hasNext()) {
+                reader.end();
+                open.pop();
+                if (frame.isCompound()) {
+                    target.writeByte(NBTConstants.TYPE_END);
+                } else {
+                    lists.endList(frame.header, frame.elementType,
+                            frame.length, out);
+                }
+                continue;
+            }
+            if (frame.isCompound()) {
+                String name = reader.nextName();
+                target.writeByte(reader.peek().getValueType().getId());
+                writeString(target, name);
+            } else {
+                frame.elementType = reader.peek().getValueType();
+                frame.length++;
+            }
+            event = reader.peek();
+            if (isContainer(event)) {
+                open.push(beginContainer(reader, event, lists));
+            } else {
+                copyValuePayload(reader, target, event);
+            }
+        }
+    }
+
+    private static boolean isContainer(HnbtEvent event) {
+        return event == HnbtEvent.BEGIN_COMPOUND
+                || event == HnbtEvent.BEGIN_LIST;
+    }
+
+    private static Frame beginContainer(HnbtReader reader, HnbtEvent event,
+            ListBuffer lists) throws IOException, HNBTParsingException {
+        if (event == HnbtEvent.BEGIN_COMPOUND) {
+            reader.beginCompound();
+            return new Frame(-1);
+        }
+        reader.beginList();
+        return new Frame(lists.beginList());
+    }
+
+    private static void copyValuePayload(HnbtReader reader,
+            DataOutputStream out, HnbtEvent event)
+            throws IOException, HNBTParsingException {
+        switch (event) {
+            case BYTE_VALUE:
+                out.writeByte(reader.nextByte());
+                break;
+            case SHORT_VALUE:
+                out.writeShort(reader.nextShort());
+                break;
+            case INT_VALUE:
+                out.writeInt(reader.nextInt());
+                break;
+            case LONG_VALUE:
+                out.writeLong(reader.nextLong());
+                break;
+            case FLOAT_VALUE:
+                out.writeFloat(reader.nextFloat());
+                break;
+            case DOUBLE_VALUE:
+                out.writeDouble(reader.nextDouble());
+                break;
+            case STRING_VALUE:
+                writeString(out, reader.nextString());
+                break;
+            case BYTE_ARRAY_VALUE:
+                byte[] bytes = reader.nextByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                break;
+            case INT_ARRAY_VALUE:
+                int[] ints = reader.nextIntArray();
+                out.writeInt(ints.length);
+                for (int i : ints) {
+                    out.writeInt(i);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected event " + event);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value)
+            throws IOException {
+        byte[] bytes = value.getBytes(NBTConstants.CHARSET);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException(
+                    "String too long for NBT: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private NbtTranscoder() {
+        throw new AssertionError();
+    }
+
+}
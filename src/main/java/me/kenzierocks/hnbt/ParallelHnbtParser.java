@@ -0,0 +1,322 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.EndTag;
+import org.jnbt.ListTag;
+import org.jnbt.Tag;
+
+import me.kenzierocks.hnbt.util.StringTable;
+
+/**
+ * Parses a document on a {@link ForkJoinPool}. A structural pre-scan splits
+ * the items of the root compound, and of any large compound or list directly
+ * inside it, into slices that are parsed by separate
+ * {@link DirectHnbtParser}s. Deeper containers are parsed whole, so tasks
+ * don't nest with the document and each char is scanned at most
+ * {@link #MAX_SPLIT_DEPTH} times. The results are merged in document order,
+ * so the tree is the same as the sequential parser would build.
+ *
+ * <p>
+ * If anything goes wrong, the document is parsed again sequentially, so that
+ * errors are reported exactly as {@link DirectHnbtParser} reports them.
+ * </p>
+ */
+final class ParallelHnbtParser {
+
+    /**
+     * Containers smaller than this many chars are not split.
+     */
+    static final int DEFAULT_SLICE_SIZE = 1 << 16;
+
+    /**
+     * Only containers this close to the root are split; the root is at depth
+     * one.
+     */
+    static final int MAX_SPLIT_DEPTH = 2;
+
+    /**
+     * Thrown inside tasks to abandon the parallel parse.
+     */
+    private static final class Fallback extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        Fallback(Throwable cause) {
+            super(null, cause, false, false);
+        }
+
+        Fallback() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    private final char[] chars;
+    private final int sliceSize;
+    // shared by all slices
+    private final StringTable strings = new StringTable();
+
+    ParallelHnbtParser(char[] chars, int sliceSize) {
+        checkArgument(sliceSize > 0, "slice size must be positive");
+        this.chars = checkNotNull(chars);
+        this.sliceSize = sliceSize;
+    }
+
+    CompoundTag parseRoot(ForkJoinPool pool) throws HNBTParsingException {
+        try {
+            return pool.invoke(new RootTask());
+        } catch (Fallback e) {
+            try {
+                return new DirectHnbtParser(new HnbtReader(
+                        HnbtScanner.forDocument(this.chars)))
+                                .parseRoot();
+            } catch (IOException impossible) {
+                throw new IllegalStateException("impossible exception",
+                        impossible);
+            }
+        }
+    }
+
+    private final class RootTask extends RecursiveTask<CompoundTag> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected CompoundTag compute() {
+            char[] chars = ParallelHnbtParser.this.chars;
+            HnbtScanner scanner = new HnbtScanner(chars, 0, chars.length);
+            scanner.setStringTable(ParallelHnbtParser.this.strings);
+            HnbtReader reader = new HnbtReader(scanner);
+            int open;
+            try {
+                if (reader.peek() != HnbtEvent.BEGIN_COMPOUND) {
+                    throw new Fallback();
+                }
+                open = (int) reader.getOffset();
+                if (open == chars.length || chars[open] != '{') {
+                    throw new Fallback();
+                }
+            } catch (IOException | HNBTParsingException e) {
+                throw new Fallback(e);
+            }
+            ContainerTask root = new ContainerTask("root", true, 1, open,
+                    reader.getLine(), open - reader.getColumn());
+            CompoundTag tag = (CompoundTag) root.compute();
+            if (!isBlank(root.items.close + 1, chars.length)) {
+                throw new Fallback();
+            }
+            return tag;
+        }
+
+    }
+
+    private HnbtItems scanItems(int open, int line, int lineStart) {
+        HnbtItems items = HnbtItems.scan(this.chars, open, line, lineStart);
+        if (items == null) {
+            throw new Fallback();
+        }
+        return items;
+    }
+
+    private HnbtReader itemsReader(HnbtItems items, int first, int last,
+            boolean inCompound) {
+        return items.reader(this.chars, first, last, inCompound,
+                this.strings);
+    }
+
+    private boolean isBlank(int start, int end) {
+        return HnbtItems.isBlank(this.chars, start, end);
+    }
+
+    /**
+     * Parses a compound or list whose opening bracket is at {@code open}.
+     */
+    private final class ContainerTask extends RecursiveTask<Tag> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final boolean compound;
+        private final int depth;
+        private final int open;
+        private final int line;
+        private final int lineStart;
+        HnbtItems items;
+
+        ContainerTask(String name, boolean compound, int depth, int open,
+                int line, int lineStart) {
+            this.name = name;
+            this.compound = compound;
+            this.depth = depth;
+            this.open = open;
+            this.line = line;
+            this.lineStart = lineStart;
+        }
+
+        @Override
+        protected Tag compute() {
+            this.items = scanItems(this.open, this.line, this.lineStart);
+            HnbtItems items = this.items;
+            List<RecursiveTask<List<Tag>>> tasks = new ArrayList<>();
+            int first = 0;
+            for (int i = 0; i < items.count; i++) {
+                int size = items.ends[i] - items.starts[i];
+                if (size >= ParallelHnbtParser.this.sliceSize) {
+                    if (first < i) {
+                        tasks.add(new SliceTask(items, first, i - 1,
+                                this.compound));
+                    }
+                    tasks.add(this.depth < MAX_SPLIT_DEPTH
+                            ? new LargeItemTask(items, i, this.compound,
+                                    this.depth + 1)
+                            : new SliceTask(items, i, i, this.compound));
+                    first = i + 1;
+                } else if (items.ends[i] - items.starts[first]
+                        >= ParallelHnbtParser.this.sliceSize) {
+                    tasks.add(new SliceTask(items, first, i, this.compound));
+                    first = i + 1;
+                }
+            }
+            if (first < items.count) {
+                tasks.add(new SliceTask(items, first, items.count - 1,
+                        this.compound));
+            }
+            List<Tag> tags = new ArrayList<>(items.count);
+            if (tasks.size() == 1) {
+                tags.addAll(tasks.get(0).invoke());
+            } else {
+                for (RecursiveTask<List<Tag>> task : invokeAll(tasks)) {
+                    tags.addAll(task.join());
+                }
+            }
+            return this.compound ? toCompound(tags) : toList(tags);
+        }
+
+        private CompoundTag toCompound(List<Tag> tags) {
+            // same insertion order as DirectHnbtParser
+            Map<String, Tag> tagMap = new HashMap<>();
+            for (Tag tag : tags) {
+                tagMap.put(tag.getName(), tag);
+            }
+            return new CompoundTag(this.name, tagMap);
+        }
+
+        private ListTag toList(List<Tag> tags) {
+            Class<? extends Tag> tagClass =
+                    tags.isEmpty() ? EndTag.class : tags.get(0).getClass();
+            for (Tag tag : tags) {
+                if (tag.getClass() != tagClass) {
+                    // let the sequential parser report it
+                    throw new Fallback();
+                }
+            }
+            return new ListTag(this.name, tagClass, tags);
+        }
+
+    }
+
+    /**
+     * Parses the items {@code first} to {@code last} of a container.
+     */
+    private final class SliceTask extends RecursiveTask<List<Tag>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HnbtItems items;
+        private final int first;
+        private final int last;
+        private final boolean compound;
+
+        SliceTask(HnbtItems items, int first, int last, boolean compound) {
+            this.items = items;
+            this.first = first;
+            this.last = last;
+            this.compound = compound;
+        }
+
+        @Override
+        protected List<Tag> compute() {
+            HnbtReader reader =
+                    itemsReader(this.items, this.first, this.last,
+                            this.compound);
+            try {
+                return new DirectHnbtParser(reader)
+                        .parseItems(this.compound);
+            } catch (IOException | HNBTParsingException e) {
+                throw new Fallback(e);
+            }
+        }
+
+    }
+
+    /**
+     * Parses a single large item. If its value is a compound or list, the
+     * value is split again.
+     */
+    private final class LargeItemTask extends RecursiveTask<List<Tag>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HnbtItems items;
+        private final int index;
+        private final boolean inCompound;
+        private final int depth;
+
+        LargeItemTask(HnbtItems items, int index, boolean inCompound,
+                int depth) {
+            this.items = items;
+            this.index = index;
+            this.inCompound = inCompound;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Tag> compute() {
+            int end = this.items.ends[this.index];
+            HnbtReader reader = itemsReader(this.items, this.index,
+                    this.index, this.inCompound);
+            try {
+                String name = "";
+                if (this.inCompound) {
+                    if (reader.peek() != HnbtEvent.NAME) {
+                        throw new Fallback();
+                    }
+                    name = reader.nextName();
+                }
+                HnbtEvent event = reader.peek();
+                if (event != HnbtEvent.BEGIN_COMPOUND
+                        && event != HnbtEvent.BEGIN_LIST) {
+                    // not splittable, parse it in one go
+                    return new SliceTask(this.items, this.index, this.index,
+                            this.inCompound).compute();
+                }
+                int open = (int) reader.getOffset();
+                ContainerTask value = new ContainerTask(name,
+                        event == HnbtEvent.BEGIN_COMPOUND, this.depth, open,
+                        reader.getLine(), open - reader.getColumn());
+                Tag tag = value.compute();
+                if (!isBlank(value.items.close + 1, end)) {
+                    throw new Fallback();
+                }
+                List<Tag> result = new ArrayList<>(1);
+                result.add(tag);
+                return result;
+            } catch (IOException | HNBTParsingException e) {
+                throw new Fallback(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,293 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.ListTag;
+import org.jnbt.Tag;
+
+import me.kenzierocks.hnbt.util.IndentedOutput;
+
+/**
+ * Serializes a tree on a {@link ForkJoinPool}. Each compound or list that is
+ * heavier than the threshold has its elements rendered by separate tasks,
+ * either one by one for heavy elements, or in runs of light ones. Every task
+ * writes into its own buffer at the depth its text will end up at, and the
+ * buffers are written out in iteration order, so the text is the same as
+ * {@link HnbtSerializer} writes. Only the root and the containers directly
+ * in it are split.
+ *
+ * <p>
+ * The weight of a tag is one, plus the length of an array, plus the weight
+ * of its elements. Trees lighter than the threshold are serialized
+ * sequentially.
+ * </p>
+ */
+final class ParallelHnbtSerializer {
+
+    /**
+     * Containers lighter than this are not split.
+     */
+    static final int DEFAULT_THRESHOLD = 1 << 12;
+
+    /**
+     * Only containers this close to the root are split; the root is at depth
+     * one. Deeper ones are written by a single {@link HnbtSerializer}, so
+     * tasks don't nest with the tree.
+     */
+    static final int MAX_SPLIT_DEPTH = 2;
+
+    /**
+     * Returns the weight of {@code tag}, or any value of at least
+     * {@code limit} if it is at least that heavy.
+     */
+    static int weight(Tag tag, int limit) {
+        // iterators over the containers that are being weighed
+        Deque<Iterator<Tag>> open = new ArrayDeque<>();
+        Tag next = tag;
+        int weight = 0;
+        while (true) {
+            weight++;
+            if (weight >= limit) {
+                return weight;
+            }
+            if (next instanceof CompoundTag) {
+                open.push(((CompoundTag) next).getValue().values().iterator());
+            } else if (next instanceof ListTag) {
+                open.push(((ListTag) next).getValue().iterator());
+            } else if (next instanceof ByteArrayTag) {
+                weight += Math.min(((ByteArrayTag) next).getValue().length,
+                        limit - weight);
+            } else if (next instanceof IntArrayTag) {
+                weight += Math.min(((IntArrayTag) next).getValue().length,
+                        limit - weight);
+            }
+            while (!open.isEmpty() && !open.peek().hasNext()) {
+                open.pop();
+            }
+            if (open.isEmpty() || weight >= limit) {
+                return weight;
+            }
+            next = open.peek().next();
+        }
+    }
+
+    private final String indent;
+    private final int threshold;
+
+    ParallelHnbtSerializer(String indent, int threshold) {
+        checkArgument(threshold > 0, "threshold must be positive");
+        this.indent = IndentedOutput.checkIndent(indent);
+        this.threshold = threshold;
+    }
+
+    void writeRoot(CompoundTag nbt, Appendable target, ForkJoinPool pool)
+            throws IOException {
+        checkNotNull(nbt);
+        checkNotNull(target);
+        if (weight(nbt, this.threshold) < this.threshold) {
+            HnbtSerializer serializer = new HnbtSerializer(target, this.indent);
+            serializer.writeCompoundTag(nbt, "root");
+            serializer.flushBuffer();
+            return;
+        }
+        List<StringBuilder> parts;
+        try {
+            parts = pool.invoke(new TagTask(nbt, "root", 0, -1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (StringBuilder part : parts) {
+            target.append(part);
+        }
+    }
+
+    /**
+     * Elements of a compound or list, with their names.
+     */
+    private static final class Elements {
+
+        final List<String> names;
+        final List<Tag> tags;
+
+        Elements(Tag container) {
+            if (container instanceof CompoundTag) {
+                int size = ((CompoundTag) container).getValue().size();
+                this.names = new ArrayList<>(size);
+                this.tags = new ArrayList<>(size);
+                for (Entry<String, Tag> entry : ((CompoundTag) container)
+                        .getValue().entrySet()) {
+                    this.names.add(entry.getKey());
+                    this.tags.add(entry.getValue());
+                }
+            } else {
+                this.names = null;
+                this.tags = ((ListTag) container).getValue();
+            }
+        }
+
+        @Nullable
+        String name(int index) {
+            return this.names == null ? null : this.names.get(index);
+        }
+
+        int size() {
+            return this.tags.size();
+        }
+
+    }
+
+    private HnbtSerializer serializer(StringBuilder buffer, int depth) {
+        return new HnbtSerializer(buffer, this.indent, depth);
+    }
+
+    /**
+     * Renders one tag at {@code depth}, preceded by the separator for element
+     * {@code index} of its parent, unless {@code index} is negative.
+     */
+    private final class TagTask extends RecursiveTask<List<StringBuilder>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Tag tag;
+        @Nullable
+        private final String name;
+        private final int depth;
+        private final int index;
+
+        TagTask(Tag tag, @Nullable String name, int depth, int index) {
+            this.tag = tag;
+            this.name = name;
+            this.depth = depth;
+            this.index = index;
+        }
+
+        @Override
+        protected List<StringBuilder> compute() {
+            try {
+                return render();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<StringBuilder> render() throws IOException {
+            List<StringBuilder> parts = new ArrayList<>();
+            StringBuilder head = new StringBuilder();
+            HnbtSerializer serializer = serializer(head, this.depth);
+            if (this.index >= 0) {
+                serializer.beginElement(this.index);
+            }
+            serializer.beginContainer(this.tag, this.name);
+            serializer.flushBuffer();
+            parts.add(head);
+
+            int threshold = ParallelHnbtSerializer.this.threshold;
+            int childDepth = this.depth + 1;
+            Elements elements = new Elements(this.tag);
+            List<RecursiveTask<List<StringBuilder>>> tasks = new ArrayList<>();
+            int first = 0;
+            int runWeight = 0;
+            for (int i = 0; i < elements.size(); i++) {
+                Tag child = elements.tags.get(i);
+                checkNotNull(child);
+                int weight = weight(child, threshold);
+                if (weight >= threshold && isContainer(child)
+                        && childDepth < MAX_SPLIT_DEPTH) {
+                    if (first < i) {
+                        tasks.add(new RunTask(elements, first, i, childDepth));
+                    }
+                    tasks.add(new TagTask(child, elements.name(i), childDepth,
+                            i));
+                    first = i + 1;
+                    runWeight = 0;
+                } else {
+                    runWeight += weight;
+                    if (runWeight >= threshold) {
+                        tasks.add(new RunTask(elements, first, i + 1,
+                                childDepth));
+                        first = i + 1;
+                        runWeight = 0;
+                    }
+                }
+            }
+            if (first < elements.size()) {
+                tasks.add(new RunTask(elements, first, elements.size(),
+                        childDepth));
+            }
+            for (RecursiveTask<List<StringBuilder>> task : invokeAll(tasks)) {
+                parts.addAll(task.join());
+            }
+
+            StringBuilder tail = new StringBuilder();
+            serializer = serializer(tail, childDepth);
+            serializer.endContainer(this.tag, elements.size());
+            serializer.flushBuffer();
+            parts.add(tail);
+            return parts;
+        }
+
+    }
+
+    private static boolean isContainer(Tag tag) {
+        return tag instanceof CompoundTag || tag instanceof ListTag;
+    }
+
+    /**
+     * Renders the elements {@code from} to {@code to} (exclusive) of a
+     * container into one buffer.
+     */
+    private final class RunTask extends RecursiveTask<List<StringBuilder>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Elements elements;
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        RunTask(Elements elements, int from, int to, int depth) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<StringBuilder> compute() {
+            StringBuilder buffer = new StringBuilder();
+            HnbtSerializer serializer = serializer(buffer, this.depth);
+            try {
+                for (int i = this.from; i < this.to; i++) {
+                    serializer.beginElement(i);
+                    serializer.writeAnyTag(this.elements.tags.get(i),
+                            this.elements.name(i));
+                }
+                serializer.flushBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<StringBuilder> parts = new ArrayList<>(1);
+            parts.add(buffer);
+            return parts;
+        }
+
+    }
+
+}
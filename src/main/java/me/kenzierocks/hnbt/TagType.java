@@ -0,0 +1,108 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.EndTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.NBTConstants;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+/**
+ * The tag types of NBT, along with their HNBT keyword.
+ */
+public enum TagType {
+
+    /**
+     * The end tag. It has no HNBT keyword, and only shows up as the element
+     * type of empty lists.
+     */
+    END(null, EndTag.class, NBTConstants.TYPE_END),
+    BYTE("byte", ByteTag.class, NBTConstants.TYPE_BYTE),
+    SHORT("short", ShortTag.class, NBTConstants.TYPE_SHORT),
+    INT("int", IntTag.class, NBTConstants.TYPE_INT),
+    LONG("long", LongTag.class, NBTConstants.TYPE_LONG),
+    FLOAT("float", FloatTag.class, NBTConstants.TYPE_FLOAT),
+    DOUBLE("double", DoubleTag.class, NBTConstants.TYPE_DOUBLE),
+    BYTE_ARRAY("byte-array", ByteArrayTag.class,
+            NBTConstants.TYPE_BYTE_ARRAY),
+    STRING("string", StringTag.class, NBTConstants.TYPE_STRING),
+    LIST("list", ListTag.class, NBTConstants.TYPE_LIST),
+    COMPOUND("compound", CompoundTag.class, NBTConstants.TYPE_COMPOUND),
+    INT_ARRAY("int-array", IntArrayTag.class, NBTConstants.TYPE_INT_ARRAY);
+
+    private static final TagType[] BY_ID = new TagType[values().length];
+
+    static {
+        for (TagType type : values()) {
+            BY_ID[type.id] = type;
+        }
+    }
+
+    public static TagType fromId(int id) {
+        TagType type = fromIdOrNull(id);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown tag id: " + id);
+        }
+        return type;
+    }
+
+    @Nullable
+    static TagType fromIdOrNull(int id) {
+        return id < 0 || id >= BY_ID.length ? null : BY_ID[id];
+    }
+
+    public static TagType fromTagClass(Class<? extends Tag> tagClass) {
+        checkNotNull(tagClass);
+        for (TagType type : values()) {
+            if (type.tagClass == tagClass) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown tag class: " + tagClass);
+    }
+
+    @Nullable
+    private final String hnbtName;
+    private final Class<? extends Tag> tagClass;
+    private final int id;
+
+    TagType(@Nullable String hnbtName, Class<? extends Tag> tagClass,
+            int id) {
+        this.hnbtName = hnbtName;
+        this.tagClass = tagClass;
+        this.id = id;
+    }
+
+    /**
+     * @return the keyword used for this type in HNBT, or {@code null} for
+     *         {@link #END}
+     */
+    @Nullable
+    public String getHnbtName() {
+        return this.hnbtName;
+    }
+
+    public Class<? extends Tag> getTagClass() {
+        return this.tagClass;
+    }
+
+    /**
+     * @return the type id used in binary NBT
+     */
+    public int getId() {
+        return this.id;
+    }
+
+}
@@ -0,0 +1,22 @@
+package me.kenzierocks.hnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Wraps an {@link HNBTParsingException} where a checked exception can not be
+ * thrown, such as when a lazily parsed tag is first read.
+ */
+public class UncheckedHNBTParsingException extends RuntimeException {
+
+    private static final long serialVersionUID = 5010337270946215467L;
+
+    public UncheckedHNBTParsingException(HNBTParsingException cause) {
+        super(checkNotNull(cause).getMessage(), cause);
+    }
+
+    @Override
+    public synchronized HNBTParsingException getCause() {
+        return (HNBTParsingException) super.getCause();
+    }
+
+}
@@ -0,0 +1,60 @@
+package me.kenzierocks.hnbt.region;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import me.kenzierocks.hnbt.Compression;
+
+/**
+ * The compression of a chunk in a region file, with its id in the chunk
+ * header.
+ */
+public enum ChunkCompression {
+
+    GZIP(1, Compression.GZIP),
+    ZLIB(2, Compression.ZLIB),
+    NONE(3, Compression.NONE);
+
+    /**
+     * @throws IOException
+     *             if {@code id} is not a known compression
+     */
+    public static ChunkCompression fromId(int id) throws IOException {
+        for (ChunkCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IOException("Unknown chunk compression " + id);
+    }
+
+    private final int id;
+    private final Compression compression;
+
+    ChunkCompression(int id, Compression compression) {
+        this.id = id;
+        this.compression = compression;
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public Compression getCompression() {
+        return this.compression;
+    }
+
+    public InputStream decompress(InputStream in) throws IOException {
+        return this.compression.decompress(in);
+    }
+
+    /**
+     * Wraps {@code out}. The returned stream must be closed to finish the
+     * compressed data.
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        return this.compression.compress(out);
+    }
+
+}
@@ -0,0 +1,69 @@
+package me.kenzierocks.hnbt.region;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * The compressed NBT of one chunk in a region file.
+ */
+public final class RegionChunk {
+
+    /**
+     * Compresses the binary NBT {@code nbt}.
+     */
+    public static RegionChunk compress(byte[] nbt,
+            ChunkCompression compression) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (OutputStream out = compression.compress(data)) {
+            out.write(nbt);
+        }
+        return new RegionChunk(compression, data.toByteArray());
+    }
+
+    private final ChunkCompression compression;
+    private final byte[] data;
+
+    /**
+     * @param data
+     *            the compressed NBT, which is not copied
+     */
+    public RegionChunk(ChunkCompression compression, byte[] data) {
+        this.compression = checkNotNull(compression);
+        this.data = checkNotNull(data);
+    }
+
+    public ChunkCompression getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * Returns the compressed NBT. The array must not be modified.
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Returns a stream of the binary NBT.
+     */
+    public InputStream openNbt() throws IOException {
+        return this.compression.decompress(new ByteArrayInputStream(this.data));
+    }
+
+    /**
+     * Returns the binary NBT.
+     */
+    public byte[] decompress() throws IOException {
+        try (InputStream in = openNbt()) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+}
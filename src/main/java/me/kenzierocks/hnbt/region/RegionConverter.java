@@ -0,0 +1,154 @@
+package me.kenzierocks.hnbt.region;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import me.kenzierocks.hnbt.HNBTParsingException;
+import me.kenzierocks.hnbt.NbtTranscoder;
+
+/**
+ * Converts the chunks of a region file to and from HNBT, one task per chunk
+ * on the given executor. Chunks are streamed through {@link NbtTranscoder},
+ * so no tags are created, and the decompressed NBT of a chunk is never held
+ * in memory when converting to HNBT.
+ *
+ * <p>
+ * HNBT always names the root tag {@code root}. When converting back, the
+ * root tag is given an empty name, as Minecraft writes it.
+ * </p>
+ */
+public final class RegionConverter {
+
+    private final ExecutorService executor;
+
+    /**
+     * @param executor
+     *            runs the chunk conversions, and bounds how many run at once
+     */
+    public RegionConverter(ExecutorService executor) {
+        this.executor = checkNotNull(executor);
+    }
+
+    /**
+     * Returns the HNBT of each chunk in {@code region}, by index, with
+     * {@code null} for missing chunks.
+     */
+    public String[] toHnbt(RegionFile region) throws IOException {
+        checkNotNull(region);
+        List<Future<String>> futures = new ArrayList<>(RegionFile.CHUNK_COUNT);
+        for (int i = 0; i < RegionFile.CHUNK_COUNT; i++) {
+            RegionChunk chunk = region.getChunk(i);
+            futures.add(chunk == null ? null
+                    : this.executor.submit(() -> toHnbt(chunk)));
+        }
+        String[] hnbt = new String[RegionFile.CHUNK_COUNT];
+        try {
+            for (int i = 0; i < hnbt.length; i++) {
+                hnbt[i] = await(futures.get(i), i);
+            }
+        } catch (HNBTParsingException impossible) {
+            throw new IllegalStateException("impossible exception",
+                    impossible);
+        } finally {
+            cancelAll(futures);
+        }
+        return hnbt;
+    }
+
+    private static String toHnbt(RegionChunk chunk) throws IOException {
+        StringBuilder hnbt = new StringBuilder();
+        try (InputStream nbt = chunk.openNbt()) {
+            NbtTranscoder.transcodeNbtToHnbt(nbt, hnbt);
+        }
+        return hnbt.toString();
+    }
+
+    /**
+     * Creates a region from the HNBT of each chunk, by index, where
+     * {@code null} means a missing chunk. The timestamps are all zero.
+     */
+    public RegionFile fromHnbt(String[] hnbt, ChunkCompression compression)
+            throws IOException, HNBTParsingException {
+        checkArgument(hnbt.length == RegionFile.CHUNK_COUNT,
+                "expected %s chunks, got %s", RegionFile.CHUNK_COUNT,
+                hnbt.length);
+        checkNotNull(compression);
+        List<Future<RegionChunk>> futures =
+                new ArrayList<>(RegionFile.CHUNK_COUNT);
+        for (String chunk : hnbt) {
+            futures.add(chunk == null ? null
+                    : this.executor.submit(() -> toChunk(chunk, compression)));
+        }
+        RegionFile region = new RegionFile();
+        try {
+            for (int i = 0; i < hnbt.length; i++) {
+                region.setChunk(i, await(futures.get(i), i));
+            }
+        } finally {
+            cancelAll(futures);
+        }
+        return region;
+    }
+
+    private static RegionChunk toChunk(String hnbt,
+            ChunkCompression compression)
+            throws IOException, HNBTParsingException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (OutputStream nbt = compression.compress(data)) {
+            NbtTranscoder.transcodeHnbtToNbt(new StringReader(hnbt), nbt, "");
+        }
+        return new RegionChunk(compression, data.toByteArray());
+    }
+
+    /**
+     * Waits for the conversion of chunk {@code index}, rethrowing its
+     * exception. Errors in a chunk's HNBT are reported with its index.
+     */
+    private static <T> T await(Future<T> future, int index)
+            throws IOException, HNBTParsingException {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting chunk "
+                    + index, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HNBTParsingException) {
+                throw new HNBTParsingException(
+                        "Invalid HNBT for chunk " + index, cause);
+            } else if (cause instanceof IOException) {
+                throw new IOException("Failed to convert chunk " + index,
+                        cause);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+}
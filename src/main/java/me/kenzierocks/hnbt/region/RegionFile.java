@@ -0,0 +1,194 @@
+package me.kenzierocks.hnbt.region;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.annotation.Nullable;
+
+/**
+ * The chunks of an Anvil region file, which holds up to 32 by 32 chunks.
+ *
+ * <p>
+ * A region file starts with two 4 KiB tables with one big-endian entry per
+ * chunk: the location of the chunk, as a three byte sector offset and a one
+ * byte sector count, and its timestamp. Each chunk starts with its length
+ * and compression id, and is padded to a whole number of sectors.
+ * </p>
+ */
+public final class RegionFile {
+
+    public static final int SIZE = 32;
+    public static final int CHUNK_COUNT = SIZE * SIZE;
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int HEADER_SECTORS = 2;
+    private static final int MAX_SECTORS_PER_CHUNK = 0xFF;
+    private static final int CHUNK_HEADER_SIZE = 5;
+    // set in the compression id of chunks stored in separate files
+    private static final int EXTERNAL_FLAG = 0x80;
+
+    /**
+     * Returns the index of the chunk at {@code x}, {@code z}, which are taken
+     * relative to the region.
+     */
+    public static int index(int x, int z) {
+        return (x & (SIZE - 1)) + (z & (SIZE - 1)) * SIZE;
+    }
+
+    public static RegionFile read(Path file) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    /**
+     * Reads a region file from the remaining bytes of {@code region}. The
+     * chunks are copied, and the position of the buffer is not changed.
+     */
+    public static RegionFile read(ByteBuffer region) throws IOException {
+        ByteBuffer buffer = region.slice().order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < HEADER_SECTORS * SECTOR_SIZE) {
+            throw new IOException("Region file is shorter than its header");
+        }
+        RegionFile file = new RegionFile();
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            int location = buffer.getInt(i * 4);
+            file.timestamps[i] = buffer.getInt(SECTOR_SIZE + i * 4);
+            if (location != 0) {
+                file.chunks[i] = readChunk(buffer, i, location >>> 8,
+                        location & MAX_SECTORS_PER_CHUNK);
+            }
+        }
+        return file;
+    }
+
+    private static RegionChunk readChunk(ByteBuffer buffer, int index,
+            int offset, int sectors) throws IOException {
+        long start = (long) offset * SECTOR_SIZE;
+        long end = start + (long) sectors * SECTOR_SIZE;
+        if (offset < HEADER_SECTORS || sectors == 0
+                || start + CHUNK_HEADER_SIZE > buffer.limit()) {
+            throw new IOException("Chunk " + index
+                    + " has an invalid location: sector " + offset + ", "
+                    + sectors + " sectors");
+        }
+        int length = buffer.getInt((int) start);
+        int compressionId = buffer.get((int) start + 4) & 0xFF;
+        if ((compressionId & EXTERNAL_FLAG) != 0) {
+            throw new IOException(
+                    "Chunk " + index + " is stored externally, which is "
+                            + "not supported");
+        }
+        // the length includes the compression id
+        if (length < 1 || start + 4 + length > Math.min(end, buffer.limit())) {
+            throw new IOException(
+                    "Chunk " + index + " has an invalid length: " + length);
+        }
+        ChunkCompression compression = ChunkCompression.fromId(compressionId);
+        byte[] data = new byte[length - 1];
+        ByteBuffer chunk = buffer.duplicate();
+        chunk.position((int) start + CHUNK_HEADER_SIZE);
+        chunk.get(data);
+        return new RegionChunk(compression, data);
+    }
+
+    private final RegionChunk[] chunks = new RegionChunk[CHUNK_COUNT];
+    private final int[] timestamps = new int[CHUNK_COUNT];
+
+    @Nullable
+    public RegionChunk getChunk(int index) {
+        checkElementIndex(index, CHUNK_COUNT);
+        return this.chunks[index];
+    }
+
+    public void setChunk(int index, @Nullable RegionChunk chunk) {
+        checkElementIndex(index, CHUNK_COUNT);
+        this.chunks[index] = chunk;
+    }
+
+    /**
+     * Returns the last modification time of a chunk, in seconds since the
+     * epoch.
+     */
+    public int getTimestamp(int index) {
+        checkElementIndex(index, CHUNK_COUNT);
+        return this.timestamps[index];
+    }
+
+    public void setTimestamp(int index, int timestamp) {
+        checkElementIndex(index, CHUNK_COUNT);
+        this.timestamps[index] = timestamp;
+    }
+
+    public int getChunkCount() {
+        int count = 0;
+        for (RegionChunk chunk : this.chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the region, with the chunks in index order right after the
+     * header.
+     *
+     * @throws IOException
+     *             if a chunk does not fit in 255 sectors
+     */
+    public void write(OutputStream out) throws IOException {
+        checkNotNull(out);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+        int sector = HEADER_SECTORS;
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            header.putInt(SECTOR_SIZE + i * 4, this.timestamps[i]);
+            RegionChunk chunk = this.chunks[i];
+            if (chunk == null) {
+                continue;
+            }
+            int sectors = sectorCount(chunk);
+            if (sectors > MAX_SECTORS_PER_CHUNK) {
+                throw new IOException("Chunk " + i + " needs " + sectors
+                        + " sectors, but at most " + MAX_SECTORS_PER_CHUNK
+                        + " fit in a region file");
+            }
+            header.putInt(i * 4, (sector << 8) | sectors);
+            sector += sectors;
+        }
+        out.write(header.array());
+
+        ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        byte[] padding = new byte[SECTOR_SIZE];
+        for (RegionChunk chunk : this.chunks) {
+            if (chunk == null) {
+                continue;
+            }
+            byte[] data = chunk.getData();
+            chunkHeader.clear();
+            chunkHeader.putInt(data.length + 1);
+            chunkHeader.put((byte) chunk.getCompression().getId());
+            out.write(chunkHeader.array());
+            out.write(data);
+            int used = CHUNK_HEADER_SIZE + data.length;
+            out.write(padding, 0, sectorCount(chunk) * SECTOR_SIZE - used);
+        }
+    }
+
+    private static int sectorCount(RegionChunk chunk) {
+        int size = CHUNK_HEADER_SIZE + chunk.getData().length;
+        return (size + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+}
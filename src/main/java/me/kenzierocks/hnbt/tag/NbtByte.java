@@ -0,0 +1,63 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtByte extends NbtTag {
+
+    private static final NbtByte[] CACHE = new NbtByte[256];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new NbtByte((byte) (i + Byte.MIN_VALUE));
+        }
+    }
+
+    public static NbtByte of(byte value) {
+        return CACHE[value - Byte.MIN_VALUE];
+    }
+
+    private final byte value;
+
+    private NbtByte(byte value) {
+        this.value = value;
+    }
+
+    public byte getByte() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.BYTE;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.BYTE.getId(), this.value);
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtByte && ((NbtByte) obj).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+
+}
@@ -0,0 +1,82 @@
+package me.kenzierocks.hnbt.tag;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtByteArray extends NbtTag {
+
+    /**
+     * Creates a tag with a copy of {@code values}.
+     */
+    public static NbtByteArray of(byte... values) {
+        return new NbtByteArray(values.clone());
+    }
+
+    /**
+     * Creates a tag that uses {@code values} without copying it. The array
+     * must not be changed afterwards.
+     */
+    static NbtByteArray wrap(byte[] values) {
+        return new NbtByteArray(checkNotNull(values));
+    }
+
+    private final byte[] values;
+
+    private NbtByteArray(byte[] values) {
+        this.values = values;
+    }
+
+    public int length() {
+        return this.values.length;
+    }
+
+    public byte get(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * @return a copy of the values
+     */
+    public byte[] toArray() {
+        return this.values.clone();
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.BYTE_ARRAY;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.BYTE_ARRAY.getId(),
+                Fingerprints.ofBytes(this.values));
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtByteArray
+                && Arrays.equals(((NbtByteArray) obj).values, this.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.values);
+    }
+
+}
@@ -0,0 +1,254 @@
+package me.kenzierocks.hnbt.tag;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+
+/**
+ * A compound, stored as exactly sized arrays of names and values in the
+ * order they were added. Compounds with more than {@value #LINEAR_MAX}
+ * entries also get an open-addressed index from name to position; smaller
+ * ones are searched linearly.
+ *
+ * <p>
+ * Compounds are equal if they have the same entries, in any order.
+ * </p>
+ */
+public final class NbtCompound extends NbtTag {
+
+    private static final int LINEAR_MAX = 8;
+    private static final String[] NO_NAMES = new String[0];
+    private static final NbtTag[] NO_VALUES = new NbtTag[0];
+
+    public static final NbtCompound EMPTY =
+            new NbtCompound(NO_NAMES, NO_VALUES);
+
+    public static Builder builder() {
+        return new Builder(LINEAR_MAX);
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(Math.max(expectedSize, 1));
+    }
+
+    /**
+     * Collects the entries of a compound. Adding a name again replaces its
+     * value, but keeps its position.
+     */
+    public static final class Builder {
+
+        private String[] names;
+        private NbtTag[] values;
+        private int size;
+        // position of each name, once there are too many to search
+        @Nullable
+        private Map<String, Integer> positions;
+
+        private Builder(int capacity) {
+            this.names = new String[capacity];
+            this.values = new NbtTag[capacity];
+        }
+
+        public Builder put(String name, NbtTag value) {
+            checkNotNull(name);
+            checkNotNull(value);
+            int position = find(name);
+            if (position >= 0) {
+                this.values[position] = value;
+                return this;
+            }
+            if (this.size == this.names.length) {
+                int capacity = this.size * 2;
+                this.names = Arrays.copyOf(this.names, capacity);
+                this.values = Arrays.copyOf(this.values, capacity);
+            }
+            this.names[this.size] = name;
+            this.values[this.size] = value;
+            if (this.positions != null) {
+                this.positions.put(name, this.size);
+            } else if (this.size == LINEAR_MAX) {
+                this.positions = new HashMap<>();
+                for (int i = 0; i <= this.size; i++) {
+                    this.positions.put(this.names[i], i);
+                }
+            }
+            this.size++;
+            return this;
+        }
+
+        private int find(String name) {
+            if (this.positions != null) {
+                Integer position = this.positions.get(name);
+                return position == null ? -1 : position;
+            }
+            for (int i = 0; i < this.size; i++) {
+                if (this.names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public NbtCompound build() {
+            if (this.size == 0) {
+                return EMPTY;
+            }
+            return new NbtCompound(Arrays.copyOf(this.names, this.size),
+                    Arrays.copyOf(this.values, this.size));
+        }
+
+    }
+
+    private final String[] names;
+    private final NbtTag[] values;
+    // positions plus one, with zero for empty slots
+    @Nullable
+    private final int[] index;
+    // zero until it is computed
+    private volatile long fingerprint;
+
+    private NbtCompound(String[] names, NbtTag[] values) {
+        this.names = names;
+        this.values = values;
+        this.index = names.length > LINEAR_MAX ? buildIndex(names) : null;
+    }
+
+    private static int[] buildIndex(String[] names) {
+        // at most half full
+        int[] index = new int[Integer.highestOneBit(names.length) * 4];
+        int mask = index.length - 1;
+        for (int i = 0; i < names.length; i++) {
+            int slot = spread(names[i].hashCode()) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+        return index;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * @return the position of the entry named {@code name}, or -1
+     */
+    public int indexOf(String name) {
+        int[] index = this.index;
+        if (index == null) {
+            for (int i = 0; i < this.names.length; i++) {
+                if (this.names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; index[slot] != 0;
+                slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (this.names[position].equals(name)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    public NbtTag get(String name) {
+        int position = indexOf(name);
+        return position < 0 ? null : this.values[position];
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    public String getName(int position) {
+        return this.names[position];
+    }
+
+    public NbtTag getValue(int position) {
+        return this.values[position];
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.COMPOUND;
+    }
+
+    @Override
+    public long fingerprint() {
+        long fingerprint = this.fingerprint;
+        return fingerprint != 0 ? fingerprint
+                : NbtTags.fingerprintContainer(this);
+    }
+
+    /**
+     * @return the fingerprint, or zero if it is not known yet
+     */
+    long cachedFingerprint() {
+        return this.fingerprint;
+    }
+
+    void cacheFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        NbtTags.writeContainer(this, writer);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof NbtCompound)) {
+            return false;
+        }
+        NbtCompound other = (NbtCompound) obj;
+        if (other.size() != size()) {
+            return false;
+        }
+        for (int i = 0; i < this.names.length; i++) {
+            if (!this.values[i].equals(other.get(this.names[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < this.names.length; i++) {
+            hash += this.names[i].hashCode() ^ this.values[i].hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < this.names.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(this.names[i]).append('=').append(this.values[i]);
+        }
+        return out.append('}').toString();
+    }
+
+}
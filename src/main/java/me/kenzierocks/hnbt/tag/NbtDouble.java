@@ -0,0 +1,58 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtDouble extends NbtTag {
+
+    public static NbtDouble of(double value) {
+        return new NbtDouble(value);
+    }
+
+    private final double value;
+
+    private NbtDouble(double value) {
+        this.value = value;
+    }
+
+    public double getDouble() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.DOUBLE;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.DOUBLE.getId(),
+                Double.doubleToLongBits(this.value));
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtDouble
+                && Double.doubleToLongBits(((NbtDouble) obj).value) == Double
+                        .doubleToLongBits(this.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(this.value);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+
+}
@@ -0,0 +1,58 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtFloat extends NbtTag {
+
+    public static NbtFloat of(float value) {
+        return new NbtFloat(value);
+    }
+
+    private final float value;
+
+    private NbtFloat(float value) {
+        this.value = value;
+    }
+
+    public float getFloat() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.FLOAT;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.FLOAT.getId(),
+                Float.floatToIntBits(this.value));
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtFloat
+                && Float.floatToIntBits(((NbtFloat) obj).value) == Float
+                        .floatToIntBits(this.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Float.hashCode(this.value);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+
+}
@@ -0,0 +1,69 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtInt extends NbtTag {
+
+    // small values are shared, like Integer.valueOf does
+    private static final int CACHE_LOW = -128;
+    private static final NbtInt[] CACHE = new NbtInt[256];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new NbtInt(i + CACHE_LOW);
+        }
+    }
+
+    public static NbtInt of(int value) {
+        int index = value - CACHE_LOW;
+        if (index >= 0 && index < CACHE.length) {
+            return CACHE[index];
+        }
+        return new NbtInt(value);
+    }
+
+    private final int value;
+
+    private NbtInt(int value) {
+        this.value = value;
+    }
+
+    public int getInt() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.INT;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.INT.getId(), this.value);
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtInt && ((NbtInt) obj).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+
+}
@@ -0,0 +1,82 @@
+package me.kenzierocks.hnbt.tag;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtIntArray extends NbtTag {
+
+    /**
+     * Creates a tag with a copy of {@code values}.
+     */
+    public static NbtIntArray of(int... values) {
+        return new NbtIntArray(values.clone());
+    }
+
+    /**
+     * Creates a tag that uses {@code values} without copying it. The array
+     * must not be changed afterwards.
+     */
+    static NbtIntArray wrap(int[] values) {
+        return new NbtIntArray(checkNotNull(values));
+    }
+
+    private final int[] values;
+
+    private NbtIntArray(int[] values) {
+        this.values = values;
+    }
+
+    public int length() {
+        return this.values.length;
+    }
+
+    public int get(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * @return a copy of the values
+     */
+    public int[] toArray() {
+        return this.values.clone();
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.INT_ARRAY;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.INT_ARRAY.getId(),
+                Fingerprints.ofInts(this.values));
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtIntArray
+                && Arrays.equals(((NbtIntArray) obj).values, this.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.values);
+    }
+
+}
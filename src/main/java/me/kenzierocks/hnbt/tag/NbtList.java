@@ -0,0 +1,141 @@
+package me.kenzierocks.hnbt.tag;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+
+/**
+ * A list of tags of one type, backed by an array.
+ */
+public final class NbtList extends NbtTag {
+
+    private static final NbtTag[] NO_ELEMENTS = new NbtTag[0];
+
+    /**
+     * The empty list, whose element type is {@link TagType#END END}.
+     */
+    public static final NbtList EMPTY = new NbtList(TagType.END, NO_ELEMENTS);
+
+    /**
+     * @throws IllegalArgumentException
+     *             if an element is not of type {@code elementType}
+     */
+    public static NbtList of(TagType elementType,
+            List<? extends NbtTag> elements) {
+        checkNotNull(elementType);
+        NbtTag[] array = elements.toArray(new NbtTag[elements.size()]);
+        for (NbtTag element : array) {
+            checkArgument(element.getType() == elementType,
+                    "Element of type %s in a list of %s", element.getType(),
+                    elementType);
+        }
+        if (array.length == 0 && elementType == TagType.END) {
+            return EMPTY;
+        }
+        return new NbtList(elementType, array);
+    }
+
+    /**
+     * Creates a list whose element type is the type of the first element.
+     */
+    public static NbtList of(NbtTag... elements) {
+        if (elements.length == 0) {
+            return EMPTY;
+        }
+        return of(elements[0].getType(), Arrays.asList(elements));
+    }
+
+    /**
+     * Creates a list that uses {@code elements} without copying or checking
+     * it. The array must not be changed afterwards.
+     */
+    static NbtList wrap(TagType elementType, NbtTag[] elements) {
+        return new NbtList(elementType, elements);
+    }
+
+    private final TagType elementType;
+    private final NbtTag[] elements;
+    // zero until it is computed
+    private volatile long fingerprint;
+
+    private NbtList(TagType elementType, NbtTag[] elements) {
+        this.elementType = elementType;
+        this.elements = elements;
+    }
+
+    public TagType getElementType() {
+        return this.elementType;
+    }
+
+    public int size() {
+        return this.elements.length;
+    }
+
+    public NbtTag get(int index) {
+        return this.elements[index];
+    }
+
+    /**
+     * @return an unmodifiable view of the elements
+     */
+    public List<NbtTag> asList() {
+        return Collections.unmodifiableList(Arrays.asList(this.elements));
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.LIST;
+    }
+
+    @Override
+    public long fingerprint() {
+        long fingerprint = this.fingerprint;
+        return fingerprint != 0 ? fingerprint
+                : NbtTags.fingerprintContainer(this);
+    }
+
+    /**
+     * @return the fingerprint, or zero if it is not known yet
+     */
+    long cachedFingerprint() {
+        return this.fingerprint;
+    }
+
+    void cacheFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        NbtTags.writeContainer(this, writer);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof NbtList)) {
+            return false;
+        }
+        NbtList other = (NbtList) obj;
+        return other.elementType == this.elementType
+                && Arrays.equals(other.elements, this.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.elementType.hashCode() * 31
+                + Arrays.hashCode(this.elements);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.elements);
+    }
+
+}
@@ -0,0 +1,55 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtLong extends NbtTag {
+
+    public static NbtLong of(long value) {
+        return new NbtLong(value);
+    }
+
+    private final long value;
+
+    private NbtLong(long value) {
+        this.value = value;
+    }
+
+    public long getLong() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.LONG;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.LONG.getId(), this.value);
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtLong && ((NbtLong) obj).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.value);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+
+}
@@ -0,0 +1,69 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtShort extends NbtTag {
+
+    // small values are shared, like Integer.valueOf does
+    private static final int CACHE_LOW = -128;
+    private static final NbtShort[] CACHE = new NbtShort[256];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new NbtShort((short) (i + CACHE_LOW));
+        }
+    }
+
+    public static NbtShort of(short value) {
+        int index = value - CACHE_LOW;
+        if (index >= 0 && index < CACHE.length) {
+            return CACHE[index];
+        }
+        return new NbtShort(value);
+    }
+
+    private final short value;
+
+    private NbtShort(short value) {
+        this.value = value;
+    }
+
+    public short getShort() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.SHORT;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.SHORT.getId(), this.value);
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtShort && ((NbtShort) obj).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+
+}
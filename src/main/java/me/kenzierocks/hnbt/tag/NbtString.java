@@ -0,0 +1,61 @@
+package me.kenzierocks.hnbt.tag;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+public final class NbtString extends NbtTag {
+
+    public static final NbtString EMPTY = new NbtString("");
+
+    public static NbtString of(String value) {
+        return value.isEmpty() ? EMPTY : new NbtString(value);
+    }
+
+    private final String value;
+
+    private NbtString(String value) {
+        this.value = checkNotNull(value);
+    }
+
+    public String getString() {
+        return this.value;
+    }
+
+    @Override
+    public TagType getType() {
+        return TagType.STRING;
+    }
+
+    @Override
+    public long fingerprint() {
+        return Fingerprints.finish(TagType.STRING.getId(),
+                Fingerprints.ofString(this.value));
+    }
+
+    @Override
+    void write(HnbtWriter writer) throws IOException {
+        writer.value(this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NbtString
+                && ((NbtString) obj).value.equals(this.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return '"' + this.value + '"';
+    }
+
+}
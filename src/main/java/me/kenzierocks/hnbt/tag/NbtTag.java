@@ -0,0 +1,39 @@
+package me.kenzierocks.hnbt.tag;
+
+import java.io.IOException;
+
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+
+/**
+ * An immutable tag. Unlike JNBT tags, tags do not know their own name: the
+ * name of a compound entry is only stored in the compound, and list elements
+ * have none. Numbers are stored unboxed.
+ *
+ * <p>
+ * Tags are compared by value. {@link NbtTags} converts between these tags,
+ * HNBT and JNBT.
+ * </p>
+ */
+public abstract class NbtTag {
+
+    NbtTag() {
+    }
+
+    public abstract TagType getType();
+
+    /**
+     * Returns a 64-bit fingerprint of the type and contents of this tag, the
+     * same as {@link me.kenzierocks.hnbt.NbtDiff#fingerprint(org.jnbt.Tag)
+     * NbtDiff.fingerprint} gives the equivalent JNBT tag. Equal tags have
+     * equal fingerprints. Compounds and lists compute theirs once, and keep
+     * it.
+     */
+    public abstract long fingerprint();
+
+    /**
+     * Writes the value of this tag. A preceding name must already be written.
+     */
+    abstract void write(HnbtWriter writer) throws IOException;
+
+}
@@ -0,0 +1,651 @@
+package me.kenzierocks.hnbt.tag;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+import com.google.common.collect.MapMaker;
+
+import me.kenzierocks.hnbt.HNBTParsingException;
+import me.kenzierocks.hnbt.HnbtEvent;
+import me.kenzierocks.hnbt.HnbtReader;
+import me.kenzierocks.hnbt.HnbtWriter;
+import me.kenzierocks.hnbt.TagType;
+import me.kenzierocks.hnbt.util.Fingerprints;
+
+/**
+ * Reads and writes {@link NbtTag}s as HNBT, and adapts them to and from
+ * JNBT.
+ *
+ * <p>
+ * {@link #toJnbt(NbtCompound, String) toJnbt} returns views: JNBT compounds
+ * and lists that convert their elements when they are first read.
+ * {@link #fromJnbt(Tag) fromJnbt} unwraps such views without copying, and
+ * copies anything else. JNBT arrays can be changed, so arrays are copied in
+ * both directions. A view whose arrays were changed still unwraps to the
+ * original native tags.
+ * </p>
+ */
+public final class NbtTags {
+
+    // the native tag behind each JNBT view, held as long as the view is
+    private static final ConcurrentMap<Tag, NbtTag> VIEWS =
+            new MapMaker().weakKeys().makeMap();
+
+    public static NbtCompound parse(String hnbt) throws HNBTParsingException {
+        try {
+            return read(new HnbtReader(new StringReader(hnbt)));
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+    }
+
+    /**
+     * Reads a whole document. Compounds and lists are built with exactly
+     * sized arrays.
+     */
+    public static NbtCompound read(HnbtReader reader)
+            throws IOException, HNBTParsingException {
+        NbtCompound root = (NbtCompound) readValue(reader);
+        // checks for trailing input
+        reader.peek();
+        return root;
+    }
+
+    /**
+     * A compound or list that is being read.
+     */
+    private static final class Frame {
+
+        @Nullable
+        final NbtCompound.Builder compound;
+        @Nullable
+        final List<NbtTag> elements;
+        // the name of the entry that is added next
+        String name = "";
+        TagType elementType = TagType.END;
+
+        Frame(boolean compound) {
+            this.compound = compound ? NbtCompound.builder() : null;
+            this.elements = compound ? null : new ArrayList<>();
+        }
+
+        void add(NbtTag tag) {
+            if (this.compound != null) {
+                this.compound.put(this.name, tag);
+            } else {
+                this.elementType = tag.getType();
+                this.elements.add(tag);
+            }
+        }
+
+        NbtTag build() {
+            if (this.compound != null) {
+                return this.compound.build();
+            }
+            if (this.elements.isEmpty()) {
+                return NbtList.EMPTY;
+            }
+            return NbtList.wrap(this.elementType,
+                    this.elements.toArray(new NbtTag[this.elements.size()]));
+        }
+
+    }
+
+    /**
+     * Reads a value with a stack of the compounds and lists that are open, so
+     * the depth is only limited by the reader's limits, and not by the
+     * thread's stack.
+     */
+    private static NbtTag readValue(HnbtReader reader)
+            throws IOException, HNBTParsingException {
+        HnbtEvent event = reader.peek();
+        if (!isContainer(event)) {
+            return readScalar(reader, event);
+        }
+        Deque<Frame> open = new ArrayDeque<>();
+        open.push(beginContainer(reader, event));
+        while (true) {
+            Frame frame = open.peek();
+            if (!reader.hasNext()) {
+                reader.end();
+                NbtTag tag = frame.build();
+                open.pop();
+                if (open.isEmpty()) {
+                    return tag;
+                }
+                open.peek().add(tag);
+                continue;
+            }
+            if (frame.compound != null) {
+                frame.name = reader.nextName();
+            }
+            event = reader.peek();
+            if (isContainer(event)) {
+                open.push(beginContainer(reader, event));
+            } else {
+                frame.add(readScalar(reader, event));
+            }
+        }
+    }
+
+    private static boolean isContainer(HnbtEvent event) {
+        return event == HnbtEvent.BEGIN_COMPOUND
+                || event == HnbtEvent.BEGIN_LIST;
+    }
+
+    private static Frame beginContainer(HnbtReader reader, HnbtEvent event)
+            throws IOException, HNBTParsingException {
+        if (event == HnbtEvent.BEGIN_COMPOUND) {
+            reader.beginCompound();
+            return new Frame(true);
+        }
+        reader.beginList();
+        return new Frame(false);
+    }
+
+    private static NbtTag readScalar(HnbtReader reader, HnbtEvent event)
+            throws IOException, HNBTParsingException {
+        switch (event) {
+            case BYTE_VALUE:
+                return NbtByte.of(reader.nextByte());
+            case SHORT_VALUE:
+                return NbtShort.of(reader.nextShort());
+            case INT_VALUE:
+                return NbtInt.of(reader.nextInt());
+            case LONG_VALUE:
+                return NbtLong.of(reader.nextLong());
+            case FLOAT_VALUE:
+                return NbtFloat.of(reader.nextFloat());
+            case DOUBLE_VALUE:
+                return NbtDouble.of(reader.nextDouble());
+            case STRING_VALUE:
+                return NbtString.of(reader.nextString());
+            case BYTE_ARRAY_VALUE:
+                return NbtByteArray.wrap(reader.nextByteArray());
+            case INT_ARRAY_VALUE:
+                return NbtIntArray.wrap(reader.nextIntArray());
+            default:
+                throw new IllegalStateException("Unexpected event " + event);
+        }
+    }
+
+    public static String toHnbt(NbtCompound root) {
+        StringBuilder hnbt = new StringBuilder();
+        try {
+            write(root, new HnbtWriter(hnbt));
+        } catch (IOException e) {
+            throw new IllegalStateException("impossible exception", e);
+        }
+        return hnbt.toString();
+    }
+
+    /**
+     * Writes {@code root} as a whole document, and flushes the writer.
+     */
+    public static void write(NbtCompound root, HnbtWriter writer)
+            throws IOException {
+        checkNotNull(writer);
+        root.write(writer);
+        writer.flush();
+    }
+
+    /**
+     * A position in a compound or list that is being written or fingerprinted.
+     */
+    private static final class Cursor {
+
+        @Nullable
+        final NbtCompound compound;
+        @Nullable
+        final NbtList list;
+        int position;
+        // the fingerprint so far
+        long fingerprint;
+
+        Cursor(NbtTag container) {
+            this.compound = container instanceof NbtCompound
+                    ? (NbtCompound) container : null;
+            this.list = this.compound == null ? (NbtList) container : null;
+            this.fingerprint = this.compound != null ? this.compound.size()
+                    : this.list.getElementType().getId();
+        }
+
+        boolean hasNext() {
+            return this.position < (this.compound != null
+                    ? this.compound.size() : this.list.size());
+        }
+
+        NbtTag next() {
+            int current = this.position++;
+            return this.compound != null ? this.compound.getValue(current)
+                    : this.list.get(current);
+        }
+
+        /**
+         * @return the name of the entry that {@link #next()} returned last
+         */
+        String name() {
+            return this.compound.getName(this.position - 1);
+        }
+
+        void addFingerprint(long fingerprint) {
+            this.fingerprint = this.compound != null
+                    ? Fingerprints.addEntry(this.fingerprint, name(),
+                            fingerprint)
+                    : Fingerprints.addElement(this.fingerprint, fingerprint);
+        }
+
+        /**
+         * Finishes the fingerprint of the container, and keeps it there.
+         */
+        long finishFingerprint() {
+            if (this.compound != null) {
+                long fingerprint = Fingerprints.finish(
+                        TagType.COMPOUND.getId(), this.fingerprint);
+                this.compound.cacheFingerprint(fingerprint);
+                return fingerprint;
+            }
+            long fingerprint =
+                    Fingerprints.finish(TagType.LIST.getId(), this.fingerprint);
+            this.list.cacheFingerprint(fingerprint);
+            return fingerprint;
+        }
+
+    }
+
+    private static boolean isContainer(NbtTag tag) {
+        return tag instanceof NbtCompound || tag instanceof NbtList;
+    }
+
+    private static boolean hasFingerprint(NbtTag container) {
+        return (container instanceof NbtCompound
+                ? ((NbtCompound) container).cachedFingerprint()
+                : ((NbtList) container).cachedFingerprint()) != 0;
+    }
+
+    /**
+     * Writes a compound or list with a stack of the containers that are open,
+     * so the depth is not limited by the thread's stack.
+     */
+    static void writeContainer(NbtTag container, HnbtWriter writer)
+            throws IOException {
+        Deque<Cursor> open = new ArrayDeque<>();
+        open.push(beginContainer(container, writer));
+        while (!open.isEmpty()) {
+            Cursor cursor = open.peek();
+            if (!cursor.hasNext()) {
+                writer.end();
+                open.pop();
+                continue;
+            }
+            NbtTag element = cursor.next();
+            if (cursor.compound != null) {
+                writer.name(cursor.name());
+            }
+            if (isContainer(element)) {
+                open.push(beginContainer(element, writer));
+            } else {
+                element.write(writer);
+            }
+        }
+    }
+
+    private static Cursor beginContainer(NbtTag container, HnbtWriter writer)
+            throws IOException {
+        Cursor cursor = new Cursor(container);
+        if (cursor.compound != null) {
+            writer.beginCompound();
+        } else {
+            writer.beginList(cursor.list.getElementType());
+        }
+        return cursor;
+    }
+
+    /**
+     * Computes the fingerprint of a compound or list, and keeps it in every
+     * container that did not have one yet. Containers that already have one
+     * are not walked again, and the rest are walked with a stack, so the
+     * depth is not limited by the thread's stack.
+     */
+    static long fingerprintContainer(NbtTag container) {
+        Deque<Cursor> open = new ArrayDeque<>();
+        open.push(new Cursor(container));
+        while (true) {
+            Cursor cursor = open.peek();
+            if (!cursor.hasNext()) {
+                long fingerprint = cursor.finishFingerprint();
+                open.pop();
+                if (open.isEmpty()) {
+                    return fingerprint;
+                }
+                open.peek().addFingerprint(fingerprint);
+                continue;
+            }
+            NbtTag element = cursor.next();
+            if (isContainer(element) && !hasFingerprint(element)) {
+                open.push(new Cursor(element));
+            } else {
+                cursor.addFingerprint(element.fingerprint());
+            }
+        }
+    }
+
+    public static CompoundTag toJnbt(NbtCompound compound, String name) {
+        return (CompoundTag) toJnbt((NbtTag) compound, name);
+    }
+
+    /**
+     * Returns a JNBT tag for {@code tag}. Compounds and lists are views that
+     * convert their elements on first access.
+     */
+    public static Tag toJnbt(NbtTag tag, String name) {
+        checkNotNull(name);
+        switch (tag.getType()) {
+            case BYTE:
+                return new ByteTag(name, ((NbtByte) tag).getByte());
+            case SHORT:
+                return new ShortTag(name, ((NbtShort) tag).getShort());
+            case INT:
+                return new IntTag(name, ((NbtInt) tag).getInt());
+            case LONG:
+                return new LongTag(name, ((NbtLong) tag).getLong());
+            case FLOAT:
+                return new FloatTag(name, ((NbtFloat) tag).getFloat());
+            case DOUBLE:
+                return new DoubleTag(name, ((NbtDouble) tag).getDouble());
+            case STRING:
+                return new StringTag(name, ((NbtString) tag).getString());
+            case BYTE_ARRAY:
+                return new ByteArrayTag(name, ((NbtByteArray) tag).toArray());
+            case INT_ARRAY:
+                return new IntArrayTag(name, ((NbtIntArray) tag).toArray());
+            case LIST:
+                NbtList list = (NbtList) tag;
+                Tag listView = new ListTag(name,
+                        list.getElementType().getTagClass(),
+                        new JnbtList(list));
+                VIEWS.put(listView, list);
+                return listView;
+            case COMPOUND:
+                Tag compoundView =
+                        new CompoundTag(name, new JnbtMap((NbtCompound) tag));
+                VIEWS.put(compoundView, tag);
+                return compoundView;
+            default:
+                throw new IllegalArgumentException("Unexpected tag " + tag);
+        }
+    }
+
+    public static NbtCompound fromJnbt(CompoundTag tag) {
+        return (NbtCompound) fromJnbt((Tag) tag);
+    }
+
+    /**
+     * A JNBT compound or list that is being copied.
+     */
+    private static final class CopyFrame {
+
+        // JNBT entries for compounds, and tags for lists
+        final Iterator<?> source;
+        @Nullable
+        final NbtCompound.Builder compound;
+        @Nullable
+        final List<NbtTag> elements;
+        // null for compounds
+        @Nullable
+        final TagType elementType;
+        // the name of the entry that is added next
+        String name = "";
+
+        CopyFrame(Tag tag) {
+            if (tag instanceof CompoundTag) {
+                Map<String, Tag> entries = ((CompoundTag) tag).getValue();
+                this.source = entries.entrySet().iterator();
+                this.compound = NbtCompound.builder(entries.size());
+                this.elements = null;
+                this.elementType = null;
+            } else {
+                ListTag list = (ListTag) tag;
+                this.source = list.getValue().iterator();
+                this.compound = null;
+                this.elements = new ArrayList<>(list.getValue().size());
+                this.elementType = TagType.fromTagClass(list.getType());
+            }
+        }
+
+        void add(NbtTag tag) {
+            if (this.compound != null) {
+                this.compound.put(this.name, tag);
+            } else {
+                this.elements.add(tag);
+            }
+        }
+
+        NbtTag build() {
+            if (this.compound != null) {
+                return this.compound.build();
+            }
+            return NbtList.of(this.elementType, this.elements);
+        }
+
+    }
+
+    /**
+     * Returns the native tag for a JNBT tag. Views made by
+     * {@link #toJnbt(NbtTag, String)} are unwrapped, and anything else is
+     * copied. Compounds and lists are copied with a stack of the ones that
+     * are open, so the depth is not limited by the thread's stack.
+     */
+    public static NbtTag fromJnbt(Tag tag) {
+        NbtTag viewed = VIEWS.get(checkNotNull(tag));
+        if (viewed != null) {
+            return viewed;
+        }
+        if (!(tag instanceof CompoundTag || tag instanceof ListTag)) {
+            return fromJnbtScalar(tag);
+        }
+        Deque<CopyFrame> open = new ArrayDeque<>();
+        open.push(new CopyFrame(tag));
+        while (true) {
+            CopyFrame frame = open.peek();
+            if (!frame.source.hasNext()) {
+                NbtTag copy = frame.build();
+                open.pop();
+                if (open.isEmpty()) {
+                    return copy;
+                }
+                open.peek().add(copy);
+                continue;
+            }
+            Object next = frame.source.next();
+            Tag element;
+            if (next instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+                frame.name = (String) entry.getKey();
+                element = checkNotNull((Tag) entry.getValue());
+            } else {
+                element = checkNotNull((Tag) next);
+            }
+            viewed = VIEWS.get(element);
+            if (viewed != null) {
+                frame.add(viewed);
+            } else if (element instanceof CompoundTag
+                    || element instanceof ListTag) {
+                open.push(new CopyFrame(element));
+            } else {
+                frame.add(fromJnbtScalar(element));
+            }
+        }
+    }
+
+    private static NbtTag fromJnbtScalar(Tag tag) {
+        if (tag instanceof ByteTag) {
+            return NbtByte.of(((ByteTag) tag).getValue());
+        } else if (tag instanceof ShortTag) {
+            return NbtShort.of(((ShortTag) tag).getValue());
+        } else if (tag instanceof IntTag) {
+            return NbtInt.of(((IntTag) tag).getValue());
+        } else if (tag instanceof LongTag) {
+            return NbtLong.of(((LongTag) tag).getValue());
+        } else if (tag instanceof FloatTag) {
+            return NbtFloat.of(((FloatTag) tag).getValue());
+        } else if (tag instanceof DoubleTag) {
+            return NbtDouble.of(((DoubleTag) tag).getValue());
+        } else if (tag instanceof StringTag) {
+            return NbtString.of(((StringTag) tag).getValue());
+        } else if (tag instanceof ByteArrayTag) {
+            return NbtByteArray.of(((ByteArrayTag) tag).getValue());
+        } else if (tag instanceof IntArrayTag) {
+            return NbtIntArray.of(((IntArrayTag) tag).getValue());
+        }
+        throw new IllegalArgumentException(
+                "Don't know how to convert a " + tag.getClass());
+    }
+
+    /**
+     * The entries of a native compound as JNBT tags, converted on first
+     * access. Races only convert an entry twice.
+     */
+    private static final class JnbtMap extends AbstractMap<String, Tag> {
+
+        private final NbtCompound compound;
+        private final Tag[] tags;
+
+        JnbtMap(NbtCompound compound) {
+            this.compound = compound;
+            this.tags = new Tag[compound.size()];
+        }
+
+        private Tag tag(int position) {
+            Tag tag = this.tags[position];
+            if (tag == null) {
+                tag = toJnbt(this.compound.getValue(position),
+                        this.compound.getName(position));
+                this.tags[position] = tag;
+            }
+            return tag;
+        }
+
+        @Override
+        public Tag get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int position = this.compound.indexOf((String) key);
+            return position < 0 ? null : tag(position);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String
+                    && this.compound.contains((String) key);
+        }
+
+        @Override
+        public int size() {
+            return this.compound.size();
+        }
+
+        @Override
+        public Set<Entry<String, Tag>> entrySet() {
+            return new AbstractSet<Entry<String, Tag>>() {
+
+                @Override
+                public Iterator<Entry<String, Tag>> iterator() {
+                    return new Iterator<Entry<String, Tag>>() {
+
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.position < size();
+                        }
+
+                        @Override
+                        public Entry<String, Tag> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = this.position++;
+                            return new SimpleImmutableEntry<>(
+                                    JnbtMap.this.compound.getName(current),
+                                    tag(current));
+                        }
+
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return JnbtMap.this.size();
+                }
+
+            };
+        }
+
+    }
+
+    /**
+     * The elements of a native list as JNBT tags, converted on first access.
+     */
+    private static final class JnbtList extends AbstractList<Tag> {
+
+        private final NbtList list;
+        private final Tag[] tags;
+
+        JnbtList(NbtList list) {
+            this.list = list;
+            this.tags = new Tag[list.size()];
+        }
+
+        @Override
+        public Tag get(int index) {
+            Tag tag = this.tags[index];
+            if (tag == null) {
+                tag = toJnbt(this.list.get(index), "");
+                this.tags[index] = tag;
+            }
+            return tag;
+        }
+
+        @Override
+        public int size() {
+            return this.list.size();
+        }
+
+    }
+
+    private NbtTags() {
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,43 @@
+package me.kenzierocks.hnbt.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+
+/**
+ * An {@link ANTLRInputStream} that gives access to its characters, so that
+ * grammar actions can read token text without creating a String.
+ */
+public final class ArrayCharStream extends ANTLRInputStream {
+
+    public ArrayCharStream(String input) {
+        super(input);
+    }
+
+    /**
+     * Creates a stream over the first {@code length} characters of
+     * {@code data}, without copying them.
+     */
+    public ArrayCharStream(char[] data, int length) {
+        super(data, length);
+    }
+
+    public ArrayCharStream(Reader input) throws IOException {
+        super(input);
+    }
+
+    public ArrayCharStream(InputStream input) throws IOException {
+        super(input);
+    }
+
+    /**
+     * Returns the characters of the stream. Only the first {@link #size()}
+     * are valid, and the array must not be modified.
+     */
+    public char[] getData() {
+        return this.data;
+    }
+
+}
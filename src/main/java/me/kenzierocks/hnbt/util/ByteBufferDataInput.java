@@ -0,0 +1,155 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataInput} that reads big-endian data from the remaining bytes of a
+ * {@link ByteBuffer}. The position of the given buffer is not changed.
+ */
+public final class ByteBufferDataInput implements DataInput {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferDataInput(ByteBuffer buffer) {
+        this.buffer = checkNotNull(buffer).duplicate()
+                .order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        try {
+            this.buffer.get(b, off, len);
+        } catch (BufferUnderflowException e) {
+            throw eof(e);
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int skipped = Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        try {
+            return this.buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw eof(e);
+        }
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        try {
+            return this.buffer.getShort();
+        } catch (BufferUnderflowException e) {
+            throw eof(e);
+        }
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        try {
+            return this.buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw eof(e);
+        }
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        try {
+            return this.buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw eof(e);
+        }
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads a line like {@link DataInputStream#readLine()} does: each byte is
+     * one char, and a line ends at {@code \n}, {@code \r}, {@code \r\n} or
+     * the end of the input.
+     *
+     * @return the line without its terminator, or {@code null} if there are
+     *         no bytes left
+     */
+    @Override
+    public String readLine() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (this.buffer.hasRemaining()) {
+            char c = (char) (this.buffer.get() & 0xFF);
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (this.buffer.hasRemaining()
+                        && this.buffer.get(this.buffer.position()) == '\n') {
+                    this.buffer.get();
+                }
+                break;
+            }
+            line.append(c);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    private static EOFException eof(BufferUnderflowException cause) {
+        EOFException ex = new EOFException();
+        ex.initCause(cause);
+        return ex;
+    }
+
+}
@@ -0,0 +1,71 @@
+package me.kenzierocks.hnbt.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * The steps of the 64-bit tag fingerprints used to compare trees, shared by
+ * JNBT tags and the native tag model so that both give equal trees the same
+ * fingerprint. A fingerprint covers the type and contents of a tag, but not
+ * its own name, and ignores the order of compound entries.
+ *
+ * <p>
+ * A compound starts from its size, and {@link #addEntry(long, String, long)
+ * adds} each entry. A list starts from its element type id, and
+ * {@link #addElement(long, long) adds} each element in order. Other tags
+ * start from their value. Every tag is then {@link #finish(int, long)
+ * finished} with its type id.
+ * </p>
+ */
+public final class Fingerprints {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    public static long ofString(String value) {
+        return HASH.hashUnencodedChars(value).asLong();
+    }
+
+    public static long ofBytes(byte[] value) {
+        return HASH.hashBytes(value).asLong();
+    }
+
+    public static long ofInts(int[] value) {
+        Hasher hasher = HASH.newHasher();
+        for (int i : value) {
+            hasher.putInt(i);
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Adds a compound entry. This is a sum, so that the order of the entries
+     * does not matter.
+     */
+    public static long addEntry(long value, String name, long fingerprint) {
+        return value + mix(ofString(name) + mix(fingerprint));
+    }
+
+    public static long addElement(long value, long fingerprint) {
+        return mix(value) + fingerprint;
+    }
+
+    public static long finish(int typeId, long value) {
+        return mix(value + mix(typeId));
+    }
+
+    // the finalizer of MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb34fe63f3c4dL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Fingerprints() {
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,341 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Buffered output that tracks the current indentation depth. Line breaks are
+ * written with {@link #newline()}, which copies a newline and the whole
+ * indent for the current depth at once. Other text is copied in bulk without
+ * being inspected, so the cost of writing does not depend on the depth.
+ *
+ * <p>
+ * Buffered text reaches the target on {@link #flushBuffer()} or
+ * {@link #flush()}, or when the buffer fills up.
+ * </p>
+ */
+public final class IndentedOutput implements Appendable, Flushable {
+
+    public static final String DEFAULT_INDENT = "    ";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_LONG_CHARS = 20;
+    private static final double MAX_EXACT_LONG = 1L << 53;
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3,
+            1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+            1e16, 1e17, 1e18 };
+
+    /**
+     * @throws IllegalArgumentException
+     *             if {@code indent} contains anything but spaces and tabs
+     */
+    public static String checkIndent(String indent) {
+        checkNotNull(indent);
+        for (int i = 0; i < indent.length(); i++) {
+            char c = indent.charAt(i);
+            checkArgument(c == ' ' || c == '\t',
+                    "indent may only contain spaces and tabs: '%s'", indent);
+        }
+        return indent;
+    }
+
+    private final Appendable target;
+    private final String indent;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int count;
+    private int depth;
+    // newline followed by the indent repeated for the deepest depth so far;
+    // the prefix for a depth is the start of it
+    private char[] prefix = { '\n' };
+    private int prefixDepth;
+
+    public IndentedOutput(Appendable target) {
+        this(target, DEFAULT_INDENT);
+    }
+
+    public IndentedOutput(Appendable target, String indent) {
+        this(target, indent, 0);
+    }
+
+    /**
+     * Creates an output that starts at {@code depth}, for writing part of a
+     * document that is nested inside other output.
+     */
+    public IndentedOutput(Appendable target, String indent, int depth) {
+        checkArgument(depth >= 0, "depth must not be negative");
+        this.target = checkNotNull(target);
+        this.indent = checkIndent(indent);
+        this.depth = depth;
+    }
+
+    public String getIndent() {
+        return this.indent;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public void indent() {
+        this.depth++;
+    }
+
+    public void dedent() {
+        checkState(this.depth > 0, "not indented");
+        this.depth--;
+    }
+
+    /**
+     * Writes a newline and the indent for the current depth.
+     */
+    public IndentedOutput newline() throws IOException {
+        int indentLength = this.indent.length();
+        if (this.depth > this.prefixDepth && indentLength > 0) {
+            growPrefix(Math.max(this.depth, this.prefixDepth * 2));
+        }
+        write(this.prefix, 0, 1 + this.depth * indentLength);
+        return this;
+    }
+
+    private void growPrefix(int depth) {
+        int indentLength = this.indent.length();
+        this.prefix = Arrays.copyOf(this.prefix, 1 + depth * indentLength);
+        for (int i = this.prefixDepth; i < depth; i++) {
+            this.indent.getChars(0, indentLength, this.prefix,
+                    1 + i * indentLength);
+        }
+        this.prefixDepth = depth;
+    }
+
+    @Override
+    public IndentedOutput append(char c) throws IOException {
+        if (this.count == this.buffer.length) {
+            flushBuffer();
+        }
+        this.buffer[this.count++] = c;
+        return this;
+    }
+
+    @Override
+    public IndentedOutput append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public IndentedOutput append(CharSequence csq, int start, int end)
+            throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        int length = end - start;
+        if (length > this.buffer.length - this.count) {
+            flushBuffer();
+            if (length > this.buffer.length) {
+                this.target.append(csq, start, end);
+                return this;
+            }
+        }
+        if (csq instanceof String) {
+            ((String) csq).getChars(start, end, this.buffer, this.count);
+        } else if (csq instanceof StringBuilder) {
+            ((StringBuilder) csq).getChars(start, end, this.buffer,
+                    this.count);
+        } else {
+            for (int i = start; i < end; i++) {
+                this.buffer[this.count + i - start] = csq.charAt(i);
+            }
+        }
+        this.count += length;
+        return this;
+    }
+
+    public IndentedOutput appendInt(int value) throws IOException {
+        return appendLong(value);
+    }
+
+    public IndentedOutput appendLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        reserve(MAX_LONG_CHARS);
+        if (value < 0) {
+            this.buffer[this.count++] = '-';
+            value = -value;
+        }
+        writeDigits(value, digitCount(value));
+        return this;
+    }
+
+    /**
+     * Appends the shortest decimal that parses back to {@code value}, in the
+     * same notation as {@link Float#toString(float)}.
+     */
+    public IndentedOutput appendFloat(float value) throws IOException {
+        if (!appendPlainDecimal(value, true)) {
+            append(Float.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * Appends the shortest decimal that parses back to {@code value}, in the
+     * same notation as {@link Double#toString(double)}.
+     */
+    public IndentedOutput appendDouble(double value) throws IOException {
+        if (!appendPlainDecimal(value, false)) {
+            append(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * Handles values that {@code toString} writes without an exponent, as
+     * long as the digits fit in a double exactly. Returns {@code false} for
+     * anything else.
+     */
+    private boolean appendPlainDecimal(double value, boolean isFloat)
+            throws IOException {
+        if (value == 0) {
+            append(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+            return true;
+        }
+        double abs = Math.abs(value);
+        if (!(abs >= 1e-3 && abs < 1e7)) {
+            return false;
+        }
+        // the first number of fraction digits that round-trips is the
+        // shortest, and rounding picks the closest digits for that length,
+        // preferring even digits on a tie like toString does
+        for (int fractionDigits = 0; fractionDigits < POWERS_OF_TEN.length;
+                fractionDigits++) {
+            double scale = POWERS_OF_TEN[fractionDigits];
+            double scaled = abs * scale;
+            if (scaled >= MAX_EXACT_LONG) {
+                return false;
+            }
+            long digits = (long) Math.rint(scaled);
+            double parsed = digits / scale;
+            if (isFloat ? parsesToFloat(parsed, (float) abs)
+                    : parsed == abs) {
+                writeDecimal(value < 0, digits, fractionDigits);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@code parsed} is the decimal rounded to a double. Rounding that again
+     * to a float only differs from rounding the decimal straight to a float
+     * if it lands exactly halfway between two floats.
+     */
+    private static boolean parsesToFloat(double parsed, float expected) {
+        float rounded = (float) parsed;
+        if (rounded != expected) {
+            return false;
+        }
+        if (rounded == parsed) {
+            return true;
+        }
+        double neighbour = parsed > rounded ? Math.nextUp(rounded)
+                : Math.nextDown(rounded);
+        return parsed != ((double) rounded + neighbour) / 2;
+    }
+
+    private void writeDecimal(boolean negative, long digits,
+            int fractionDigits) throws IOException {
+        reserve(MAX_LONG_CHARS + 3);
+        if (negative) {
+            this.buffer[this.count++] = '-';
+        }
+        if (fractionDigits == 0) {
+            writeDigits(digits, digitCount(digits));
+            this.buffer[this.count++] = '.';
+            this.buffer[this.count++] = '0';
+            return;
+        }
+        long scale = (long) POWERS_OF_TEN[fractionDigits];
+        long integral = digits / scale;
+        writeDigits(integral, digitCount(integral));
+        this.buffer[this.count++] = '.';
+        writeDigits(digits % scale, fractionDigits);
+    }
+
+    /**
+     * Writes the last {@code length} digits of the non-negative
+     * {@code value}, padded with zeros.
+     */
+    private void writeDigits(long value, int length) {
+        int end = this.count + length;
+        for (int i = end - 1; i >= this.count; i--) {
+            this.buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        this.count = end;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void reserve(int length) throws IOException {
+        if (this.buffer.length - this.count < length) {
+            flushBuffer();
+        }
+    }
+
+    public IndentedOutput write(char[] chars, int offset, int length)
+            throws IOException {
+        if (length > this.buffer.length - this.count) {
+            flushBuffer();
+            if (length > this.buffer.length) {
+                this.target.append(CharBuffer.wrap(chars, offset, length));
+                return this;
+            }
+        }
+        System.arraycopy(chars, offset, this.buffer, this.count, length);
+        this.count += length;
+        return this;
+    }
+
+    /**
+     * Writes the buffered text to the target, without flushing the target.
+     */
+    public void flushBuffer() throws IOException {
+        if (this.count == 0) {
+            return;
+        }
+        if (this.target instanceof Writer) {
+            ((Writer) this.target).write(this.buffer, 0, this.count);
+        } else if (this.target instanceof StringBuilder) {
+            ((StringBuilder) this.target).append(this.buffer, 0, this.count);
+        } else {
+            this.target.append(CharBuffer.wrap(this.buffer, 0, this.count));
+        }
+        this.count = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        if (this.target instanceof Flushable) {
+            ((Flushable) this.target).flush();
+        }
+    }
+
+}
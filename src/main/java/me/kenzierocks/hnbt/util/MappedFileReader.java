@@ -0,0 +1,150 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 file by memory-mapping it one window at a time. Runs of ASCII
+ * are copied straight into the caller's array, and anything else goes
+ * through a {@link CharsetDecoder}. Malformed input is replaced, as
+ * {@link java.io.InputStreamReader} does.
+ *
+ * <p>
+ * Nothing is read up front, so the heap cost does not depend on the file
+ * size. Mapped windows are released by the garbage collector, not by
+ * {@link #close()}.
+ * </p>
+ */
+public final class MappedFileReader extends Reader {
+
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+    // the longest UTF-8 sequence, so that a window always holds a whole char
+    private static final int MIN_WINDOW_SIZE = 4;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8
+            .newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private MappedByteBuffer window;
+    // absolute offset of window[0] in the file
+    private long windowStart;
+    // low surrogate of a pair that did not fit in the last read
+    private char pending;
+    private boolean hasPending;
+    private boolean closed;
+
+    public MappedFileReader(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileReader(Path path, int windowSize) throws IOException {
+        checkArgument(windowSize >= MIN_WINDOW_SIZE,
+                "window size must be at least %s", MIN_WINDOW_SIZE);
+        this.channel = FileChannel.open(checkNotNull(path),
+                StandardOpenOption.READ);
+        try {
+            this.size = this.channel.size();
+            this.windowSize = windowSize;
+            mapWindow(0);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private void mapWindow(long start) throws IOException {
+        long length = Math.min(this.windowSize, this.size - start);
+        this.window =
+                this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        this.windowStart = start;
+    }
+
+    private boolean isLastWindow() {
+        return this.windowStart + this.window.limit() == this.size;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (this.hasPending) {
+            this.hasPending = false;
+            cbuf[off] = this.pending;
+            return 1;
+        }
+        while (true) {
+            int read = readAscii(cbuf, off, len);
+            if (read < len && this.window.hasRemaining()) {
+                CharBuffer out = CharBuffer.wrap(cbuf, off + read, len - read);
+                CoderResult result =
+                        this.decoder.decode(this.window, out, isLastWindow());
+                read = out.position() - off;
+                if (read == 0 && result.isOverflow()) {
+                    return readSurrogatePair(cbuf, off);
+                }
+            }
+            if (read > 0) {
+                return read;
+            }
+            // the window is empty, or ends with part of a sequence
+            if (isLastWindow()) {
+                return -1;
+            }
+            mapWindow(this.windowStart + this.window.position());
+        }
+    }
+
+    private int readSurrogatePair(char[] cbuf, int off) {
+        CharBuffer pair = CharBuffer.allocate(2);
+        this.decoder.decode(this.window, pair, isLastWindow());
+        cbuf[off] = pair.get(0);
+        this.pending = pair.get(1);
+        this.hasPending = true;
+        return 1;
+    }
+
+    private int readAscii(char[] cbuf, int off, int len) {
+        MappedByteBuffer window = this.window;
+        int start = window.position();
+        int end = Math.min(window.limit(), start + len);
+        int i = start;
+        for (; i < end; i++) {
+            byte b = window.get(i);
+            if (b < 0) {
+                break;
+            }
+            cbuf[off + i - start] = (char) b;
+        }
+        window.position(i);
+        return i - start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.window = null;
+        this.channel.close();
+    }
+
+}
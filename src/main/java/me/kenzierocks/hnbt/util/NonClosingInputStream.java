@@ -0,0 +1,23 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * Passes reads through to another stream, but does not close it. This lets
+ * a wrapping stream, such as a decompressor, be closed to release its
+ * resources, without closing the caller's stream.
+ */
+public final class NonClosingInputStream extends FilterInputStream {
+
+    public NonClosingInputStream(InputStream in) {
+        super(checkNotNull(in));
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
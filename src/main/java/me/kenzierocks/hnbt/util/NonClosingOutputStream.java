@@ -0,0 +1,30 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Passes writes through to another stream, but only flushes it when closed.
+ * This lets a wrapping stream be closed to finish its output, without
+ * closing the caller's stream.
+ */
+public final class NonClosingOutputStream extends FilterOutputStream {
+
+    public NonClosingOutputStream(OutputStream out) {
+        super(checkNotNull(out));
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.flush();
+    }
+
+}
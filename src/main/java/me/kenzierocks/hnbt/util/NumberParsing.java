@@ -0,0 +1,195 @@
+package me.kenzierocks.hnbt.util;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Parses numbers straight from a {@code char[]}, without creating a String.
+ * Integers are range checked like the {@code parseXxx} methods in
+ * {@code java.lang}, and throw the same {@link NumberFormatException}.
+ * Decimals are parsed exactly when the digits and the power of ten are both
+ * exact, and by {@link Double#parseDouble(String)} otherwise.
+ */
+public final class NumberParsing {
+
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+    private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2,
+            1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+            1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final float[] FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f,
+            1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    public static byte parseByte(char[] chars, int start, int end) {
+        return (byte) parseLong(chars, start, end, Byte.MIN_VALUE,
+                Byte.MAX_VALUE);
+    }
+
+    public static short parseShort(char[] chars, int start, int end) {
+        return (short) parseLong(chars, start, end, Short.MIN_VALUE,
+                Short.MAX_VALUE);
+    }
+
+    public static int parseInt(char[] chars, int start, int end) {
+        return (int) parseLong(chars, start, end, Integer.MIN_VALUE,
+                Integer.MAX_VALUE);
+    }
+
+    public static long parseLong(char[] chars, int start, int end) {
+        return parseLong(chars, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses an optionally negative decimal integer from {@code start} to
+     * {@code end}.
+     *
+     * @throws NumberFormatException
+     *             if it is not an integer, or not between {@code min} and
+     *             {@code max}
+     */
+    public static long parseLong(char[] chars, int start, int end, long min,
+            long max) {
+        boolean negative = start < end && chars[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw forInput(chars, start, end);
+        }
+        // accumulated negatively, so that Long.MIN_VALUE fits
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw forInput(chars, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw forInput(chars, start, end);
+            }
+            result -= digit;
+        }
+        long value = negative ? result : -result;
+        if (value < min || value > max) {
+            throw new NumberFormatException("Value out of range. Value:\""
+                    + new String(chars, start, end - start) + "\" Radix:10");
+        }
+        return value;
+    }
+
+    public static double parseDouble(char[] chars, int start, int end) {
+        long mantissa = scanPlainDecimal(chars, start, end,
+                MAX_EXACT_DOUBLE_MANTISSA, DOUBLE_POWERS_OF_TEN.length);
+        if (mantissa < 0) {
+            return Double.parseDouble(new String(chars, start, end - start));
+        }
+        double value = mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits(chars,
+                start, end)];
+        return chars[start] == '-' ? -value : value;
+    }
+
+    public static float parseFloat(char[] chars, int start, int end) {
+        long mantissa = scanPlainDecimal(chars, start, end,
+                MAX_EXACT_FLOAT_MANTISSA, FLOAT_POWERS_OF_TEN.length);
+        if (mantissa < 0) {
+            return Float.parseFloat(new String(chars, start, end - start));
+        }
+        float value = mantissa
+                / FLOAT_POWERS_OF_TEN[fractionDigits(chars, start, end)];
+        return chars[start] == '-' ? -value : value;
+    }
+
+    /**
+     * Reads {@code -?[0-9]*(\.[0-9]*)?} as an integer, ignoring the sign and
+     * the point. Returns -1 if the text has any other form, if there are no
+     * digits, or if the result would not be exact.
+     */
+    private static long scanPlainDecimal(char[] chars, int start, int end,
+            long maxMantissa, int maxFractionDigits) {
+        int i = start < end && chars[start] == '-' ? start + 1 : start;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        int fractionDigits = 0;
+        long mantissa = 0;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            if (c < '0' || '9' < c) {
+                return -1;
+            }
+            seenDigit = true;
+            if (seenPoint) {
+                fractionDigits++;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa > maxMantissa) {
+                return -1;
+            }
+        }
+        if (!seenDigit || fractionDigits >= maxFractionDigits) {
+            return -1;
+        }
+        return mantissa;
+    }
+
+    private static int fractionDigits(char[] chars, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (chars[i] == '.') {
+                return end - 1 - i;
+            }
+        }
+        return 0;
+    }
+
+    private static NumberFormatException forInput(char[] chars, int start,
+            int end) {
+        return new NumberFormatException("For input string: \""
+                + new String(chars, start, end - start) + "\"");
+    }
+
+    // Grammar helpers, which read from the buffer of an ArrayCharStream.
+
+    private static char[] chars(Token token) {
+        CharStream input = token.getInputStream();
+        if (input instanceof ArrayCharStream) {
+            return ((ArrayCharStream) input).getData();
+        }
+        return null;
+    }
+
+    public static long parseLong(Token token, long min, long max) {
+        char[] chars = chars(token);
+        if (chars == null) {
+            chars = token.getText().toCharArray();
+            return parseLong(chars, 0, chars.length, min, max);
+        }
+        return parseLong(chars, token.getStartIndex(),
+                token.getStopIndex() + 1, min, max);
+    }
+
+    public static double parseDouble(Token token) {
+        char[] chars = chars(token);
+        if (chars == null) {
+            return Double.parseDouble(token.getText());
+        }
+        return parseDouble(chars, token.getStartIndex(),
+                token.getStopIndex() + 1);
+    }
+
+    public static float parseFloat(Token token) {
+        char[] chars = chars(token);
+        if (chars == null) {
+            return Float.parseFloat(token.getText());
+        }
+        return parseFloat(chars, token.getStartIndex(),
+                token.getStopIndex() + 1);
+    }
+
+    private NumberParsing() {
+        throw new AssertionError();
+    }
+
+}
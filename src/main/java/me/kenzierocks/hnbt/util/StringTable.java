@@ -0,0 +1,89 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded table for deduplicating tag names and short strings. Lookups
+ * hash the characters where they are, so a repeated string costs no
+ * allocation. Each hash slot holds the last string that landed in it, so
+ * the table never grows, and a colliding string only replaces the old one.
+ *
+ * <p>
+ * A table can be shared between parses and threads: racing lookups can
+ * only miss and allocate, since strings are safely published.
+ * </p>
+ */
+public final class StringTable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 10;
+    public static final int DEFAULT_MAX_LENGTH = 32;
+
+    private final String[] slots;
+    private final int maxLength;
+
+    public StringTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param capacity
+     *            the number of slots, which must be a power of two
+     * @param maxLength
+     *            strings longer than this are not looked up
+     */
+    public StringTable(int capacity, int maxLength) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+                "capacity must be a positive power of two");
+        checkArgument(maxLength >= 0, "max length must not be negative");
+        this.slots = new String[capacity];
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns a string of the {@code length} chars at {@code start}, reusing
+     * an equal string from the table if there is one.
+     */
+    public String intern(char[] chars, int start, int length) {
+        if (length > this.maxLength) {
+            return new String(chars, start, length);
+        }
+        int hash = 0;
+        for (int i = start, end = start + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (this.slots.length - 1);
+        String cached = this.slots[slot];
+        if (cached != null && cached.length() == length) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == chars[start + i]) {
+                i++;
+            }
+            if (i == length) {
+                return cached;
+            }
+        }
+        String string = new String(chars, start, length);
+        this.slots[slot] = string;
+        return string;
+    }
+
+    /**
+     * Returns {@code string}, or an equal string from the table.
+     */
+    public String intern(String string) {
+        int length = string.length();
+        if (length > this.maxLength) {
+            return string;
+        }
+        // String caches its hash, and uses the same function as above
+        int hash = string.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (this.slots.length - 1);
+        String cached = this.slots[slot];
+        if (string.equals(cached)) {
+            return cached;
+        }
+        this.slots[slot] = string;
+        return string;
+    }
+
+}
@@ -2,70 +2,267 @@ package me.kenzierocks.hnbt.util;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.atn.PredictionMode;
-import org.antlr.v4.runtime.tree.ErrorNode;
-
-import me.kenzierocks.hnbt.HNBTParsingException;
-import me.kenzierocks.hnbt.grammar.HNBTParserBaseListener;
-import me.kenzierocks.hnbt.grammar.StringLexer;
-import me.kenzierocks.hnbt.grammar.StringParser;
+import java.io.IOException;
+import java.nio.CharBuffer;
 
 public final class StringUtil {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     public static String escapedString(String unescaped) {
-        return stringLiteralWithDoubleQuotes(unescaped);
+        StringBuilder result = new StringBuilder(unescaped.length() + 2);
+        appendEscapedString(unescaped, result);
+        return result.toString();
     }
 
-    public static String unescapeString(String escaped) {
-        ANTLRInputStream stream = new ANTLRInputStream(escaped);
-        StringLexer lexer = new StringLexer(stream);
-        lexer.removeErrorListeners();
-        CaptureErrorsListenener cap = new CaptureErrorsListenener();
-        lexer.addErrorListener(cap);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        StringParser parser = new StringParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(cap);
-        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
-        List<HNBTParsingException> errorNodeErrors = new ArrayList<>(1);
-        parser.addParseListener(new HNBTParserBaseListener() {
-
-            @Override
-            public void visitErrorNode(ErrorNode node) {
-                errorNodeErrors.add(new HNBTParsingException(
-                        "Error node " + node.toStringTree(parser) + "@"
-                                + node.getSymbol().getLine() + ":"
-                                + node.getSymbol().getCharPositionInLine()));
+    /**
+     * Appends the string literal representing {@code unescaped}, including
+     * wrapping double quotes, to {@code target}. Runs of characters that need
+     * no escaping are appended in one call.
+     */
+    public static void appendEscapedString(CharSequence unescaped,
+            Appendable target) throws IOException {
+        target.append('"');
+        int length = unescaped.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = unescaped.charAt(i);
+            if (c != '"' && c != '\\' && !Character.isISOControl(c)) {
+                continue;
             }
-        });
-        String val = null;
+            if (runStart < i) {
+                target.append(unescaped, runStart, i);
+            }
+            runStart = i + 1;
+            appendEscape(c, target);
+        }
+        if (runStart < length) {
+            target.append(unescaped, runStart, length);
+        }
+        target.append('"');
+    }
+
+    public static void appendEscapedString(CharSequence unescaped,
+            StringBuilder target) {
         try {
-            val = parser.stringNoQuotes().unescaped;
-        } catch (Exception e) {
-            tokens.reset();
-            parser.reset();
-            errorNodeErrors.clear();
-            cap.clearErrors();
-            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
-            val = parser.stringNoQuotes().unescaped;
+            appendEscapedString(unescaped, (Appendable) target);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Escapes as in JavaPoet's characterLiteralWithoutSingleQuotes, except
+    // that single quotes are never escaped inside strings
+    private static void appendEscape(char c, Appendable target)
+            throws IOException {
+        switch (c) {
+            case '\b':
+                target.append("\\b");
+                break;
+            case '\t':
+                target.append("\\t");
+                break;
+            case '\n':
+                target.append("\\n");
+                break;
+            case '\f':
+                target.append("\\f");
+                break;
+            case '\r':
+                target.append("\\r");
+                break;
+            case '"':
+                target.append("\\\"");
+                break;
+            case '\\':
+                target.append("\\\\");
+                break;
+            default:
+                target.append("\\u").append(HEX_DIGITS[(c >> 12) & 0xF])
+                        .append(HEX_DIGITS[(c >> 8) & 0xF])
+                        .append(HEX_DIGITS[(c >> 4) & 0xF])
+                        .append(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    public static String unescapeString(String escaped) {
+        if (escaped.indexOf('\\') == -1) {
+            checkNoLineTerminators(escaped, 0, escaped.length());
+            return escaped;
+        }
+        return unescapeString(escaped, 0, escaped.length());
+    }
+
+    /**
+     * Unescapes the characters from {@code start} to {@code end} of
+     * {@code escaped}.
+     */
+    public static String unescapeString(CharSequence escaped, int start,
+            int end) {
+        StringBuilder result = new StringBuilder(end - start);
+        try {
+            unescapeString(escaped, start, end, result);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Unescapes the characters from {@code start} to {@code end} of
+     * {@code escaped}. If there are no escapes, only one string is created.
+     */
+    public static String unescapeString(char[] escaped, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (escaped[i] == '\\') {
+                return unescapeString(CharBuffer.wrap(escaped), start, end);
+            }
+        }
+        checkNoLineTerminators(CharBuffer.wrap(escaped), start, end);
+        return new String(escaped, start, end - start);
+    }
+
+    /**
+     * Like {@link #unescapeString(char[], int, int)}, but looks the result up
+     * in {@code strings}. Strings without escapes are looked up before they
+     * are created.
+     */
+    public static String unescapeString(char[] escaped, int start, int end,
+            StringTable strings) {
+        for (int i = start; i < end; i++) {
+            if (escaped[i] == '\\') {
+                return strings.intern(
+                        unescapeString(CharBuffer.wrap(escaped), start, end));
+            }
+        }
+        checkNoLineTerminators(CharBuffer.wrap(escaped), start, end);
+        return strings.intern(escaped, start, end - start);
+    }
+
+    /**
+     * Appends the unescaped characters from {@code start} to {@code end} of
+     * {@code escaped} to {@code target}. This accepts the same input as the
+     * {@code StringLexer} grammar: unicode, octal and Java escape sequences
+     * are replaced, any other backslash is kept as is, and raw line
+     * terminators are rejected.
+     *
+     * @throws IllegalArgumentException
+     *             if there is a raw line terminator
+     */
+    public static void unescapeString(CharSequence escaped, int start,
+            int end, Appendable target) throws IOException {
+        int runStart = start;
+        int i = start;
+        while (i < end) {
+            char c = escaped.charAt(i);
+            if (c == '\r' || c == '\n') {
+                throw lineTerminator(i - start);
+            }
+            if (c != '\\' || i + 1 == end) {
+                i++;
+                continue;
+            }
+            int escapeEnd = i + 1;
+            int value = -1;
+            char next = escaped.charAt(escapeEnd);
+            if (next == 'u') {
+                do {
+                    escapeEnd++;
+                } while (escapeEnd < end && escaped.charAt(escapeEnd) == 'u');
+                if (escapeEnd + 4 <= end) {
+                    value = parseHex(escaped, escapeEnd);
+                    escapeEnd += 4;
+                }
+            } else if ('0' <= next && next <= '7') {
+                value = next - '0';
+                escapeEnd++;
+                int maxDigits = next <= '3' ? 3 : 2;
+                for (int digits = 1; digits < maxDigits && escapeEnd < end
+                        && isOctalDigit(escaped.charAt(escapeEnd)); digits++) {
+                    value = value * 8 + escaped.charAt(escapeEnd++) - '0';
+                }
+            } else {
+                value = simpleEscape(next);
+                escapeEnd++;
+            }
+            if (value == -1) {
+                // not an escape, the backslash is a raw character
+                i++;
+                continue;
+            }
+            if (runStart < i) {
+                target.append(escaped, runStart, i);
+            }
+            target.append((char) value);
+            i = escapeEnd;
+            runStart = i;
+        }
+        if (runStart < end) {
+            target.append(escaped, runStart, end);
+        }
+    }
+
+    private static int simpleEscape(char c) {
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case '"':
+            case '\'':
+            case '\\':
+                return c;
+            default:
+                return -1;
         }
+    }
 
-        List<Exception> errors = Stream
-                .concat(cap.getErrors().stream(), errorNodeErrors.stream())
-                .collect(Collectors.toList());
-        if (!errors.isEmpty()) {
-            RuntimeException ex = new RuntimeException("Lexer errors occured");
-            errors.forEach(ex::addSuppressed);
-            throw ex;
+    private static boolean isOctalDigit(char c) {
+        return '0' <= c && c <= '7';
+    }
+
+    /**
+     * Parses 4 hex digits at {@code index}, or returns -1 if they are not all
+     * hex digits.
+     */
+    private static int parseHex(CharSequence chars, int index) {
+        int value = 0;
+        for (int i = index; i < index + 4; i++) {
+            char c = chars.charAt(i);
+            int digit;
+            if ('0' <= c && c <= '9') {
+                digit = c - '0';
+            } else if ('a' <= c && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else if ('A' <= c && c <= 'F') {
+                digit = c - 'A' + 10;
+            } else {
+                return -1;
+            }
+            value = value * 16 + digit;
         }
-        return val;
+        return value;
+    }
+
+    private static void checkNoLineTerminators(CharSequence chars, int start,
+            int end) {
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c == '\r' || c == '\n') {
+                throw lineTerminator(i - start);
+            }
+        }
+    }
+
+    private static IllegalArgumentException lineTerminator(int index) {
+        return new IllegalArgumentException(
+                "raw line terminator in string at index " + index);
     }
 
     public static char unescapeEscapeSequence(String escSeq) {
@@ -137,75 +334,6 @@ public final class StringUtil {
         }
     }
 
-    // From JavaPoet with slight modifications to newline logic
-    /*
-     * Copyright (C) 2015 Square, Inc.
-     *
-     * Licensed under the Apache License, Version 2.0 (the "License"); you may
-     * not use this file except in compliance with the License. You may obtain a
-     * copy of the License at
-     *
-     * http://www.apache.org/licenses/LICENSE-2.0
-     *
-     * Unless required by applicable law or agreed to in writing, software
-     * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
-     * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
-     * License for the specific language governing permissions and limitations
-     * under the License.
-     */
-    private static String characterLiteralWithoutSingleQuotes(char c) {
-        // see
-        // https://docs.oracle.com/javase/specs/jls/se7/html/jls-3.html#jls-3.10.6
-        switch (c) {
-            case '\b':
-                return "\\b"; /* \u0008: backspace (BS) */
-            case '\t':
-                return "\\t"; /* \u0009: horizontal tab (HT) */
-            case '\n':
-                return "\\n"; /* \u000a: linefeed (LF) */
-            case '\f':
-                return "\\f"; /* \u000c: form feed (FF) */
-            case '\r':
-                return "\\r"; /* \u000d: carriage return (CR) */
-            case '\"':
-                return "\""; /* \u0022: double quote (") */
-            case '\'':
-                return "\\'"; /* \u0027: single quote (') */
-            case '\\':
-                return "\\\\"; /* \u005c: backslash (\) */
-            default:
-                return Character.isISOControl(c)
-                        ? String.format("\\u%04x", (int) c)
-                        : Character.toString(c);
-        }
-    }
-
-    /**
-     * Returns the string literal representing {@code value}, including wrapping
-     * double quotes.
-     */
-    private static String stringLiteralWithDoubleQuotes(String value) {
-        StringBuilder result = new StringBuilder(value.length() + 2);
-        result.append('"');
-        for (int i = 0; i < value.length(); i++) {
-            char c = value.charAt(i);
-            // trivial case: single quote must not be escaped
-            if (c == '\'') {
-                result.append("'");
-                continue;
-            }
-            // trivial case: double quotes must be escaped
-            if (c == '\"') {
-                result.append("\\\"");
-                continue;
-            }
-            // default case: just let character literal do its work
-            result.append(characterLiteralWithoutSingleQuotes(c));
-        }
-        result.append('"');
-        return result.toString();
-    }
-
     private StringUtil() {
         throw new AssertionError();
     }
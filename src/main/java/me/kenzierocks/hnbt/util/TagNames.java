@@ -0,0 +1,88 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tag name rules, equivalent to {@code TagName} in {@code HNBTLexer.g4}. The
+ * {@code NameStartChar} and {@code NameChar} ranges are expanded into a table
+ * with one entry per {@code char}.
+ */
+public final class TagNames {
+
+    private static final byte NAME_START = 1;
+    private static final byte NAME = 2;
+
+    // pairs of inclusive bounds, in grammar order
+    private static final char[] NAME_START_RANGES = { 'A', 'Z', 'a', 'z',
+            '!', '!', '#', '#', '$', '$', '%', '%', '&', '&', '|', '|', '*',
+            '*', '+', '+', '-', '-', '_', '_', '?', '?',
+            '\u00C0', '\u00D6', '\u00D8', '\u00F6', '\u00F8', '\u02FF',
+            '\u0370', '\u037D', '\u037F', '\u1FFF', '\u200C', '\u200D',
+            '\u2070', '\u218F', '\u2C00', '\u2FEF', '\u3001', '\uD7FF',
+            '\uF900', '\uFDCF', '\uFDF0', '\uFFFD' };
+    private static final char[] NAME_ONLY_RANGES = { '0', '9',
+            '\u00B7', '\u00B7', '\u0300', '\u036F', '\u203F', '\u2040' };
+
+    private static final byte[] CLASSES = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        fill(NAME_START_RANGES, (byte) (NAME_START | NAME));
+        fill(NAME_ONLY_RANGES, NAME);
+    }
+
+    private static void fill(char[] ranges, byte charClass) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int c = ranges[i]; c <= ranges[i + 1]; c++) {
+                CLASSES[c] |= charClass;
+            }
+        }
+    }
+
+    // Direct-mapped cache of names that passed validation. Races only cause
+    // extra validation, since Strings are safely published.
+    private static final int CACHE_SIZE = 1024;
+    private static final String[] VALIDATED = new String[CACHE_SIZE];
+
+    public static boolean isNameStartChar(int c) {
+        return 0 <= c && c <= Character.MAX_VALUE
+                && (CLASSES[c] & NAME_START) != 0;
+    }
+
+    public static boolean isNameChar(int c) {
+        return 0 <= c && c <= Character.MAX_VALUE && (CLASSES[c] & NAME) != 0;
+    }
+
+    /**
+     * Returns whether all of {@code name} is a single {@code TagName}.
+     */
+    public static boolean isValidName(CharSequence name) {
+        int length = name.length();
+        if (length == 0 || !isNameStartChar(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if ((CLASSES[name.charAt(i)] & NAME) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if {@code name} is not a valid tag name
+     */
+    public static void checkTagName(String name) {
+        int slot = name.hashCode() & (CACHE_SIZE - 1);
+        if (name.equals(VALIDATED[slot])) {
+            return;
+        }
+        checkArgument(isValidName(name), "name is invalid: %s", name);
+        VALIDATED[slot] = name;
+    }
+
+    private TagNames() {
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,239 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Writer} that encodes UTF-8 into a fixed-size {@link ByteBuffer},
+ * and writes the buffer to a channel or stream whenever it fills up. Memory
+ * use does not depend on how much is written, and no intermediate String is
+ * created.
+ *
+ * <p>
+ * Unpaired surrogates are encoded as {@code '?'}, like
+ * {@link String#getBytes(java.nio.charset.Charset)} does. A high surrogate at
+ * the end of the written text is held back until the next write, or
+ * {@link #flush()}.
+ * </p>
+ */
+public final class Utf8Writer extends Writer {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    // the longest UTF-8 sequence
+    private static final int MAX_CHAR_BYTES = 4;
+
+    @Nullable
+    private final WritableByteChannel channel;
+    @Nullable
+    private final OutputStream stream;
+    private final ByteBuffer buffer;
+    private char highSurrogate;
+    private boolean closed;
+
+    public Utf8Writer(WritableByteChannel channel) {
+        this(channel, ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Creates a writer that encodes into {@code buffer}, which can be reused
+     * once the writer is flushed. The buffer is cleared first.
+     */
+    public Utf8Writer(WritableByteChannel channel, ByteBuffer buffer) {
+        this(checkNotNull(channel), null, buffer);
+    }
+
+    public Utf8Writer(OutputStream stream) {
+        this(null, checkNotNull(stream),
+                ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+    }
+
+    private Utf8Writer(@Nullable WritableByteChannel channel,
+            @Nullable OutputStream stream, ByteBuffer buffer) {
+        checkArgument(buffer.capacity() >= MAX_CHAR_BYTES,
+                "buffer must hold at least %s bytes", MAX_CHAR_BYTES);
+        checkArgument(!buffer.isReadOnly(), "buffer is read-only");
+        this.channel = channel;
+        this.stream = stream;
+        this.buffer = buffer;
+        buffer.clear();
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        checkRange(cbuf.length, off, len);
+        ByteBuffer buffer = this.buffer;
+        for (int i = off, end = off + len; i < end; i++) {
+            char c = cbuf[i];
+            if (c < 0x80 && this.highSurrogate == 0) {
+                if (!buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+                buffer.put((byte) c);
+            } else {
+                writeChar(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        checkRange(str.length(), off, len);
+        ByteBuffer buffer = this.buffer;
+        for (int i = off, end = off + len; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80 && this.highSurrogate == 0) {
+                if (!buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+                buffer.put((byte) c);
+            } else {
+                writeChar(c);
+            }
+        }
+    }
+
+    @Override
+    public Utf8Writer append(CharSequence csq, int start, int end)
+            throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        if (csq instanceof String) {
+            write((String) csq, start, end - start);
+            return this;
+        }
+        ensureOpen();
+        checkRange(csq.length(), start, end - start);
+        for (int i = start; i < end; i++) {
+            writeChar(csq.charAt(i));
+        }
+        return this;
+    }
+
+    private void writeChar(char c) throws IOException {
+        if (this.buffer.remaining() < MAX_CHAR_BYTES) {
+            flushBuffer();
+        }
+        ByteBuffer buffer = this.buffer;
+        if (this.highSurrogate != 0) {
+            char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                return;
+            }
+            buffer.put((byte) '?');
+            writeChar(c);
+            return;
+        }
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    /**
+     * Writes the encoded bytes to the target, without flushing the target. A
+     * held back high surrogate stays held back.
+     */
+    public void flushBuffer() throws IOException {
+        ByteBuffer buffer = this.buffer;
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        if (this.stream != null && buffer.hasArray()) {
+            this.stream.write(buffer.array(), buffer.arrayOffset(),
+                    buffer.limit());
+        } else if (this.stream != null) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            this.stream.write(bytes);
+        } else {
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Encodes a held back high surrogate as {@code '?'}, and writes
+     * everything to the target.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            if (!this.buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            this.buffer.put((byte) '?');
+        }
+        flushBuffer();
+        if (this.stream != null) {
+            this.stream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            this.closed = true;
+            if (this.stream != null) {
+                this.stream.close();
+            } else {
+                this.channel.close();
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static void checkRange(int length, int off, int len) {
+        if (off < 0 || len < 0 || len > length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+}
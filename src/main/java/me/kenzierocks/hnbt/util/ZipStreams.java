@@ -0,0 +1,440 @@
+package me.kenzierocks.hnbt.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Gzip and zlib streams that borrow their {@link Inflater} or
+ * {@link Deflater} from a pool, and return it when closed. Creating a new
+ * one for every stream allocates native memory that is only freed by
+ * finalization, which adds up when many small documents are read.
+ *
+ * <p>
+ * The gzip reader accepts concatenated members, like
+ * {@link java.util.zip.GZIPInputStream}, but fails on anything else after
+ * the first member.
+ * </p>
+ */
+public final class ZipStreams {
+
+    private static final int GZIP_MAGIC = 0x8B1F;
+    private static final int GZIP_FHCRC = 2;
+    private static final int GZIP_FEXTRA = 4;
+    private static final int GZIP_FNAME = 8;
+    private static final int GZIP_FCOMMENT = 16;
+    private static final byte[] GZIP_HEADER =
+            { 0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private static final int POOL_SIZE =
+            2 * Runtime.getRuntime().availableProcessors();
+    // the raw pools hold the nowrap instances used for gzip
+    private static final BlockingQueue<Inflater> INFLATERS =
+            new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Inflater> RAW_INFLATERS =
+            new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> DEFLATERS =
+            new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> RAW_DEFLATERS =
+            new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static Inflater acquireInflater(boolean nowrap) {
+        Inflater inflater = (nowrap ? RAW_INFLATERS : INFLATERS).poll();
+        return inflater == null ? new Inflater(nowrap) : inflater;
+    }
+
+    private static void releaseInflater(Inflater inflater, boolean nowrap) {
+        inflater.reset();
+        if (!(nowrap ? RAW_INFLATERS : INFLATERS).offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    private static Deflater acquireDeflater(boolean nowrap) {
+        Deflater deflater = (nowrap ? RAW_DEFLATERS : DEFLATERS).poll();
+        return deflater == null
+                ? new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap)
+                : deflater;
+    }
+
+    private static void releaseDeflater(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!(nowrap ? RAW_DEFLATERS : DEFLATERS).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns how many idle gzip or zlib inflaters are pooled. An inflater is
+     * only returned to the pool when its stream is closed, so this can be
+     * used to check that decompressing streams are not leaked.
+     */
+    public static int pooledInflaters(boolean gzip) {
+        return (gzip ? RAW_INFLATERS : INFLATERS).size();
+    }
+
+    /**
+     * Returns whether {@code b0} and {@code b1} start a gzip member.
+     */
+    public static boolean isGzipHeader(int b0, int b1) {
+        return (b0 | (b1 << 8)) == GZIP_MAGIC;
+    }
+
+    /**
+     * Returns whether {@code b0} and {@code b1} start a zlib stream without a
+     * preset dictionary.
+     */
+    public static boolean isZlibHeader(int b0, int b1) {
+        return (b0 & 0x0F) == Deflater.DEFLATED && (b0 >> 4) <= 7
+                && (b1 & 0x20) == 0 && ((b0 << 8) | b1) % 31 == 0;
+    }
+
+    public static InputStream gzipInput(InputStream in, int bufferSize)
+            throws IOException {
+        return new InflatingInputStream(in, true, bufferSize);
+    }
+
+    public static InputStream zlibInput(InputStream in, int bufferSize)
+            throws IOException {
+        return new InflatingInputStream(in, false, bufferSize);
+    }
+
+    /**
+     * The returned stream must be closed to write the end of the data.
+     */
+    public static OutputStream gzipOutput(OutputStream out, int bufferSize)
+            throws IOException {
+        return new DeflatingOutputStream(out, true, bufferSize);
+    }
+
+    /**
+     * The returned stream must be closed to write the end of the data.
+     */
+    public static OutputStream zlibOutput(OutputStream out, int bufferSize)
+            throws IOException {
+        return new DeflatingOutputStream(out, false, bufferSize);
+    }
+
+    private static final class InflatingInputStream extends FilterInputStream {
+
+        private final boolean gzip;
+        private final byte[] buffer;
+        private final CRC32 crc = new CRC32();
+        private Inflater inflater;
+        private int pos;
+        private int limit;
+        private boolean eof;
+
+        InflatingInputStream(InputStream in, boolean gzip, int bufferSize)
+                throws IOException {
+            super(checkNotNull(in));
+            checkArgument(bufferSize > 0, "buffer size must be positive");
+            this.gzip = gzip;
+            this.buffer = new byte[bufferSize];
+            if (gzip) {
+                readGzipHeader(readByte());
+            }
+            this.inflater = acquireInflater(gzip);
+        }
+
+        private int readByte() throws IOException {
+            if (this.pos == this.limit) {
+                int read = this.in.read(this.buffer);
+                if (read == -1) {
+                    return -1;
+                }
+                this.pos = 0;
+                this.limit = read;
+            }
+            return this.buffer[this.pos++] & 0xFF;
+        }
+
+        private int readRequiredByte() throws IOException {
+            int b = readByte();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of compressed data");
+            }
+            return b;
+        }
+
+        private int readShortLe() throws IOException {
+            return readRequiredByte() | (readRequiredByte() << 8);
+        }
+
+        private long readIntLe() throws IOException {
+            return readShortLe() | ((long) readShortLe() << 16);
+        }
+
+        private void readGzipHeader(int first) throws IOException {
+            CRC32 headerCrc = new CRC32();
+            int second = readByte();
+            if (first == -1 || second == -1 || !isGzipHeader(first, second)) {
+                throw new ZipException("Not in GZIP format");
+            }
+            int method = readRequiredByte();
+            if (method != Deflater.DEFLATED) {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flags = readRequiredByte();
+            headerCrc.update(first);
+            headerCrc.update(second);
+            headerCrc.update(method);
+            headerCrc.update(flags);
+            // modification time, extra flags and operating system
+            for (int i = 0; i < 6; i++) {
+                headerCrc.update(readRequiredByte());
+            }
+            if ((flags & GZIP_FEXTRA) != 0) {
+                int length = readShortLe();
+                headerCrc.update(length & 0xFF);
+                headerCrc.update(length >> 8);
+                for (int i = 0; i < length; i++) {
+                    headerCrc.update(readRequiredByte());
+                }
+            }
+            if ((flags & GZIP_FNAME) != 0) {
+                skipZeroTerminated(headerCrc);
+            }
+            if ((flags & GZIP_FCOMMENT) != 0) {
+                skipZeroTerminated(headerCrc);
+            }
+            if ((flags & GZIP_FHCRC) != 0) {
+                int expected = (int) headerCrc.getValue() & 0xFFFF;
+                if (readShortLe() != expected) {
+                    throw new ZipException("Corrupt GZIP header");
+                }
+            }
+        }
+
+        private void skipZeroTerminated(CRC32 headerCrc) throws IOException {
+            int b;
+            do {
+                b = readRequiredByte();
+                headerCrc.update(b);
+            } while (b != 0);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.inflater == null) {
+                throw new IOException("Stream closed");
+            }
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            Inflater inflater = this.inflater;
+            while (!this.eof) {
+                int read;
+                try {
+                    read = inflater.inflate(b, off, len);
+                } catch (DataFormatException e) {
+                    String message = e.getMessage();
+                    throw new ZipException(
+                            message == null ? "Invalid compressed data"
+                                    : message);
+                }
+                if (read > 0) {
+                    if (this.gzip) {
+                        this.crc.update(b, off, read);
+                    }
+                    return read;
+                }
+                if (inflater.finished()) {
+                    this.pos = this.limit - inflater.getRemaining();
+                    endMember();
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException(
+                            "Preset dictionaries are not supported");
+                } else if (inflater.needsInput()) {
+                    if (this.pos == this.limit) {
+                        int count = this.in.read(this.buffer);
+                        if (count == -1) {
+                            throw new EOFException(
+                                    "Unexpected end of compressed data");
+                        }
+                        this.pos = 0;
+                        this.limit = count;
+                    }
+                    inflater.setInput(this.buffer, this.pos,
+                            this.limit - this.pos);
+                    this.pos = this.limit;
+                }
+            }
+            return -1;
+        }
+
+        private void endMember() throws IOException {
+            if (!this.gzip) {
+                this.eof = true;
+                return;
+            }
+            long crc = readIntLe();
+            long size = readIntLe();
+            // the size is stored modulo 2^32
+            long written = this.inflater.getBytesWritten() & 0xFFFFFFFFL;
+            if (crc != this.crc.getValue() || size != written) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+            int next = readByte();
+            if (next == -1) {
+                this.eof = true;
+                return;
+            }
+            readGzipHeader(next);
+            this.inflater.reset();
+            this.crc.reset();
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (this.inflater == null) {
+                throw new IOException("Stream closed");
+            }
+            return this.eof ? 0 : 1;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] skipBuffer = new byte[(int) Math.min(n, 512)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(skipBuffer, 0,
+                        (int) Math.min(n - skipped, skipBuffer.length));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.inflater != null) {
+                releaseInflater(this.inflater, this.gzip);
+                this.inflater = null;
+                this.in.close();
+            }
+        }
+
+    }
+
+    private static final class DeflatingOutputStream
+            extends FilterOutputStream {
+
+        private final boolean gzip;
+        private final byte[] buffer;
+        private final CRC32 crc = new CRC32();
+        private Deflater deflater;
+
+        DeflatingOutputStream(OutputStream out, boolean gzip, int bufferSize)
+                throws IOException {
+            super(checkNotNull(out));
+            checkArgument(bufferSize > 0, "buffer size must be positive");
+            this.gzip = gzip;
+            this.buffer = new byte[bufferSize];
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+            this.deflater = acquireDeflater(gzip);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.deflater == null) {
+                throw new IOException("Stream closed");
+            }
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return;
+            }
+            this.deflater.setInput(b, off, len);
+            while (!this.deflater.needsInput()) {
+                deflate();
+            }
+            if (this.gzip) {
+                this.crc.update(b, off, len);
+            }
+        }
+
+        private void deflate() throws IOException {
+            int count = this.deflater.deflate(this.buffer);
+            if (count > 0) {
+                this.out.write(this.buffer, 0, count);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.deflater == null) {
+                return;
+            }
+            try {
+                this.deflater.finish();
+                while (!this.deflater.finished()) {
+                    deflate();
+                }
+                if (this.gzip) {
+                    writeIntLe(this.crc.getValue());
+                    writeIntLe(this.deflater.getBytesRead());
+                }
+            } finally {
+                releaseDeflater(this.deflater, this.gzip);
+                this.deflater = null;
+                this.out.close();
+            }
+        }
+
+        private void writeIntLe(long value) throws IOException {
+            this.out.write((int) value);
+            this.out.write((int) (value >> 8));
+            this.out.write((int) (value >> 16));
+            this.out.write((int) (value >> 24));
+        }
+
+    }
+
+    private ZipStreams() {
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,61 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.util.ByteBufferDataInput;
+
+public class ByteBufferDataInputTest {
+
+    @SuppressWarnings("deprecation")
+    private static void assertLinesLikeDataInputStream(byte[] bytes)
+            throws Exception {
+        DataInputStream expected =
+                new DataInputStream(new ByteArrayInputStream(bytes));
+        ByteBufferDataInput actual =
+                new ByteBufferDataInput(ByteBuffer.wrap(bytes));
+        String line;
+        do {
+            line = expected.readLine();
+            assertEquals(line, actual.readLine());
+        } while (line != null);
+    }
+
+    @Test
+    public void readLine() throws Exception {
+        assertLinesLikeDataInputStream(new byte[0]);
+        assertLinesLikeDataInputStream("one\ntwo\r\nthree\rfour"
+                .getBytes(StandardCharsets.UTF_8));
+        assertLinesLikeDataInputStream("\n\r\n\r\r".getBytes(
+                StandardCharsets.UTF_8));
+        assertLinesLikeDataInputStream(new byte[] { 'a', (byte) 0xE9, '\n',
+                (byte) 0xFF });
+    }
+
+    @Test
+    public void readLineThenOtherReads() throws Exception {
+        ByteBufferDataInput in = new ByteBufferDataInput(ByteBuffer.wrap(
+                new byte[] { 'a', '\r', '\n', 0, 0, 0, 42 }));
+        assertEquals("a", in.readLine());
+        assertEquals(42, in.readInt());
+    }
+
+    @Test
+    public void skipBytes() throws Exception {
+        ByteBufferDataInput in = new ByteBufferDataInput(
+                ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }));
+        assertEquals(1, in.skipBytes(1));
+        assertEquals(0, in.skipBytes(0));
+        assertEquals(0, in.skipBytes(-2));
+        assertEquals(2, in.readByte());
+        assertEquals(2, in.skipBytes(10));
+        assertEquals(0, in.skipBytes(1));
+    }
+
+}
@@ -0,0 +1,244 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.IntTag;
+import org.jnbt.StringTag;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+
+import me.kenzierocks.hnbt.util.ZipStreams;
+
+public class CompressionTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] sampleData(int size) {
+        byte[] data = new byte[size];
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            // compressible, but not trivially
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] compress(Compression compression, byte[] data,
+            int bufferSize) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compression.compress(bytes, bufferSize)) {
+            out.write(data, 0, data.length / 2);
+            for (int i = data.length / 2; i < data.length; i++) {
+                out.write(data[i]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decompress(Compression compression, byte[] data,
+            int bufferSize) throws Exception {
+        try (InputStream in = compression
+                .decompress(new ByteArrayInputStream(data), bufferSize)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Test
+    public void roundTrips() throws Exception {
+        for (Compression compression : Compression.values()) {
+            for (int size : new int[] { 0, 1, 1000, 100000 }) {
+                byte[] data = sampleData(size);
+                for (int bufferSize : new int[] { 1, 7, 8192 }) {
+                    byte[] compressed = compress(compression, data, bufferSize);
+                    assertArrayEquals(data,
+                            decompress(compression, compressed, bufferSize));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void interoperatesWithJdkStreams() throws Exception {
+        byte[] data = sampleData(50000);
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(data);
+        }
+        assertArrayEquals(data,
+                decompress(Compression.GZIP, gzip.toByteArray(), 64));
+        assertArrayEquals(data,
+                ByteStreams.toByteArray(new GZIPInputStream(
+                        new ByteArrayInputStream(
+                                compress(Compression.GZIP, data, 64)))));
+
+        ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(zlib)) {
+            out.write(data);
+        }
+        assertArrayEquals(data,
+                decompress(Compression.ZLIB, zlib.toByteArray(), 64));
+        assertArrayEquals(data,
+                ByteStreams.toByteArray(new InflaterInputStream(
+                        new ByteArrayInputStream(
+                                compress(Compression.ZLIB, data, 64)))));
+    }
+
+    @Test
+    public void readsConcatenatedGzipMembers() throws Exception {
+        byte[] first = compress(Compression.GZIP, sampleData(300), 16);
+        byte[] second = compress(Compression.GZIP, sampleData(700), 16);
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        byte[] expected = Arrays.copyOf(sampleData(300), 1000);
+        System.arraycopy(sampleData(700), 0, expected, 300, 700);
+        assertArrayEquals(expected, decompress(Compression.GZIP, both, 16));
+    }
+
+    @Test
+    public void rejectsCorruptData() throws Exception {
+        byte[] gzip = compress(Compression.GZIP, sampleData(1000), 8192);
+        byte[] badCrc = gzip.clone();
+        badCrc[badCrc.length - 8] ^= 1;
+        try {
+            decompress(Compression.GZIP, badCrc, 8192);
+            fail("Accepted a bad CRC");
+        } catch (ZipException expected) {
+            // ok.
+        }
+        try {
+            decompress(Compression.GZIP,
+                    Arrays.copyOf(gzip, gzip.length - 20), 8192);
+            fail("Accepted truncated data");
+        } catch (EOFException expected) {
+            // ok.
+        }
+        try {
+            decompress(Compression.GZIP, sampleData(100), 8192);
+            fail("Accepted data that is not gzip");
+        } catch (ZipException expected) {
+            // ok.
+        }
+    }
+
+    @Test
+    public void detectsCompression() throws Exception {
+        byte[] data = "compound root = {}".getBytes(StandardCharsets.UTF_8);
+        for (Compression compression : Compression.values()) {
+            InputStream in = new BufferedInputStream(new ByteArrayInputStream(
+                    compress(compression, data, 8192)));
+            assertEquals(compression, Compression.detect(in));
+            assertArrayEquals(data, ByteStreams
+                    .toByteArray(Compression.decompressDetected(in)));
+        }
+        assertEquals(Compression.NONE, Compression.detect(
+                new BufferedInputStream(new ByteArrayInputStream(new byte[] {
+                        0x0A, 0 }))));
+    }
+
+    @Test
+    public void entryPointsDetectCompression() throws Exception {
+        CompoundTag nbt = new CompoundTag("root",
+                ImmutableMap.of("s", new StringTag("s", "text"), "i",
+                        new IntTag("i", 1)));
+        for (Compression compression : Compression.values()) {
+            ByteArrayOutputStream hnbt = new ByteArrayOutputStream();
+            NbtToHnbt.parseNbtIntoHnbtUtf8(nbt, hnbt, compression);
+            byte[] bytes = hnbt.toByteArray();
+            assertEquals(nbt, HnbtToNbt
+                    .parseHnbtIntoNbt(new ByteArrayInputStream(bytes)));
+            assertEquals(nbt, HnbtToNbt
+                    .parseHnbtIntoNbtDirect(new ByteArrayInputStream(bytes)));
+            Path file = this.folder.newFile().toPath();
+            Files.write(file, bytes);
+            assertEquals(nbt, HnbtToNbt.parseHnbtIntoNbt(file));
+
+            ByteArrayOutputStream binary = new ByteArrayOutputStream();
+            NbtTranscoder.transcodeHnbtToNbt(new ByteArrayInputStream(bytes),
+                    binary, compression);
+            StringBuilder back = new StringBuilder();
+            NbtTranscoder.transcodeNbtToHnbt(
+                    new ByteArrayInputStream(binary.toByteArray()), back);
+            assertEquals(NbtToHnbt.parseNbtIntoHnbt(nbt), back.toString());
+        }
+    }
+
+    private static final class CloseTrackingStream extends FilterInputStream {
+
+        boolean closed;
+
+        CloseTrackingStream(byte[] data) {
+            super(new ByteArrayInputStream(data));
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.closed = true;
+            super.close();
+        }
+
+    }
+
+    @Test
+    public void entryPointsReturnInflaters() throws Exception {
+        CompoundTag nbt = new CompoundTag("root",
+                ImmutableMap.of("i", new IntTag("i", 1)));
+        ByteArrayOutputStream hnbt = new ByteArrayOutputStream();
+        NbtToHnbt.parseNbtIntoHnbtUtf8(nbt, hnbt, Compression.GZIP);
+        byte[] bytes = hnbt.toByteArray();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        NbtTranscoder.transcodeHnbtToNbt(new ByteArrayInputStream(bytes),
+                binary, Compression.GZIP);
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, bytes);
+
+        // make sure the pool holds at least one inflater
+        decompress(Compression.GZIP, bytes, 8192);
+        int pooled = ZipStreams.pooledInflaters(true);
+        for (int i = 0; i < 10; i++) {
+            CloseTrackingStream in = new CloseTrackingStream(bytes);
+            assertEquals(nbt, HnbtToNbt.parseHnbtIntoNbt(in));
+            assertFalse(in.closed);
+            in = new CloseTrackingStream(bytes);
+            assertEquals(nbt, HnbtToNbt.parseHnbtIntoNbtDirect(in));
+            assertFalse(in.closed);
+            assertEquals(nbt, HnbtToNbt.parseHnbtIntoNbt(file));
+            in = new CloseTrackingStream(bytes);
+            NbtTranscoder.transcodeHnbtToNbt(in, new ByteArrayOutputStream());
+            assertFalse(in.closed);
+            in = new CloseTrackingStream(binary.toByteArray());
+            NbtTranscoder.transcodeNbtToHnbt(in, new StringBuilder());
+            assertFalse(in.closed);
+            assertEquals(pooled, ZipStreams.pooledInflaters(true));
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.jnbt.CompoundTag;
+import org.junit.Test;
+
+public class DirectParseTest {
+
+    private static final String KITCHEN_SINK = "compound root = {\n"
+            + "    list ints = [int = 1, int = -2, int = 003],\n"
+            + "    list compounds = [\n"
+            + "        compound = {\n"
+            + "            string id = \"minecraft:stone\",\n"
+            + "            byte Count = -128\n"
+            + "        },\n"
+            + "        compound = {}\n"
+            + "    ],\n"
+            + "    list nested = [list = [], list = [string = \"x\"]],\n"
+            + "    byte-array bytes = [1, -1, 127, -128],\n"
+            + "    int-array ints2 = [2147483647, -2147483648, 0],\n"
+            + "    long l = -9223372036854775808,\n"
+            + "    float f = -.5,\n"
+            + "    float f2 = .25,\n"
+            + "    double d = -0.125,\n"
+            + "    string esc = \"\\u0041\\101\\t\\\"q\\\" \\' \\\\ \\8\",\n"
+            + "    compound = {short s = 1},\n"
+            + "    int dup = 1,\n"
+            + "    int dup = 2\n"
+            + "}\n";
+
+    /**
+     * A reader that hands out one character at a time, to exercise buffer
+     * refills in the middle of tokens.
+     */
+    private static final class TrickleReader extends Reader {
+
+        private final Reader delegate;
+
+        TrickleReader(String data) {
+            this.delegate = new StringReader(data);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return this.delegate.read(cbuf, off, Math.min(len, 1));
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.delegate.close();
+        }
+
+    }
+
+    private static void assertSameAsAntlr(String hnbt) throws Exception {
+        CompoundTag expected = HnbtToNbt.parseHnbtIntoNbt(hnbt);
+        assertEquals(expected, HnbtToNbt.parseHnbtIntoNbtDirect(hnbt));
+        assertEquals(expected,
+                HnbtToNbt.parseHnbtIntoNbtDirect(new TrickleReader(hnbt)));
+    }
+
+    private static HNBTParsingException assertRejected(String hnbt)
+            throws Exception {
+        try {
+            CompoundTag tag = HnbtToNbt.parseHnbtIntoNbtDirect(hnbt);
+            fail("Parsed incorrectly into " + tag);
+            throw new AssertionError();
+        } catch (HNBTParsingException expected) {
+            return expected;
+        }
+    }
+
+    @Test
+    public void kitchenSink() throws Exception {
+        // -.5 is not a valid float, swap it for something ANTLR accepts
+        assertRejected(KITCHEN_SINK);
+        assertSameAsAntlr(KITCHEN_SINK.replace("-.5", "-0.5"));
+    }
+
+    @Test
+    public void whitespaceVariations() throws Exception {
+        assertSameAsAntlr("compound root={}");
+        assertSameAsAntlr("\t\r\n compound\n\troot\n=\n{\n}\n\n");
+        assertSameAsAntlr("compound root={int\ta=1,list\nb=[int=1 , int= 2]}");
+        assertSameAsAntlr("compound root = { string s = \"\" }");
+    }
+
+    @Test
+    public void longValuesCrossBufferBoundaries() throws Exception {
+        StringBuilder hnbt = new StringBuilder("compound root = {");
+        for (int i = 0; i < 2000; i++) {
+            hnbt.append("string aVeryLongTagNameThatIsRepeated").append(i)
+                    .append(" = \"");
+            for (int j = 0; j < i % 50; j++) {
+                hnbt.append("\\\"x");
+            }
+            hnbt.append("\",\n");
+        }
+        hnbt.append("int-array last = [1, 2, 3]}");
+        assertSameAsAntlr(hnbt.toString());
+    }
+
+    @Test
+    public void rejectsWhatTheGrammarRejects() throws Exception {
+        assertRejected("compound rat = {}");
+        assertRejected("compound root = {foobarsyntax}");
+        assertRejected("compound root = {int a = 1,}");
+        assertRejected("compound root = {inta = 1}");
+        assertRejected("compound root = {int a = 1.0}");
+        assertRejected("compound root = {float a = 1}");
+        assertRejected("compound root = {byte a = 128}");
+        assertRejected("compound root = {list a = [int b = 1]}");
+        assertRejected("compound root = {list a = [int = 1, byte = 1]}");
+        assertRejected("compound root = {string a = \"abc}");
+        assertRejected("compound root = {} trailing");
+        assertRejected("list root = []");
+    }
+
+    @Test
+    public void errorsHavePositions() throws Exception {
+        HNBTParsingException ex =
+                assertRejected("compound root = {\n    int a = 1,\n    int b = x\n}");
+        assertTrue(ex.getMessage(),
+                ex.getMessage().endsWith("line 3 at pos 12"));
+    }
+
+}
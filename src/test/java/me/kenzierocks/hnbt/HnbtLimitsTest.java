@@ -0,0 +1,176 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+import me.kenzierocks.hnbt.HnbtParser.Engine;
+
+public class HnbtLimitsTest {
+
+    private static HnbtParser parser(Engine engine, HnbtLimits limits) {
+        return HnbtParser.builder().engine(engine).limits(limits).build();
+    }
+
+    /**
+     * Checks that every engine and input rejects {@code hnbt} with the same
+     * error, and returns it.
+     */
+    private static HNBTParsingException assertRejected(HnbtLimits limits,
+            String hnbt, String message) throws Exception {
+        HNBTParsingException first = null;
+        for (Engine engine : Engine.values()) {
+            for (boolean reader : new boolean[] { false, true }) {
+                HnbtParser parser = parser(engine, limits);
+                try {
+                    if (reader) {
+                        parser.parse(new StringReader(hnbt));
+                    } else {
+                        parser.parse(hnbt);
+                    }
+                    fail(engine + " accepted " + hnbt);
+                } catch (HNBTParsingException e) {
+                    assertTrue(e.getMessage(),
+                            e.getMessage().startsWith(message));
+                    if (first == null) {
+                        first = e;
+                    }
+                    assertEquals(first.getMessage(), e.getMessage());
+                }
+            }
+        }
+        return first;
+    }
+
+    private static void assertAccepted(HnbtLimits limits, String hnbt)
+            throws Exception {
+        for (Engine engine : Engine.values()) {
+            assertEquals(HnbtToNbt.parseHnbtIntoNbt(hnbt),
+                    parser(engine, limits).parse(hnbt));
+            assertEquals(HnbtToNbt.parseHnbtIntoNbt(hnbt),
+                    parser(engine, limits).parse(new StringReader(hnbt)));
+        }
+    }
+
+    @Test
+    public void depth() throws Exception {
+        HnbtLimits limits = HnbtLimits.builder().maxDepth(3).build();
+        assertAccepted(limits,
+                "compound root = {compound a = {list b = [int = 1]}}");
+        HNBTParsingException e = assertRejected(limits,
+                "compound root = {compound a = {list b = [list = []]}}",
+                "nesting is deeper than the limit of 3");
+        assertEquals(1, e.getLine());
+        assertEquals(48, e.getColumn());
+    }
+
+    @Test
+    public void deepInputDoesNotOverflowTheStack() throws Exception {
+        int depth = 100000;
+        String hnbt = "compound root = "
+                + Strings.repeat("{compound c = ", depth) + "{}"
+                + Strings.repeat("}", depth);
+        assertRejected(HnbtLimits.builder().maxDepth(64).build(), hnbt,
+                "nesting is deeper than the limit of 64");
+    }
+
+    @Test
+    public void tags() throws Exception {
+        HnbtLimits limits = HnbtLimits.builder().maxTags(3).build();
+        assertAccepted(limits,
+                "compound root = {int a = 1, list b = [int = 1]}");
+        assertRejected(limits,
+                "compound root = {int a = 1, list b = [int = 1, int = 2]}",
+                "document has more than the limit of 3 tags");
+    }
+
+    @Test
+    public void elements() throws Exception {
+        HnbtLimits limits = HnbtLimits.builder().maxElements(2).build();
+        assertAccepted(limits, "compound root = {list l = [int = 1, int = 2],"
+                + " byte-array b = [1, 2], int-array i = [1, 2]}");
+        assertRejected(limits,
+                "compound root = {list l = [int = 1, int = 2, int = 3]}",
+                "list has more than the limit of 2 elements");
+        assertRejected(limits, "compound root = {byte-array b = [1, 2, 3]}",
+                "byte array has more than the limit of 2 elements");
+        assertRejected(limits, "compound root = {int-array i = [1, 2, 3]}",
+                "int array has more than the limit of 2 elements");
+    }
+
+    @Test
+    public void stringLength() throws Exception {
+        // escapes are counted as written
+        HnbtLimits limits = HnbtLimits.builder().maxStringLength(5).build();
+        assertAccepted(limits, "compound root = {string s = \"ab\\\"c\"}");
+        assertRejected(limits, "compound root = {string s = \"abc\\\"d\"}",
+                "string is longer than the limit of 5 characters");
+    }
+
+    @Test
+    public void chars() throws Exception {
+        String hnbt = "compound root = {int a = 1}";
+        assertAccepted(
+                HnbtLimits.builder().maxChars(hnbt.length()).build(), hnbt);
+        assertRejected(
+                HnbtLimits.builder().maxChars(hnbt.length() - 1).build(),
+                hnbt, "input is longer than the limit of "
+                        + (hnbt.length() - 1) + " characters");
+    }
+
+    @Test
+    public void readerStopsAtTheLimit() throws Exception {
+        String hnbt = "compound root = {string s = \""
+                + Strings.repeat("x", 100000) + "\"}";
+        HnbtReader reader = new HnbtReader(new StringReader(hnbt));
+        reader.setLimits(HnbtLimits.builder().maxChars(100).build());
+        reader.beginCompound();
+        reader.nextName();
+        try {
+            reader.nextString();
+            fail("read past the limit");
+        } catch (HNBTParsingException e) {
+            assertTrue(e.getMessage(), e.getMessage()
+                    .startsWith("input is longer than the limit of 100"));
+        }
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        HnbtParser parser = HnbtParser.builder().failFast(true).build();
+        String hnbt = "compound root = {int a = 1, list b = [int = 1]}";
+        assertEquals(HnbtToNbt.parseHnbtIntoNbt(hnbt), parser.parse(hnbt));
+        try {
+            parser.parse("compound root = {int a = 1,\n int b = }");
+            fail("accepted broken input");
+        } catch (HNBTParsingException e) {
+            assertEquals(2, e.getLine());
+            assertEquals(9, e.getColumn());
+        }
+        // still usable afterwards
+        assertEquals(HnbtToNbt.parseHnbtIntoNbt(hnbt), parser.parse(hnbt));
+    }
+
+    @Test
+    public void invalidLimits() throws Exception {
+        try {
+            HnbtLimits.builder().maxDepth(0);
+            fail("accepted a depth of 0");
+        } catch (IllegalArgumentException e) {
+            // ok.
+        }
+        try {
+            HnbtLimits.builder().maxTags(-1);
+            fail("accepted a negative tag count");
+        } catch (IllegalArgumentException e) {
+            // ok.
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jnbt.CompoundTag;
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.HnbtParser.Engine;
+
+public class HnbtParserTest {
+
+    private static final String DOCUMENT = "compound root = {\n"
+            + "    string s = \"value \\\"quoted\\\"\",\n"
+            + "    list ints = [int = 1, int = -2],\n"
+            + "    byte-array bytes = [1, 2, 3],\n"
+            + "    compound nested = {double d = 0.5, long l = 7}\n" + "}\n";
+
+    private static String document(int i) {
+        return "compound root = {int i = " + i + ", string s = \"" + i
+                + "\", list l = [compound = {short n = " + (i % 100)
+                + "}]}";
+    }
+
+    @Test
+    public void matchesStaticParsers() throws Exception {
+        CompoundTag expected = HnbtToNbt.parseHnbtIntoNbt(DOCUMENT);
+        for (Engine engine : Engine.values()) {
+            HnbtParser parser = HnbtParser.builder().engine(engine).build();
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected, parser.parse(DOCUMENT));
+                assertEquals(expected,
+                        parser.parse(new StringReader(DOCUMENT)));
+            }
+        }
+    }
+
+    @Test
+    public void reusableAfterError() throws Exception {
+        for (Engine engine : Engine.values()) {
+            HnbtParser parser = HnbtParser.builder().engine(engine).build();
+            try {
+                parser.parse("compound root = {foobarsyntax}");
+                fail("parsed a broken document with " + engine);
+            } catch (HNBTParsingException e) {
+                // ok.
+            }
+            assertEquals(HnbtToNbt.parseHnbtIntoNbt(DOCUMENT),
+                    parser.parse(DOCUMENT));
+        }
+    }
+
+    @Test
+    public void shorterDocumentAfterLonger() throws Exception {
+        for (Engine engine : Engine.values()) {
+            HnbtParser parser = HnbtParser.builder().engine(engine).build();
+            parser.parse(DOCUMENT);
+            assertEquals(HnbtToNbt.parseHnbtIntoNbt(document(1)),
+                    parser.parse(document(1)));
+        }
+    }
+
+    @Test
+    public void sharedBetweenThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (Engine engine : Engine.values()) {
+                HnbtParser parser =
+                        HnbtParser.builder().engine(engine).build();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int offset = t * 1000;
+                    futures.add(executor.submit((Callable<Void>) () -> {
+                        for (int i = offset; i < offset + 200; i++) {
+                            assertEquals(
+                                    HnbtToNbt.parseHnbtIntoNbtDirect(
+                                            document(i)),
+                                    parser.parse(document(i)));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void warmUpAndClearDfa() throws Exception {
+        HnbtParser parser = HnbtParser.builder().build();
+        parser.clearDfaCache();
+        assertEquals(0, parser.getDfaStateCount());
+        parser.warmUp();
+        assertTrue("no DFA states after warming up",
+                parser.getDfaStateCount() > 0);
+        parser.parse(DOCUMENT);
+        parser.clearDfaCache();
+        assertEquals(0, parser.getDfaStateCount());
+        assertEquals(HnbtToNbt.parseHnbtIntoNbtDirect(DOCUMENT),
+                parser.parse(DOCUMENT));
+    }
+
+    @Test
+    public void dfaIsBounded() throws Exception {
+        HnbtParser parser = HnbtParser.builder().maxDfaStates(1).build();
+        parser.parse(DOCUMENT);
+        assertEquals(0, parser.getDfaStateCount());
+        try {
+            HnbtParser.builder().maxDfaStates(-1);
+            fail("accepted a negative bound");
+        } catch (IllegalArgumentException e) {
+            // ok.
+        }
+    }
+
+    @Test
+    public void deepDocument() throws Exception {
+        HnbtPrinter printer = new HnbtPrinter("");
+        String hnbt = printer.print(HnbtPrinterTest.deepTree(10000));
+        for (Engine engine : Engine.values()) {
+            HnbtParser parser = HnbtParser.builder().engine(engine).build();
+            assertEquals(hnbt, printer.print(parser.parse(hnbt)));
+            assertEquals(hnbt,
+                    printer.print(parser.parse(new StringReader(hnbt))));
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.Test;
+
+public class HnbtPrinterTest {
+
+    private static CompoundTag tree(int i) {
+        Map<String, Tag> root = new LinkedHashMap<>();
+        root.put("i", new IntTag("i", i));
+        root.put("s", new StringTag("s", "value \"" + i + "\"\n"));
+        List<Tag> ints = new ArrayList<>();
+        for (int j = 0; j < i % 5 + 1; j++) {
+            ints.add(new IntTag("", j));
+        }
+        root.put("l", new ListTag("l", IntTag.class, ints));
+        Map<String, Tag> nested = Collections.singletonMap("n",
+                new IntTag("n", -i));
+        root.put("c", new CompoundTag("c", nested));
+        return new CompoundTag("root", root);
+    }
+
+    /**
+     * A root compound holding {@code lists} lists, each in the one before.
+     */
+    static CompoundTag deepTree(int lists) {
+        Tag tag = new ListTag("", IntTag.class,
+                Collections.singletonList(new IntTag("", 1)));
+        for (int i = 1; i < lists; i++) {
+            tag = new ListTag("", ListTag.class,
+                    Collections.singletonList(tag));
+        }
+        tag = new ListTag("l", ListTag.class, ((ListTag) tag).getValue());
+        return new CompoundTag("root", Collections.singletonMap("l", tag));
+    }
+
+    @Test
+    public void matchesNbtToHnbt() throws Exception {
+        for (String indent : new String[] { "    ", "\t", "" }) {
+            HnbtPrinter printer = new HnbtPrinter(indent);
+            for (int i = 0; i < 3; i++) {
+                String expected = NbtToHnbt.parseNbtIntoHnbt(tree(i), indent);
+                assertEquals(expected, printer.print(tree(i)));
+                StringBuilder builder = new StringBuilder("prefix");
+                printer.print(tree(i), builder);
+                assertEquals("prefix" + expected, builder.toString());
+            }
+        }
+    }
+
+    @Test
+    public void reusableAfterError() throws Exception {
+        HnbtPrinter printer = new HnbtPrinter();
+        Map<String, Tag> bad = Collections.singletonMap("bad name",
+                new IntTag("bad name", 1));
+        Map<String, Tag> root = Collections.singletonMap("c",
+                new CompoundTag("c", bad));
+        StringBuilder builder = new StringBuilder();
+        try {
+            printer.print(new CompoundTag("root", root), builder);
+            fail("printed an invalid name");
+        } catch (IllegalArgumentException e) {
+            // ok.
+        }
+        assertEquals("", builder.toString());
+        assertEquals(NbtToHnbt.parseNbtIntoHnbt(tree(7)),
+                printer.print(tree(7)));
+    }
+
+    @Test
+    public void sharedBetweenThreads() throws Exception {
+        HnbtPrinter printer = new HnbtPrinter();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t * 1000;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    for (int i = offset; i < offset + 200; i++) {
+                        assertEquals(NbtToHnbt.parseNbtIntoHnbt(tree(i)),
+                                printer.print(tree(i)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void deepTree() throws Exception {
+        // with indentation, the text would grow with the square of the depth
+        String hnbt = new HnbtPrinter("").print(deepTree(10000));
+        assertTrue(hnbt.startsWith("compound root = {\nlist l = [\nlist = ["));
+        assertTrue(hnbt.endsWith("\n]\n]\n}\n"));
+    }
+
+    @Test
+    public void maxDepth() throws Exception {
+        HnbtPrinter printer = new HnbtPrinter("    ", 3);
+        assertEquals(NbtToHnbt.parseNbtIntoHnbt(deepTree(2)),
+                printer.print(deepTree(2)));
+        try {
+            printer.print(deepTree(3));
+            fail("printed a tree deeper than the limit");
+        } catch (IllegalArgumentException e) {
+            assertEquals("tag is nested deeper than the limit of 3",
+                    e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class HnbtReaderTest {
+
+    private static HnbtReader reader(String hnbt) {
+        return new HnbtReader(new StringReader(hnbt));
+    }
+
+    @Test
+    public void emptyRoot() throws Exception {
+        HnbtReader reader = reader("compound root = {}");
+        assertEquals(HnbtEvent.BEGIN_COMPOUND, reader.peek());
+        reader.beginCompound();
+        assertFalse(reader.hasNext());
+        reader.end();
+        assertEquals(HnbtEvent.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void eventsInOrder() throws Exception {
+        HnbtReader reader = reader("compound root = {\n"
+                + "    int a = 1,\n"
+                + "    list b = [string = \"x\", string = \"y\"],\n"
+                + "    compound c = {byte-array d = [1, 2]},\n"
+                + "    int-array e = [3],\n"
+                + "    double f = 0.5\n"
+                + "}");
+        reader.beginCompound();
+        assertEquals(HnbtEvent.NAME, reader.peek());
+        assertEquals("a", reader.nextName());
+        assertEquals(HnbtEvent.INT_VALUE, reader.peek());
+        assertEquals(1, reader.nextInt());
+        assertEquals("b", reader.nextName());
+        reader.beginList();
+        assertEquals(HnbtEvent.STRING_VALUE, reader.peek());
+        assertEquals("x", reader.nextString());
+        assertEquals("y", reader.nextString());
+        assertEquals(HnbtEvent.END, reader.peek());
+        reader.end();
+        assertEquals("c", reader.nextName());
+        reader.beginCompound();
+        assertEquals("d", reader.nextName());
+        assertArrayEquals(new byte[] { 1, 2 }, reader.nextByteArray());
+        reader.end();
+        assertEquals("e", reader.nextName());
+        assertArrayEquals(new int[] { 3 }, reader.nextIntArray());
+        assertEquals("f", reader.nextName());
+        assertEquals(0.5, reader.nextDouble(), 0);
+        reader.end();
+        assertEquals(HnbtEvent.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void skipValue() throws Exception {
+        HnbtReader reader = reader("compound root = {\n"
+                + "    compound skipped = {list l = [list = [int = 1]],"
+                + " string s = \"}]\"},\n"
+                + "    int-array skippedToo = [1, 2, 3],\n"
+                + "    string kept = \"yes\"\n"
+                + "}");
+        reader.beginCompound();
+        reader.skipValue();
+        assertEquals("skippedToo", reader.nextName());
+        reader.skipValue();
+        assertEquals("kept", reader.nextName());
+        assertEquals("yes", reader.nextString());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void skipValueStillChecksSyntax() throws Exception {
+        HnbtReader reader =
+                reader("compound root = {compound skipped = {int a = x}}");
+        reader.beginCompound();
+        try {
+            reader.skipValue();
+            fail("Skipped over invalid input");
+        } catch (HNBTParsingException expected) {
+            // ok.
+        }
+    }
+
+    @Test
+    public void mixedListIsRejected() throws Exception {
+        HnbtReader reader =
+                reader("compound root = {list l = [int = 1, byte = 2]}");
+        reader.beginCompound();
+        reader.nextName();
+        reader.beginList();
+        assertEquals(1, reader.nextInt());
+        try {
+            reader.peek();
+            fail("Allowed multiple types in a list");
+        } catch (HNBTParsingException expected) {
+            assertTrue(expected.getMessage(),
+                    expected.getMessage().startsWith("Multiple types"));
+        }
+    }
+
+    @Test
+    public void wrongGetterIsRejected() throws Exception {
+        HnbtReader reader = reader("compound root = {int a = 1}");
+        reader.beginCompound();
+        reader.nextName();
+        try {
+            reader.nextLong();
+            fail("Read an int as a long");
+        } catch (IllegalStateException expected) {
+            // ok.
+        }
+        assertEquals(1, reader.nextInt());
+    }
+
+}
@@ -0,0 +1,177 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+
+import me.kenzierocks.hnbt.util.ZipStreams;
+
+public class HnbtValidatorTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static String firstDirectError(String hnbt) {
+        try {
+            HnbtToNbt.parseHnbtIntoNbtDirect(hnbt);
+            fail("Parsed a broken document: " + hnbt);
+            throw new AssertionError();
+        } catch (HNBTParsingException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static void assertErrorsAt(String hnbt, int... linesAndColumns)
+            throws IOException {
+        List<HNBTParsingException> errors = HnbtValidator.validate(hnbt);
+        assertEquals(errors.toString(), linesAndColumns.length / 2,
+                errors.size());
+        for (int i = 0; i < errors.size(); i++) {
+            assertEquals(linesAndColumns[i * 2], errors.get(i).getLine());
+            assertEquals(linesAndColumns[i * 2 + 1],
+                    errors.get(i).getColumn());
+        }
+        assertEquals(errors.toString(), errors.size(),
+                HnbtValidator.validate(new StringReader(hnbt)).size());
+        if (!errors.isEmpty()) {
+            assertEquals(firstDirectError(hnbt), errors.get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void validDocuments() throws Exception {
+        assertErrorsAt("compound root = {}");
+        assertErrorsAt("compound root = {\n" + "    byte b = 1,\n"
+                + "    string s = \"\\\"a\\\", [b]\",\n"
+                + "    list l = [compound = {int-array a = [1, 2]}],\n"
+                + "    compound c = {double d = 0.5}\n" + "}\n");
+    }
+
+    @Test
+    public void collectsErrorsFromEachEntry() throws Exception {
+        assertErrorsAt("compound root = {\n" + "    byte b = 128,\n"
+                + "    int ok = 1,\n" + "    short s = x,\n"
+                + "    int i = 2147483648,\n" + "    long l = 5\n" + "}",
+                2, 13, 4, 14, 5, 12);
+    }
+
+    @Test
+    public void errorsInNestedContainers() throws Exception {
+        assertErrorsAt("compound root = {\n"
+                + "    compound c = {int a = 1 int b = 2, byte c = 1000},\n"
+                + "    list l = [int = 1, byte = 2, int = x],\n"
+                + "    byte-array a = [1, 300, 2],\n" + "    int z = 1\n"
+                + "}", 2, 28, 2, 48, 3, 23, 3, 39, 4, 23);
+    }
+
+    @Test
+    public void listTypeFromFirstGoodHeader() throws Exception {
+        assertErrorsAt(
+                "compound root = {list l = [intx = 1, byte = 1, int = 2]}",
+                1, 30, 1, 47);
+        assertErrorsAt("compound root = {list l = [int = x, byte = 1]}", 1, 33,
+                1, 36);
+    }
+
+    @Test
+    public void mismatchedBracketClosesContainer() throws Exception {
+        assertErrorsAt("compound root = {compound c = {int a = 1], int b = 2}",
+                1, 40);
+    }
+
+    @Test
+    public void brokenRootHeader() throws Exception {
+        assertErrorsAt("compound rat = {int a = x}", 1, 9);
+        assertErrorsAt("compound root = {} extra", 1, 19);
+    }
+
+    @Test
+    public void unterminatedInput() throws Exception {
+        assertErrorsAt("compound root = {int a = x, string s = \"oops}",
+                1, 25, 1, 39);
+    }
+
+    @Test
+    public void maxErrors() throws Exception {
+        StringBuilder hnbt = new StringBuilder("compound root = {");
+        for (int i = 0; i < 10; i++) {
+            hnbt.append("byte b").append(i).append(" = 999, ");
+        }
+        hnbt.append("int end = 0}");
+        assertEquals(10, HnbtValidator.validate(hnbt.toString()).size());
+        assertEquals(3, HnbtValidator
+                .validate(new StringReader(hnbt.toString()), 3).size());
+    }
+
+    @Test
+    public void validateAll() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Path file = this.folder.newFile("f" + i + ".hnbt").toPath();
+            String hnbt = i % 5 == 0 ? "compound root = {int a = x}"
+                    : "compound root = {int a = " + i + "}";
+            try (OutputStream out = i % 2 == 0 ? Files.newOutputStream(file)
+                    : Compression.GZIP.compress(Files.newOutputStream(file))) {
+                out.write(hnbt.getBytes(StandardCharsets.UTF_8));
+            }
+            files.add(file);
+        }
+        files.add(this.folder.getRoot().toPath().resolve("missing.hnbt"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            HnbtValidator.Report report =
+                    HnbtValidator.validateAll(files, pool);
+            assertFalse(report.isValid());
+            assertEquals(21, report.getFileCount());
+            assertEquals(5, report.getErrors().size());
+            assertEquals(5, report.getErrorCount());
+            assertEquals(files.get(0),
+                    report.getErrors().keySet().iterator().next());
+            assertTrue(report.toString(), report.toString()
+                    .endsWith("21 files checked, 5 invalid, 5 errors"));
+            assertTrue(HnbtValidator.validateAll(files.subList(1, 5), pool)
+                    .isValid());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void compressedFilesReturnInflaters() throws Exception {
+        Path file = this.folder.newFile("c.hnbt").toPath();
+        try (OutputStream out =
+                Compression.GZIP.compress(Files.newOutputStream(file))) {
+            out.write("compound root = {int a = x}"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        // make sure the pool holds at least one inflater
+        try (InputStream in = ZipStreams.gzipInput(Files.newInputStream(file),
+                64)) {
+            ByteStreams.toByteArray(in);
+        }
+        int pooled = ZipStreams.pooledInflaters(true);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, HnbtValidator.validate(file).size());
+            assertEquals(pooled, ZipStreams.pooledInflaters(true));
+        }
+    }
+
+}
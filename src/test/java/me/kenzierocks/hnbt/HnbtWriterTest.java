@@ -0,0 +1,132 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class HnbtWriterTest {
+
+    private static String getHnbtExpected(String fileName) throws IOException {
+        InputStream data =
+                HnbtWriterTest.class.getResourceAsStream("/" + fileName);
+        return StandardCharsets.UTF_8
+                .decode(ByteBuffer.wrap(ByteStreams.toByteArray(data)))
+                .toString();
+    }
+
+    @Test
+    public void emptyCompound() throws Exception {
+        StringBuilder out = new StringBuilder();
+        new HnbtWriter(out).beginCompound().end();
+        assertEquals(getHnbtExpected("empty_expected.hnbt"), out.toString());
+    }
+
+    @Test
+    public void allTypesInCompound() throws Exception {
+        StringBuilder out = new StringBuilder();
+        new HnbtWriter(out).beginCompound()
+                .name("list").beginList(TagType.END).end()
+                .name("byte").value(Byte.MAX_VALUE)
+                .name("byte-array").value(new byte[0])
+                .name("short").value(Short.MAX_VALUE)
+                .name("int").value(Integer.MAX_VALUE)
+                .name("int-array").value(new int[0])
+                .name("long").value(Long.MAX_VALUE)
+                .name("float").value(42.0f)
+                .name("double").value(42.5)
+                .name("string").value("\n to you too")
+                .beginCompound("compound")
+                .name("nested").value("lvl up!")
+                .end()
+                .end();
+        assertEquals(getHnbtExpected("all_types_expected.hnbt"),
+                out.toString());
+    }
+
+    @Test
+    public void matchesSerializerForNestedValues() throws Exception {
+        Map<String, Tag> inner = new LinkedHashMap<>();
+        inner.put("bytes", new ByteArrayTag("bytes", new byte[] { 1, -2 }));
+        inner.put("ints", new IntArrayTag("ints", new int[] { 3 }));
+        Map<String, Tag> root = new LinkedHashMap<>();
+        root.put("compounds",
+                new ListTag("compounds", CompoundTag.class,
+                        Arrays.asList(new CompoundTag("", inner),
+                                new CompoundTag("",
+                                        Collections.emptyMap()))));
+        root.put("lists", new ListTag("lists", ListTag.class,
+                Arrays.asList(new ListTag("", IntTag.class,
+                        Arrays.asList(new IntTag("", 1), new IntTag("", 2))))));
+        root.put("s", new StringTag("s", "x"));
+
+        StringBuilder out = new StringBuilder();
+        HnbtWriter writer = new HnbtWriter(out);
+        writer.beginCompound();
+        writer.name("compounds").beginList();
+        writer.beginCompound();
+        writer.name("bytes").value(new byte[] { 1, -2 });
+        writer.name("ints").value(new int[] { 3 });
+        writer.end();
+        writer.beginCompound().end();
+        writer.end();
+        writer.name("lists").beginList(TagType.LIST);
+        writer.beginList().value(1).value(2).end();
+        writer.end();
+        writer.name("s").value("x");
+        writer.end();
+
+        assertEquals(NbtToHnbt.parseNbtIntoHnbt(new CompoundTag("root", root)),
+                out.toString());
+    }
+
+    @Test
+    public void rejectsMisuse() throws Exception {
+        HnbtWriter writer = new HnbtWriter(new StringBuilder());
+        try {
+            writer.value(1);
+            fail("Allowed a non-compound root");
+        } catch (IllegalStateException expected) {
+            // ok.
+        }
+        writer.beginCompound();
+        try {
+            writer.value(1);
+            fail("Allowed a value without a name in a compound");
+        } catch (IllegalStateException expected) {
+            // ok.
+        }
+        try {
+            writer.name("");
+            fail("Allowed an invalid name");
+        } catch (IllegalArgumentException expected) {
+            // ok.
+        }
+        writer.name("list").beginList().value(1);
+        try {
+            writer.value("two");
+            fail("Allowed multiple types in a list");
+        } catch (IllegalStateException expected) {
+            // ok.
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+import me.kenzierocks.hnbt.util.IndentedOutput;
+
+public class IndentedOutputTest {
+
+    private final StringBuilder target = new StringBuilder();
+    private final IndentedOutput out = new IndentedOutput(this.target);
+
+    private String written() throws Exception {
+        this.out.flushBuffer();
+        String text = this.target.toString();
+        this.target.setLength(0);
+        return text;
+    }
+
+    @Test
+    public void integers() throws Exception {
+        long[] values = { 0, 1, -1, 9, 10, -10, Byte.MIN_VALUE,
+                Short.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Long.MIN_VALUE, Long.MAX_VALUE, 1000000000000L };
+        for (long value : values) {
+            this.out.appendLong(value);
+            assertEquals(Long.toString(value), written());
+        }
+    }
+
+    @Test
+    public void floatingPointMatchesToString() throws Exception {
+        double[] doubles = { 0.0, -0.0, 0.001, 0.000999, 1e7, 9999999.5,
+                42.0, 42.5, 0.1, 0.1 + 0.2, -3.25, Double.MIN_VALUE,
+                Double.MAX_VALUE, Double.NaN, Double.NEGATIVE_INFINITY };
+        for (double value : doubles) {
+            assertDouble(value);
+            assertFloat((float) value);
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 200000; i++) {
+            assertDouble(Double.longBitsToDouble(random.nextLong()));
+            assertDouble(random.nextInt(100000) / 1000.0);
+            assertFloat(Float.intBitsToFloat(random.nextInt()));
+            assertFloat(random.nextInt(100000) / 1000f);
+            assertFloat(random.nextFloat() * 1e6f);
+        }
+    }
+
+    private void assertDouble(double value) throws Exception {
+        this.out.appendDouble(value);
+        assertEquals(Double.toString(value), written());
+    }
+
+    private void assertFloat(float value) throws Exception {
+        this.out.appendFloat(value);
+        assertEquals(Float.toString(value), written());
+    }
+
+    @Test
+    public void newlineIndentsToDepth() throws Exception {
+        IndentedOutput tabs = new IndentedOutput(this.target, "\t");
+        tabs.append('{');
+        tabs.indent();
+        tabs.newline().append("a");
+        tabs.indent();
+        tabs.newline().append("b");
+        tabs.dedent();
+        tabs.dedent();
+        tabs.newline().append('}');
+        tabs.flushBuffer();
+        assertEquals("{\n\ta\n\t\tb\n}", this.target.toString());
+    }
+
+    @Test
+    public void newlineAtAnyDepth() throws Exception {
+        IndentedOutput spaces = new IndentedOutput(this.target, "  ", 5);
+        StringBuilder expected = new StringBuilder();
+        for (int depth : new int[] { 5, 6, 20, 3, 0, 100, 7 }) {
+            while (spaces.getDepth() < depth) {
+                spaces.indent();
+            }
+            while (spaces.getDepth() > depth) {
+                spaces.dedent();
+            }
+            spaces.newline().append('x');
+            expected.append('\n').append(Strings.repeat("  ", depth))
+                    .append('x');
+        }
+        spaces.flushBuffer();
+        assertEquals(expected.toString(), this.target.toString());
+    }
+
+}
@@ -0,0 +1,103 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.IntTag;
+import org.jnbt.Tag;
+import org.junit.Test;
+
+public class LazyParseTest {
+
+    private static void assertSameAsDirect(String hnbt) throws Exception {
+        CompoundTag expected = HnbtToNbt.parseHnbtIntoNbtDirect(hnbt);
+        CompoundTag lazy = HnbtToNbt.parseHnbtIntoNbtLazy(hnbt);
+        assertEquals(expected, lazy);
+        assertEquals(new ArrayList<>(expected.getValue().keySet()),
+                new ArrayList<>(lazy.getValue().keySet()));
+        assertEquals(expected.toString(), lazy.toString());
+    }
+
+    private static void assertSameError(String hnbt) throws Exception {
+        String expected;
+        try {
+            CompoundTag tag = HnbtToNbt.parseHnbtIntoNbtDirect(hnbt);
+            fail("Parsed incorrectly into " + tag);
+            throw new AssertionError();
+        } catch (HNBTParsingException e) {
+            expected = e.getMessage();
+        }
+        try {
+            CompoundTag tag = HnbtToNbt.parseHnbtIntoNbtLazy(hnbt);
+            // errors inside entries show up when they are read
+            tag.toString();
+            fail("Parsed incorrectly into " + tag);
+        } catch (HNBTParsingException e) {
+            assertEquals(expected, e.getMessage());
+        } catch (UncheckedHNBTParsingException e) {
+            assertEquals(expected, e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void matchesDirectParser() throws Exception {
+        assertSameAsDirect("compound root = {}");
+        assertSameAsDirect(" \n compound root = { int a = 1 } \n");
+        assertSameAsDirect("compound root = {list a = [], compound b = {}}");
+        assertSameAsDirect("compound root = {compound a = {compound b = "
+                + "{string s = \"}, {\", int-array i = [1, 2]}}, "
+                + "list l = [compound = {byte x = 1}], long n = 5}");
+        StringBuilder hnbt = new StringBuilder("compound root = {\n");
+        for (int i = 0; i < 100; i++) {
+            hnbt.append("    int i").append(i).append(" = ").append(i)
+                    .append(",\n");
+        }
+        hnbt.append("    int dup = 1,\n    int dup = 2\n}\n");
+        assertSameAsDirect(hnbt.toString());
+    }
+
+    @Test
+    public void parsesEntriesOnce() throws Exception {
+        CompoundTag root = HnbtToNbt.parseHnbtIntoNbtLazy(
+                "compound root = {compound a = {int b = 1}, int c = 2}");
+        Tag a = root.getValue().get("a");
+        assertSame(a, root.getValue().get("a"));
+        Tag b = ((CompoundTag) a).getValue().get("b");
+        assertEquals(new IntTag("b", 1), b);
+        assertSame(b, ((CompoundTag) root.getValue().get("a")).getValue()
+                .get("b"));
+    }
+
+    @Test
+    public void reportsEntryErrorsOnRead() throws Exception {
+        CompoundTag root = HnbtToNbt.parseHnbtIntoNbtLazy(
+                "compound root = {int ok = 1, int bad = 1.5}");
+        assertEquals(new IntTag("ok", 1), root.getValue().get("ok"));
+        assertEquals(2, root.getValue().size());
+        try {
+            Tag tag = root.getValue().get("bad");
+            fail("Parsed incorrectly into " + tag);
+        } catch (UncheckedHNBTParsingException e) {
+            // ok.
+        }
+    }
+
+    @Test
+    public void reportsErrorsLikeDirectParser() throws Exception {
+        assertSameError("");
+        assertSameError("compound root = {");
+        assertSameError("compound root = {} x");
+        assertSameError("compound root = {int a = 1,}");
+        assertSameError("compound root = {int a = 1 int b = 2}");
+        assertSameError("compound root = {compound a = {int b = }}");
+        assertSameError("compound root = {compound a = {} x}");
+        assertSameError("compound root = {string s = \"abc}");
+        assertSameError("compound root = {int a = 1 x, int b = 2}");
+        assertSameError("compound root = {list a = [int = 1, byte = 2]}");
+    }
+
+}
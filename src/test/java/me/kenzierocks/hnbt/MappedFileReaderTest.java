@@ -0,0 +1,86 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jnbt.CompoundTag;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import me.kenzierocks.hnbt.util.MappedFileReader;
+
+public class MappedFileReaderTest {
+
+    // two, three and four byte sequences between ASCII
+    private static final String MIXED =
+            "ab\u00E9cd\u2603e\uD83D\uDE00f\u00E9\u00E9\u2603\u2603g";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(byte[] bytes) throws Exception {
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private static String readAll(Path file, int windowSize, int chunk)
+            throws Exception {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[chunk];
+        try (Reader reader = new MappedFileReader(file, windowSize)) {
+            int read;
+            while ((read = reader.read(buffer, 0, chunk)) != -1) {
+                result.append(buffer, 0, read);
+            }
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void decodesAcrossWindows() throws Exception {
+        StringBuilder text = new StringBuilder();
+        int codePoints = MIXED.codePointCount(0, MIXED.length());
+        for (int i = 0; i < codePoints; i++) {
+            text.append(MIXED.substring(MIXED.offsetByCodePoints(0, i)));
+        }
+        Path file = write(text.toString().getBytes(StandardCharsets.UTF_8));
+        for (int windowSize : new int[] { 4, 5, 7, 64, 1 << 20 }) {
+            for (int chunk : new int[] { 1, 2, 3, 1000 }) {
+                assertEquals(text.toString(),
+                        readAll(file, windowSize, chunk));
+            }
+        }
+    }
+
+    @Test
+    public void emptyFile() throws Exception {
+        assertEquals("", readAll(write(new byte[0]), 4, 10));
+    }
+
+    @Test
+    public void malformedInputIsReplaced() throws Exception {
+        byte[] bytes = { 'a', (byte) 0xC3, 'b', (byte) 0xE2, (byte) 0x98 };
+        assertEquals("a\uFFFDb\uFFFD", readAll(write(bytes), 4, 10));
+    }
+
+    @Test
+    public void parsesFile() throws Exception {
+        StringBuilder hnbt = new StringBuilder("compound root = {\n");
+        for (int i = 0; i < 1000; i++) {
+            hnbt.append("    string s").append(i).append(" = \"")
+                    .append(MIXED).append("\",\n");
+        }
+        hnbt.append("    int last = 1\n}\n");
+        Path file =
+                write(hnbt.toString().getBytes(StandardCharsets.UTF_8));
+        CompoundTag expected = HnbtToNbt.parseHnbtIntoNbt(hnbt.toString());
+        assertEquals(expected, HnbtToNbt.parseHnbtIntoNbt(file));
+    }
+
+}
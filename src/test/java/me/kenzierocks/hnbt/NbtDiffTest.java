@@ -0,0 +1,240 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.NbtDiff.Change;
+import me.kenzierocks.hnbt.tag.NbtCompound;
+import me.kenzierocks.hnbt.tag.NbtTags;
+
+public class NbtDiffTest {
+
+    private static final String EXPECTED = "compound root = {\n"
+            + "    compound Level = {\n"
+            + "        list Sections = [\n"
+            + "            compound = {byte Y = 0, byte-array B = [1, 2]},\n"
+            + "            compound = {byte Y = 1, byte-array B = [3]}\n"
+            + "        ],\n"
+            + "        int xPos = 3,\n"
+            + "        int-array H = [1, 2, 3]\n"
+            + "    },\n"
+            + "    string name = \"world\"\n"
+            + "}\n";
+
+    private static List<Change> diff(String expected, String actual)
+            throws Exception {
+        return NbtDiff.diff(HnbtToNbt.parseHnbtIntoNbtDirect(expected),
+                HnbtToNbt.parseHnbtIntoNbtDirect(actual));
+    }
+
+    private static List<Change> nativeDiff(String expected, String actual)
+            throws Exception {
+        return NbtDiff.diff(NbtTags.parse(expected), NbtTags.parse(actual));
+    }
+
+    private static CompoundTag deepTree(int lists, int leaf) {
+        Tag tag = new ListTag("", IntTag.class,
+                Collections.singletonList(new IntTag("", leaf)));
+        for (int i = 1; i < lists; i++) {
+            tag = new ListTag("", ListTag.class,
+                    Collections.singletonList(tag));
+        }
+        return new CompoundTag("root", Collections.singletonMap("l", tag));
+    }
+
+    private static void assertChange(Change change, Change.Kind kind,
+            String path) {
+        assertEquals(kind, change.getKind());
+        assertEquals(path, change.getPath());
+    }
+
+    @Test
+    public void equalTreesHaveNoChanges() throws Exception {
+        assertEquals(Collections.emptyList(), diff(EXPECTED, EXPECTED));
+        CompoundTag tag = HnbtToNbt.parseHnbtIntoNbtDirect(EXPECTED);
+        assertNull(NbtDiff.describe(tag, tag));
+    }
+
+    @Test
+    public void findsChangedPaths() throws Exception {
+        String actual = EXPECTED.replace("byte Y = 1", "byte Y = 2")
+                .replace("int xPos = 3,", "int xPos = 3, long z = 1,")
+                .replace("int-array H = [1, 2, 3]", "int-array H = [1, 2]")
+                .replace(",\n    string name = \"world\"", "");
+        List<Change> changes = diff(EXPECTED, actual);
+        assertEquals(4, changes.size());
+        assertChange(changes.get(0), Change.Kind.CHANGED, "Level.H");
+        assertChange(changes.get(1), Change.Kind.CHANGED,
+                "Level.Sections[1].Y");
+        assertChange(changes.get(2), Change.Kind.ADDED, "Level.z");
+        assertChange(changes.get(3), Change.Kind.REMOVED, "name");
+        assertNull(changes.get(2).getExpected());
+        assertNull(changes.get(3).getActual());
+    }
+
+    @Test
+    public void comparesListsByIndex() throws Exception {
+        List<Change> changes = diff("compound root = {list l = [int = 1]}",
+                "compound root = {list l = [int = 1, int = 2, int = 3]}");
+        assertEquals(2, changes.size());
+        assertChange(changes.get(0), Change.Kind.ADDED, "l[1]");
+        assertChange(changes.get(1), Change.Kind.ADDED, "l[2]");
+
+        changes = diff("compound root = {list l = [int = 1]}",
+                "compound root = {list l = [long = 1]}");
+        assertEquals(1, changes.size());
+        assertChange(changes.get(0), Change.Kind.CHANGED, "l");
+    }
+
+    @Test
+    public void rendersChangesAsHnbt() throws Exception {
+        assertEquals("~ a\n- int a = 1\n+ string a = \"1\"",
+                NbtDiff.describe(
+                        HnbtToNbt.parseHnbtIntoNbtDirect(
+                                "compound root = {int a = 1}"),
+                        HnbtToNbt.parseHnbtIntoNbtDirect(
+                                "compound root = {string a = \"1\"}")));
+        assertEquals("+ l[1]\n+ compound = {\n+     int x = 2\n+ }",
+                NbtDiff.describe(
+                        HnbtToNbt.parseHnbtIntoNbtDirect(
+                                "compound root = {list l = "
+                                        + "[compound = {int x = 1}]}"),
+                        HnbtToNbt.parseHnbtIntoNbtDirect(
+                                "compound root = {list l = [compound = "
+                                        + "{int x = 1}, compound = "
+                                        + "{int x = 2}]}")));
+    }
+
+    @Test
+    public void fingerprintsIgnoreEntryOrder() throws Exception {
+        Map<String, Tag> forward = new LinkedHashMap<>();
+        Map<String, Tag> backward = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            forward.put("e" + i, new IntTag("e" + i, i));
+            backward.put("e" + (9 - i), new IntTag("e" + (9 - i), 9 - i));
+        }
+        assertEquals(NbtDiff.fingerprint(new CompoundTag("a", forward)),
+                NbtDiff.fingerprint(new CompoundTag("b", backward)));
+    }
+
+    @Test
+    public void fingerprintsDependOnContents() throws Exception {
+        Tag one = new IntTag("", 1);
+        Tag two = new IntTag("", 2);
+        assertNotEquals(NbtDiff.fingerprint(one), NbtDiff.fingerprint(two));
+        assertNotEquals(
+                NbtDiff.fingerprint(new ListTag("", IntTag.class,
+                        Arrays.asList(one, two))),
+                NbtDiff.fingerprint(new ListTag("", IntTag.class,
+                        Arrays.asList(two, one))));
+        assertNotEquals(NbtDiff.fingerprint(new IntTag("", 1)),
+                NbtDiff.fingerprint(new StringTag("", "1")));
+        Map<String, Tag> a = Collections.singletonMap("a", one);
+        Map<String, Tag> b = Collections.singletonMap("b", one);
+        assertNotEquals(NbtDiff.fingerprint(new CompoundTag("", a)),
+                NbtDiff.fingerprint(new CompoundTag("", b)));
+    }
+
+    @Test
+    public void seesChangesAfterAnEarlierDiff() throws Exception {
+        Map<String, Tag> expectedMap = new LinkedHashMap<>();
+        Map<String, Tag> actualMap = new LinkedHashMap<>();
+        byte[] bytes = { 1, 2 };
+        for (Map<String, Tag> map : Arrays.asList(expectedMap, actualMap)) {
+            map.put("i", new IntTag("i", 1));
+            map.put("b", new ByteArrayTag("b", map == actualMap ? bytes
+                    : new byte[] { 1, 2 }));
+        }
+        CompoundTag expected = new CompoundTag("root", expectedMap);
+        CompoundTag actual = new CompoundTag("root", actualMap);
+        assertNull(NbtDiff.describe(expected, actual));
+
+        // JNBT wraps the map and array without copying them
+        bytes[1] = 3;
+        List<Change> changes = NbtDiff.diff(expected, actual);
+        assertEquals(1, changes.size());
+        assertChange(changes.get(0), Change.Kind.CHANGED, "b");
+
+        bytes[1] = 2;
+        actualMap.put("i", new IntTag("i", 2));
+        changes = NbtDiff.diff(expected, actual);
+        assertEquals(1, changes.size());
+        assertChange(changes.get(0), Change.Kind.CHANGED, "i");
+    }
+
+    @Test
+    public void nativeTreesGiveTheSameChanges() throws Exception {
+        String actual = EXPECTED.replace("byte Y = 1", "byte Y = 2")
+                .replace("int xPos = 3,", "int xPos = 3, long z = 1,")
+                .replace("int-array H = [1, 2, 3]", "int-array H = [1, 2]")
+                .replace(",\n    string name = \"world\"", "");
+        List<Change> expectedChanges = diff(EXPECTED, actual);
+        List<Change> changes = nativeDiff(EXPECTED, actual);
+        assertEquals(expectedChanges.size(), changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            assertChange(changes.get(i), expectedChanges.get(i).getKind(),
+                    expectedChanges.get(i).getPath());
+        }
+        assertEquals(Collections.emptyList(), nativeDiff(EXPECTED, EXPECTED));
+        changes = nativeDiff("compound root = {int a = 1}",
+                "compound root = {string a = \"1\"}");
+        assertEquals(1, changes.size());
+        assertEquals("~ a\n- int a = 1\n+ string a = \"1\"",
+                changes.get(0).toString());
+    }
+
+    @Test
+    public void nativeFingerprintsMatchJnbt() throws Exception {
+        CompoundTag jnbt = HnbtToNbt.parseHnbtIntoNbtDirect(EXPECTED);
+        NbtCompound parsed = NbtTags.parse(EXPECTED);
+        assertEquals(NbtDiff.fingerprint(jnbt), parsed.fingerprint());
+        assertEquals(NbtDiff.fingerprint(jnbt),
+                NbtTags.fromJnbt(jnbt).fingerprint());
+        // computed once, then kept
+        assertEquals(NbtDiff.fingerprint(jnbt), parsed.fingerprint());
+        NbtCompound level = (NbtCompound) parsed.get("Level");
+        assertEquals(NbtDiff.fingerprint(jnbt.getValue().get("Level")),
+                level.fingerprint());
+    }
+
+    @Test
+    public void deepTrees() throws Exception {
+        CompoundTag expected = deepTree(100000, 1);
+        CompoundTag actual = deepTree(100000, 2);
+        assertEquals(Collections.emptyList(),
+                NbtDiff.diff(expected, deepTree(100000, 1)));
+        List<Change> changes = NbtDiff.diff(expected, actual);
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0).getPath().endsWith("[0][0]"));
+        assertNotEquals(NbtDiff.fingerprint(expected),
+                NbtDiff.fingerprint(actual));
+
+        NbtCompound nativeExpected = NbtTags.fromJnbt(expected);
+        assertEquals(NbtDiff.fingerprint(expected),
+                nativeExpected.fingerprint());
+        assertEquals(Collections.emptyList(), NbtDiff.diff(nativeExpected,
+                NbtTags.fromJnbt(deepTree(100000, 1))));
+        List<Change> nativeChanges =
+                NbtDiff.diff(nativeExpected, NbtTags.fromJnbt(actual));
+        assertEquals(1, nativeChanges.size());
+        assertEquals(changes.get(0).getPath(),
+                nativeChanges.get(0).getPath());
+    }
+
+}
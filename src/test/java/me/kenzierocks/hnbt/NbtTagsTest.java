@@ -0,0 +1,168 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.IntArrayTag;
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.tag.NbtByteArray;
+import me.kenzierocks.hnbt.tag.NbtCompound;
+import me.kenzierocks.hnbt.tag.NbtInt;
+import me.kenzierocks.hnbt.tag.NbtIntArray;
+import me.kenzierocks.hnbt.tag.NbtList;
+import me.kenzierocks.hnbt.tag.NbtString;
+import me.kenzierocks.hnbt.tag.NbtTag;
+import me.kenzierocks.hnbt.tag.NbtTags;
+
+public class NbtTagsTest {
+
+    private static final String DOCUMENT = "compound root = {\n"
+            + "    compound Level = {\n"
+            + "        list Sections = [\n"
+            + "            compound = {byte Y = 0, byte-array B = [1, 2]},\n"
+            + "            compound = {byte Y = 1, byte-array B = [3]}\n"
+            + "        ],\n"
+            + "        list Empty = [],\n"
+            + "        list Nested = [list = [long = 5], list = []],\n"
+            + "        int-array H = [1, -2, 3]\n"
+            + "    },\n"
+            + "    short s = 300,\n"
+            + "    float f = 0.5,\n"
+            + "    double d = -2.25,\n"
+            + "    string name = \"world\",\n"
+            + "    int dup = 1,\n"
+            + "    int dup = 2\n"
+            + "}\n";
+
+    @Test
+    public void matchesJnbt() throws Exception {
+        CompoundTag jnbt = HnbtToNbt.parseHnbtIntoNbtDirect(DOCUMENT);
+        NbtCompound parsed = NbtTags.parse(DOCUMENT);
+        assertEquals(jnbt, NbtTags.toJnbt(parsed, "root"));
+        assertEquals(NbtTags.toJnbt(parsed, "root"), jnbt);
+        assertEquals(parsed, NbtTags.fromJnbt(jnbt));
+        assertEquals(NbtInt.of(2), parsed.get("dup"));
+    }
+
+    @Test
+    public void roundTripsThroughHnbt() throws Exception {
+        NbtCompound parsed = NbtTags.parse(DOCUMENT);
+        assertEquals(parsed, NbtTags.parse(NbtTags.toHnbt(parsed)));
+        assertEquals(HnbtToNbt.parseHnbtIntoNbtDirect(DOCUMENT),
+                HnbtToNbt.parseHnbtIntoNbtDirect(NbtTags.toHnbt(parsed)));
+    }
+
+    @Test
+    public void unwrapsJnbtViews() throws Exception {
+        NbtCompound parsed = NbtTags.parse(DOCUMENT);
+        CompoundTag view = NbtTags.toJnbt(parsed, "root");
+        assertSame(parsed, NbtTags.fromJnbt(view));
+        assertSame(parsed.get("Level"),
+                NbtTags.fromJnbt(view.getValue().get("Level")));
+        assertSame(view.getValue().get("Level"),
+                view.getValue().get("Level"));
+    }
+
+    @Test
+    public void looksUpLargeCompounds() throws Exception {
+        NbtCompound.Builder builder = NbtCompound.builder(2);
+        for (int i = 0; i < 100; i++) {
+            builder.put("e" + i, NbtInt.of(i));
+        }
+        builder.put("e5", NbtString.of("replaced"));
+        NbtCompound compound = builder.build();
+        assertEquals(100, compound.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, compound.indexOf("e" + i));
+            assertEquals("e" + i, compound.getName(i));
+        }
+        assertEquals(NbtString.of("replaced"), compound.get("e5"));
+        assertNull(compound.get("e100"));
+        assertFalse(compound.contains("x"));
+    }
+
+    @Test
+    public void comparesCompoundsByEntries() throws Exception {
+        NbtCompound forward = NbtCompound.builder()
+                .put("a", NbtInt.of(1)).put("b", NbtInt.of(2)).build();
+        NbtCompound backward = NbtCompound.builder()
+                .put("b", NbtInt.of(2)).put("a", NbtInt.of(1)).build();
+        assertEquals(forward, backward);
+        assertEquals(forward.hashCode(), backward.hashCode());
+        assertSame(NbtCompound.EMPTY, NbtCompound.builder().build());
+    }
+
+    @Test
+    public void listsHaveOneType() throws Exception {
+        NbtList list = NbtList.of(NbtInt.of(1), NbtInt.of(2));
+        assertEquals(TagType.INT, list.getElementType());
+        assertEquals(Arrays.<NbtTag> asList(NbtInt.of(1), NbtInt.of(2)),
+                list.asList());
+        assertSame(NbtList.EMPTY, NbtList.of());
+        try {
+            NbtList mixed = NbtList.of(NbtInt.of(1), NbtString.of("2"));
+            fail("Created mixed list " + mixed);
+        } catch (IllegalArgumentException e) {
+            // ok.
+        }
+    }
+
+    @Test
+    public void sharesSmallValues() throws Exception {
+        assertSame(NbtInt.of(5), NbtInt.of(5));
+        assertEquals(NbtInt.of(100000), NbtInt.of(100000));
+    }
+
+    @Test
+    public void arraysAreNotShared() throws Exception {
+        NbtByteArray bytes = NbtByteArray.of((byte) 1, (byte) 2);
+        int hash = bytes.hashCode();
+        ((ByteArrayTag) NbtTags.toJnbt(bytes, "b")).getValue()[0] = 9;
+        assertEquals(1, bytes.get(0));
+        assertEquals(hash, bytes.hashCode());
+
+        int[] ints = { 1, 2 };
+        NbtIntArray fromJnbt =
+                (NbtIntArray) NbtTags.fromJnbt(new IntArrayTag("i", ints));
+        ints[0] = 9;
+        assertEquals(1, fromJnbt.get(0));
+    }
+
+    @Test
+    public void deepTrees() throws Exception {
+        CompoundTag jnbt = HnbtPrinterTest.deepTree(100000);
+        // printed, because comparing trees this deep recurses
+        HnbtPrinter printer = new HnbtPrinter("");
+        String expected = printer.print(jnbt);
+        NbtCompound parsed = NbtTags.parse(expected);
+        assertEquals(expected, printer.print(NbtTags.toJnbt(parsed, "root")));
+        StringBuilder unindented = new StringBuilder();
+        NbtTags.write(parsed, new HnbtWriter(unindented, ""));
+        NbtCompound reparsed = NbtTags.parse(unindented.toString());
+        assertEquals(expected,
+                printer.print(NbtTags.toJnbt(reparsed, "root")));
+        NbtCompound copied = NbtTags.fromJnbt(jnbt);
+        assertEquals(expected, printer.print(NbtTags.toJnbt(copied, "root")));
+
+        HnbtReader reader = new HnbtReader(new StringReader(expected));
+        reader.setLimits(HnbtLimits.builder().maxDepth(64).build());
+        try {
+            NbtCompound tag = NbtTags.read(reader);
+            fail("Read a tree deeper than the limit: " + tag.size());
+        } catch (HNBTParsingException e) {
+            assertTrue(e.getMessage(), e.getMessage()
+                    .startsWith("nesting is deeper than the limit of 64"));
+        }
+    }
+
+}
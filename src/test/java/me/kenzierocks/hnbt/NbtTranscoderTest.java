@@ -0,0 +1,196 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.EndTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.NBTConstants;
+import org.jnbt.NBTInputStream;
+import org.jnbt.NBTOutputStream;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.Test;
+
+import com.google.common.base.CharMatcher;
+
+public class NbtTranscoderTest {
+
+    private static CompoundTag sample() {
+        Map<String, Tag> item = new LinkedHashMap<>();
+        item.put("id", new StringTag("id", "minecraft:stone"));
+        item.put("Count", new ByteTag("Count", (byte) 64));
+        item.put("Damage", new ShortTag("Damage", (short) -3));
+        Map<String, Tag> root = new LinkedHashMap<>();
+        root.put("items", new ListTag("items", CompoundTag.class,
+                Arrays.asList(new CompoundTag("", item),
+                        new CompoundTag("", Collections.emptyMap()))));
+        root.put("empty",
+                new ListTag("empty", EndTag.class, Collections.emptyList()));
+        root.put("nested", new ListTag("nested", ListTag.class,
+                Arrays.asList(new ListTag("", LongTag.class,
+                        Arrays.asList(new LongTag("", Long.MIN_VALUE))))));
+        root.put("bytes",
+                new ByteArrayTag("bytes", new byte[] { 1, 2, -128 }));
+        root.put("ints", new IntArrayTag("ints", new int[] { 7, -7 }));
+        root.put("f", new FloatTag("f", 0.25f));
+        root.put("d", new DoubleTag("d", -1.5));
+        root.put("i", new IntTag("i", 12345));
+        return new CompoundTag("root", root);
+    }
+
+    private static byte[] toBinary(CompoundTag tag) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NBTOutputStream nbtOut = new NBTOutputStream(out, false)) {
+            nbtOut.writeTag(tag);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The binary form of {@link HnbtPrinterTest#deepTree(int)}.
+     */
+    static byte[] deepBinary(int lists) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(NBTConstants.TYPE_COMPOUND);
+        out.writeUTF("root");
+        out.writeByte(NBTConstants.TYPE_LIST);
+        out.writeUTF("l");
+        for (int i = 1; i < lists; i++) {
+            out.writeByte(NBTConstants.TYPE_LIST);
+            out.writeInt(1);
+        }
+        out.writeByte(NBTConstants.TYPE_INT);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeByte(NBTConstants.TYPE_END);
+        return bytes.toByteArray();
+    }
+
+    private static Tag fromBinary(byte[] nbt) throws Exception {
+        try (NBTInputStream nbtIn =
+                new NBTInputStream(new ByteArrayInputStream(nbt), false)) {
+            return nbtIn.readTag();
+        }
+    }
+
+    @Test
+    public void nbtToHnbt() throws Exception {
+        CompoundTag tag = sample();
+        String expected = NbtToHnbt.parseNbtIntoHnbt(tag);
+        byte[] nbt = toBinary(tag);
+
+        StringBuilder fromStream = new StringBuilder();
+        NbtTranscoder.transcodeNbtToHnbt(new ByteArrayInputStream(nbt),
+                fromStream);
+        assertEquals(expected, fromStream.toString());
+
+        StringBuilder fromBuffer = new StringBuilder();
+        NbtTranscoder.transcodeNbtToHnbt(ByteBuffer.wrap(nbt), fromBuffer);
+        assertEquals(expected, fromBuffer.toString());
+    }
+
+    @Test
+    public void hnbtToNbt() throws Exception {
+        String hnbt = NbtToHnbt.parseNbtIntoHnbt(sample());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtTranscoder.transcodeHnbtToNbt(new StringReader(hnbt), out);
+        assertEquals(HnbtToNbt.parseHnbtIntoNbt(hnbt),
+                fromBinary(out.toByteArray()));
+    }
+
+    @Test
+    public void unknownTagIds() throws Exception {
+        byte[] badEntry = { 10, 0, 4, 'r', 'o', 'o', 't', 99, 0, 1, 'x', 0 };
+        byte[] badRoot = { 99, 0, 0 };
+        for (byte[] nbt : new byte[][] { badEntry, badRoot }) {
+            try {
+                NbtTranscoder.transcodeNbtToHnbt(new ByteArrayInputStream(nbt),
+                        new StringBuilder());
+                fail("transcoded an unknown tag id");
+            } catch (IOException e) {
+                assertEquals("Unknown tag id 99", e.getMessage());
+            }
+            try {
+                HnbtQuery.compile("x")
+                        .selectNbt(new ByteArrayInputStream(nbt));
+                fail("selected from an unknown tag id");
+            } catch (IOException e) {
+                assertEquals("Unknown tag id 99", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Keeps everything but whitespace, since indenting a deep document takes
+     * a lot of space.
+     */
+    private static final class Unindented implements Appendable {
+
+        private final StringBuilder out = new StringBuilder();
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) {
+                append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            if (!CharMatcher.WHITESPACE.matches(c)) {
+                this.out.append(c);
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return this.out.toString();
+        }
+
+    }
+
+    @Test
+    public void deepDocuments() throws Exception {
+        assertEquals(HnbtPrinterTest.deepTree(3), fromBinary(deepBinary(3)));
+        String hnbt =
+                new HnbtPrinter("").print(HnbtPrinterTest.deepTree(10000));
+        byte[] nbt = deepBinary(10000);
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        NbtTranscoder.transcodeHnbtToNbt(new StringReader(hnbt), binary);
+        assertArrayEquals(nbt, binary.toByteArray());
+        Unindented back = new Unindented();
+        NbtTranscoder.transcodeNbtToHnbt(ByteBuffer.wrap(nbt), back);
+        assertEquals(CharMatcher.WHITESPACE.removeFrom(hnbt), back.toString());
+    }
+
+}
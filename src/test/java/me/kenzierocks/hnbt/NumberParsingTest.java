@@ -0,0 +1,86 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.util.NumberParsing;
+
+public class NumberParsingTest {
+
+    private static char[] chars(String text) {
+        // surround with junk to check that the bounds are used
+        return ("x" + text + "9").toCharArray();
+    }
+
+    private static long parseLong(String text, long min, long max) {
+        return NumberParsing.parseLong(chars(text), 1, text.length() + 1, min,
+                max);
+    }
+
+    private static double parseDouble(String text) {
+        return NumberParsing.parseDouble(chars(text), 1, text.length() + 1);
+    }
+
+    private static float parseFloat(String text) {
+        return NumberParsing.parseFloat(chars(text), 1, text.length() + 1);
+    }
+
+    @Test
+    public void integersInRange() throws Exception {
+        assertEquals(0, parseLong("0", Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertEquals(-128, parseLong("-128", Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertEquals(127, parseLong("127", Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertEquals(Long.MIN_VALUE, parseLong("-9223372036854775808",
+                Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, parseLong("9223372036854775807",
+                Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(-42, parseLong("-00042", Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void integersOutOfRange() throws Exception {
+        String[] invalid = { "128", "-129", "9223372036854775808",
+                "-9223372036854775809", "99999999999999999999", "", "-",
+                "1.5", "1-" };
+        for (String text : invalid) {
+            try {
+                parseLong(text, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                fail("Parsed " + text);
+            } catch (NumberFormatException expected) {
+                // ok.
+            }
+        }
+    }
+
+    @Test
+    public void decimalsMatchJava() throws Exception {
+        String[] fixed = { "0.0", "-0.0", ".5", "-.5", "1.", "0.1", "0.3",
+                "3.4028235", "123456789.123456789", "0.000000000000000000001",
+                "9007199254740993.0", "1.0E10", "NaN" };
+        for (String text : fixed) {
+            assertDecimal(text);
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            int intPart = random.nextInt(1000000);
+            String fraction = Integer.toString(random.nextInt(1000000));
+            String text = (random.nextBoolean() ? "-" : "") + intPart + "."
+                    + fraction.substring(random.nextInt(fraction.length()));
+            assertDecimal(text);
+            assertDecimal(Double.toString(random.nextDouble() * 1000));
+            assertDecimal(Float.toString(random.nextFloat() * 1000));
+        }
+    }
+
+    private static void assertDecimal(String text) {
+        assertEquals(text, Double.doubleToRawLongBits(Double.parseDouble(text)),
+                Double.doubleToRawLongBits(parseDouble(text)));
+        assertEquals(text, Float.floatToRawIntBits(Float.parseFloat(text)),
+                Float.floatToRawIntBits(parseFloat(text)));
+    }
+
+}
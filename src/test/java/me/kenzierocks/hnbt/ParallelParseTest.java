@@ -0,0 +1,130 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jnbt.CompoundTag;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+public class ParallelParseTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    private static CompoundTag parseParallel(String hnbt, int sliceSize)
+            throws Exception {
+        return new ParallelHnbtParser(hnbt.toCharArray(), sliceSize)
+                .parseRoot(POOL);
+    }
+
+    private static void assertSameAsDirect(String hnbt) throws Exception {
+        CompoundTag expected = HnbtToNbt.parseHnbtIntoNbtDirect(hnbt);
+        for (int sliceSize : new int[] { 1, 7, 64, 1 << 16 }) {
+            assertEquals(expected, parseParallel(hnbt, sliceSize));
+        }
+        assertEquals(expected, HnbtToNbt.parseHnbtIntoNbtParallel(hnbt));
+    }
+
+    private static void assertSameError(String hnbt) throws Exception {
+        String expected;
+        try {
+            CompoundTag tag = HnbtToNbt.parseHnbtIntoNbtDirect(hnbt);
+            fail("Parsed incorrectly into " + tag);
+            throw new AssertionError();
+        } catch (HNBTParsingException e) {
+            expected = e.getMessage();
+        }
+        for (int sliceSize : new int[] { 1, 7, 64 }) {
+            try {
+                CompoundTag tag = parseParallel(hnbt, sliceSize);
+                fail("Parsed incorrectly into " + tag);
+            } catch (HNBTParsingException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+
+    private static String largeDocument() {
+        StringBuilder hnbt = new StringBuilder("compound root = {\n");
+        for (int i = 0; i < 200; i++) {
+            hnbt.append("    compound c").append(i).append(" = {\n");
+            hnbt.append("        string s = \"a, \\\"b\\\" {[\",\n");
+            hnbt.append("        list l = [");
+            for (int j = 0; j < i % 20; j++) {
+                hnbt.append(j == 0 ? "" : ", ").append("int = ").append(j);
+            }
+            hnbt.append("],\n");
+            hnbt.append("        byte-array b = [1, 2, 3],\n");
+            hnbt.append("        double d = ").append(i / 8.0).append('\n');
+            hnbt.append("    },\n");
+        }
+        hnbt.append("    list nested = [list = [compound = {int x = 1}],"
+                + " list = [], list = [compound = {}]],\n");
+        hnbt.append("    int dup = 1,\n    int dup = 2\n}\n");
+        return hnbt.toString();
+    }
+
+    @Test
+    public void matchesDirectParser() throws Exception {
+        assertSameAsDirect("compound root = {}");
+        assertSameAsDirect(" \n compound root = { int a = 1 } \n");
+        assertSameAsDirect("compound root = {list a = [], compound b = {}}");
+        assertSameAsDirect(largeDocument());
+    }
+
+    @Test
+    public void deepDocument() throws Exception {
+        String hnbt = "compound root = {"
+                + Strings.repeat("compound c = {list l = [compound = {", 2000)
+                + Strings.repeat("}]}", 2000) + "}";
+        // printed, because comparing trees this deep recurses
+        HnbtPrinter printer = new HnbtPrinter("");
+        String expected =
+                printer.print(HnbtToNbt.parseHnbtIntoNbtDirect(hnbt));
+        for (int sliceSize : new int[] { 1, 64, 1 << 16 }) {
+            assertEquals(expected,
+                    printer.print(parseParallel(hnbt, sliceSize)));
+        }
+    }
+
+    @Test
+    public void errorsMatchDirectParser() throws Exception {
+        assertSameError("compound root = {int a = 1,}");
+        assertSameError("compound root = {,int a = 1}");
+        assertSameError("compound root = {int a = 1,,int b = 2}");
+        assertSameError("compound root = {list a = [int = 1, byte = 1]}");
+        assertSameError("compound root = {list a = [int = 1,\n"
+                + "list = [int = 1], int = 2]}");
+        assertSameError("compound root = {string a = \"abc}");
+        assertSameError("compound root = {} trailing");
+        assertSameError("compound root = {int a = 1");
+        assertSameError("list root = []");
+        assertSameError(largeDocument().replace("double d = 12.5",
+                "double d = x"));
+        assertSameError(largeDocument() + "}");
+    }
+
+    @Test
+    public void poolFailuresAreNotHidden() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        pool.shutdown();
+        try {
+            CompoundTag tag = new ParallelHnbtParser(
+                    "compound root = {}".toCharArray(), 1).parseRoot(pool);
+            fail("Parsed on a shut down pool into " + tag);
+        } catch (RejectedExecutionException e) {
+            // ok.
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.EndTag;
+import org.jnbt.IntArrayTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelSerializeTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    private static String serializeParallel(CompoundTag nbt, String indent,
+            int threshold) throws Exception {
+        StringBuilder builder = new StringBuilder();
+        new ParallelHnbtSerializer(indent, threshold).writeRoot(nbt, builder,
+                POOL);
+        return builder.append('\n').toString();
+    }
+
+    private static void assertSameAsSequential(CompoundTag nbt)
+            throws Exception {
+        for (String indent : new String[] { "    ", "\t", "" }) {
+            String expected = NbtToHnbt.parseNbtIntoHnbt(nbt, indent);
+            for (int threshold : new int[] { 1, 2, 7, 100, 1 << 20 }) {
+                assertEquals(expected,
+                        serializeParallel(nbt, indent, threshold));
+            }
+        }
+        assertEquals(NbtToHnbt.parseNbtIntoHnbt(nbt),
+                NbtToHnbt.parseNbtIntoHnbtParallel(nbt));
+    }
+
+    private static CompoundTag wideTree(int width) {
+        Map<String, Tag> root = new LinkedHashMap<>();
+        for (int i = 0; i < width; i++) {
+            Map<String, Tag> child = new LinkedHashMap<>();
+            child.put("s", new StringTag("s", "value \"" + i + "\"\n"));
+            child.put("d", new DoubleTag("d", i / 8.0));
+            List<Tag> ints = new ArrayList<>();
+            for (int j = 0; j < i % 10; j++) {
+                ints.add(new IntTag("", j));
+            }
+            child.put("l", new ListTag("l",
+                    ints.isEmpty() ? EndTag.class : IntTag.class, ints));
+            child.put("b", new ByteArrayTag("b", new byte[i % 5]));
+            root.put("c" + i, new CompoundTag("c" + i, child));
+        }
+        List<Tag> lists = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            CompoundTag empty = new CompoundTag("", Collections.emptyMap());
+            lists.add(new ListTag("", CompoundTag.class,
+                    Collections.singletonList(empty)));
+        }
+        root.put("lists", new ListTag("lists", ListTag.class, lists));
+        root.put("ints", new IntArrayTag("ints", new int[1000]));
+        return new CompoundTag("root", root);
+    }
+
+    @Test
+    public void matchesSequentialSerializer() throws Exception {
+        assertSameAsSequential(
+                new CompoundTag("root", Collections.emptyMap()));
+        assertSameAsSequential(wideTree(3));
+        assertSameAsSequential(wideTree(2000));
+    }
+
+    @Test
+    public void deepTree() throws Exception {
+        CompoundTag nbt = HnbtPrinterTest.deepTree(3000);
+        // without indentation, the text grows linearly with the depth
+        String expected = NbtToHnbt.parseNbtIntoHnbt(nbt, "");
+        for (int threshold : new int[] { 1, 100, 1 << 20 }) {
+            assertEquals(expected, serializeParallel(nbt, "", threshold));
+        }
+    }
+
+    @Test
+    public void invalidNamesAreRejected() throws Exception {
+        Map<String, Tag> root = new LinkedHashMap<>(wideTree(100).getValue());
+        root.put("bad name", new IntTag("bad name", 1));
+        try {
+            serializeParallel(new CompoundTag("root", root), "    ", 1);
+            fail("Serialized an invalid name");
+        } catch (IllegalArgumentException expected) {
+            // ok.
+        }
+    }
+
+}
@@ -24,15 +24,42 @@ import org.jnbt.ShortTag;
 import org.jnbt.StringTag;
 import org.jnbt.Tag;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+@RunWith(Parameterized.class)
 public class ParseTest {
 
-    private static CompoundTag parseWithHnbtToNbt(String fileName)
+    private interface Parser {
+
+        CompoundTag parse(InputStream data)
+                throws IOException, HNBTParsingException;
+
+    }
+
+    @Parameters(name = "{0}")
+    public static Iterable<Object[]> parsers() {
+        return ImmutableList.of(
+                new Object[] { "antlr",
+                        (Parser) HnbtToNbt::parseHnbtIntoNbt },
+                new Object[] { "direct",
+                        (Parser) HnbtToNbt::parseHnbtIntoNbtDirect });
+    }
+
+    private final Parser parser;
+
+    public ParseTest(String name, Parser parser) {
+        this.parser = parser;
+    }
+
+    private CompoundTag parseWithHnbtToNbt(String fileName)
             throws IOException, HNBTParsingException {
         InputStream data = ParseTest.class.getResourceAsStream("/" + fileName);
-        return HnbtToNbt.parseHnbtIntoNbt(data);
+        return this.parser.parse(data);
     }
 
     @Test
@@ -0,0 +1,162 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.IntTag;
+import org.jnbt.NBTOutputStream;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.region.ChunkCompression;
+import me.kenzierocks.hnbt.region.RegionChunk;
+import me.kenzierocks.hnbt.region.RegionConverter;
+import me.kenzierocks.hnbt.region.RegionFile;
+
+public class RegionFileTest {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public static void shutdownExecutor() {
+        EXECUTOR.shutdown();
+    }
+
+    private static CompoundTag chunkTag(int index, int dataSize) {
+        Map<String, Tag> root = new LinkedHashMap<>();
+        root.put("xPos", new IntTag("xPos", index % RegionFile.SIZE));
+        root.put("zPos", new IntTag("zPos", index / RegionFile.SIZE));
+        root.put("Status", new StringTag("Status", "full"));
+        byte[] data = new byte[dataSize];
+        new Random(index).nextBytes(data);
+        root.put("Data", new ByteArrayTag("Data", data));
+        return new CompoundTag("", root);
+    }
+
+    private static byte[] toBinary(CompoundTag tag) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NBTOutputStream nbtOut = new NBTOutputStream(out, false)) {
+            nbtOut.writeTag(tag);
+        }
+        return out.toByteArray();
+    }
+
+    private static RegionFile sampleRegion() throws Exception {
+        RegionFile region = new RegionFile();
+        ChunkCompression[] compressions = ChunkCompression.values();
+        for (int i = 0; i < RegionFile.CHUNK_COUNT; i += 7) {
+            region.setChunk(i, RegionChunk.compress(
+                    toBinary(chunkTag(i, i * 10)),
+                    compressions[i % compressions.length]));
+            region.setTimestamp(i, 1500000000 + i);
+        }
+        return region;
+    }
+
+    private static byte[] toBytes(RegionFile region) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        region.write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void readsWhatItWrites() throws Exception {
+        RegionFile region = sampleRegion();
+        byte[] bytes = toBytes(region);
+        assertEquals(0, bytes.length % RegionFile.SECTOR_SIZE);
+        RegionFile read = RegionFile.read(ByteBuffer.wrap(bytes));
+        assertEquals(region.getChunkCount(), read.getChunkCount());
+        for (int i = 0; i < RegionFile.CHUNK_COUNT; i++) {
+            assertEquals(region.getTimestamp(i), read.getTimestamp(i));
+            RegionChunk chunk = region.getChunk(i);
+            if (chunk == null) {
+                assertNull(read.getChunk(i));
+                continue;
+            }
+            assertEquals(chunk.getCompression(),
+                    read.getChunk(i).getCompression());
+            assertArrayEquals(chunk.decompress(),
+                    read.getChunk(i).decompress());
+        }
+        assertArrayEquals(bytes, toBytes(read));
+    }
+
+    @Test
+    public void convertsChunksToAndFromHnbt() throws Exception {
+        RegionFile region = sampleRegion();
+        RegionConverter converter = new RegionConverter(EXECUTOR);
+        String[] hnbt = converter.toHnbt(region);
+        for (int i = 0; i < RegionFile.CHUNK_COUNT; i++) {
+            if (region.getChunk(i) == null) {
+                assertNull(hnbt[i]);
+            } else {
+                CompoundTag tag = chunkTag(i, i * 10);
+                assertEquals(NbtToHnbt.parseNbtIntoHnbt(
+                        new CompoundTag("root", tag.getValue())), hnbt[i]);
+            }
+        }
+        RegionFile back = converter.fromHnbt(hnbt, ChunkCompression.ZLIB);
+        for (int i = 0; i < RegionFile.CHUNK_COUNT; i++) {
+            RegionChunk chunk = region.getChunk(i);
+            if (chunk == null) {
+                assertNull(back.getChunk(i));
+            } else {
+                assertEquals(ChunkCompression.ZLIB,
+                        back.getChunk(i).getCompression());
+                assertArrayEquals(chunk.decompress(),
+                        back.getChunk(i).decompress());
+            }
+        }
+    }
+
+    @Test
+    public void invalidHnbtNamesTheChunk() throws Exception {
+        String[] hnbt = new String[RegionFile.CHUNK_COUNT];
+        hnbt[5] = "compound root = {int a = }";
+        try {
+            new RegionConverter(EXECUTOR).fromHnbt(hnbt,
+                    ChunkCompression.GZIP);
+            fail("Converted invalid HNBT");
+        } catch (HNBTParsingException expected) {
+            assertEquals("Invalid HNBT for chunk 5", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidLocations() throws Exception {
+        byte[] bytes = toBytes(sampleRegion());
+        // chunk 0 pointing into the header
+        ByteBuffer.wrap(bytes).putInt(0, (1 << 8) | 1);
+        try {
+            RegionFile.read(ByteBuffer.wrap(bytes));
+            fail("Read a chunk from the header");
+        } catch (IOException expected) {
+            // ok.
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOversizedChunks() throws Exception {
+        RegionFile region = new RegionFile();
+        region.setChunk(0, new RegionChunk(ChunkCompression.NONE,
+                new byte[256 * RegionFile.SECTOR_SIZE]));
+        toBytes(region);
+    }
+
+}
@@ -26,6 +26,7 @@ import org.jnbt.StringTag;
 import org.jnbt.Tag;
 import org.junit.Test;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteStreams;
 
@@ -78,4 +79,43 @@ public class SerializeTest {
         assertEquals(expected, NbtToHnbt.parseNbtIntoHnbt(tag));
     }
 
+    @Test
+    public void customIndentAtDepth() throws Exception {
+        int depth = 100;
+        Tag tag = new ListTag("bytes", ByteTag.class,
+                Collections.singletonList(new ByteTag("", (byte) 1)));
+        for (int i = depth - 1; i >= 0; i--) {
+            tag = new CompoundTag("c" + i,
+                    ImmutableMap.of(tag.getName(), tag));
+        }
+        CompoundTag root = new CompoundTag("root",
+                ImmutableMap.of("c0", tag, "big", new StringTag("big",
+                        Strings.repeat("x", 10000))));
+
+        StringBuilder expected = new StringBuilder("compound root = {");
+        for (int i = 0; i < depth; i++) {
+            expected.append('\n').append(Strings.repeat("\t", i + 1))
+                    .append("compound c").append(i).append(" = {");
+        }
+        String bottom = Strings.repeat("\t", depth + 1);
+        expected.append('\n').append(bottom).append("list bytes = [\n")
+                .append(bottom).append("\tbyte = 1\n").append(bottom)
+                .append(']');
+        for (int i = depth - 1; i >= 0; i--) {
+            expected.append('\n').append(Strings.repeat("\t", i + 1))
+                    .append('}');
+        }
+        expected.append(",\n\tstring big = \"")
+                .append(Strings.repeat("x", 10000)).append("\"\n}\n");
+        String hnbt = NbtToHnbt.parseNbtIntoHnbt(root, "\t");
+        assertEquals(expected.toString(), hnbt);
+        assertEquals(root, HnbtToNbt.parseHnbtIntoNbtDirect(hnbt));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indentMustBeWhitespace() throws Exception {
+        NbtToHnbt.parseNbtIntoHnbt(
+                new CompoundTag("root", Collections.emptyMap()), "--");
+    }
+
 }
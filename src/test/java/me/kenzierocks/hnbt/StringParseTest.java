@@ -2,8 +2,14 @@ package me.kenzierocks.hnbt;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
 import org.junit.Test;
 
+import me.kenzierocks.hnbt.grammar.StringLexer;
+import me.kenzierocks.hnbt.grammar.StringParser;
 import me.kenzierocks.hnbt.util.StringUtil;
 
 public class StringParseTest {
@@ -38,4 +44,46 @@ public class StringParseTest {
         assertParse("ABC", "\\101\\102\\103");
     }
 
+    @Test
+    public void invalidEscapesAreKept() throws Exception {
+        assertParse("\\x\\u12g4\\8\\", "\\x\\u12g4\\8\\");
+    }
+
+    @Test
+    public void longestOctalEscape() throws Exception {
+        assertParse("\377\0477", "\\377\\477");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rawNewlineIsRejected() throws Exception {
+        StringUtil.unescapeString("a\nb");
+    }
+
+    @Test
+    public void escapeRoundTrip() throws Exception {
+        String value = "q\"b\\'\t\u0000\u009f\u2001 end";
+        String escaped = StringUtil.escapedString(value);
+        assertEquals("\"q\\\"b\\\\'\\t\\u0000\\u009f\u2001 end\"", escaped);
+        assertParse(value, escaped.substring(1, escaped.length() - 1));
+    }
+
+    @Test
+    public void matchesGrammar() throws Exception {
+        String alphabet = "\\\\\\uu0123457abfnrt\"'x\u2001";
+        Random random = new Random(42);
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                input.append(
+                        alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String escaped = input.toString();
+            StringParser parser = new StringParser(new CommonTokenStream(
+                    new StringLexer(new ANTLRInputStream(escaped))));
+            assertEquals(escaped, parser.stringNoQuotes().unescaped,
+                    StringUtil.unescapeString(escaped));
+        }
+    }
+
 }
@@ -0,0 +1,93 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.ListTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.util.StringTable;
+
+public class StringTableTest {
+
+    private static final String DOCUMENT = "compound root = {list items = ["
+            + "compound = {string id = \"minecraft:stone\"},"
+            + "compound = {string id = \"minecraft:stone\"}]}";
+
+    @Test
+    public void reusesStrings() throws Exception {
+        StringTable strings = new StringTable();
+        char[] chars = "xidyid".toCharArray();
+        String first = strings.intern(chars, 1, 2);
+        assertEquals("id", first);
+        assertSame(first, strings.intern(chars, 4, 2));
+        assertSame(first, strings.intern(new String("id")));
+        String other = new String("other");
+        assertSame(other, strings.intern(other));
+        assertSame(other, strings.intern("other".toCharArray(), 0, 5));
+    }
+
+    @Test
+    public void skipsLongStrings() throws Exception {
+        StringTable strings = new StringTable(16, 3);
+        char[] chars = "abcdabcd".toCharArray();
+        assertNotSame(strings.intern(chars, 0, 4),
+                strings.intern(chars, 4, 4));
+        assertSame(strings.intern(chars, 0, 3), strings.intern(chars, 4, 3));
+    }
+
+    @Test
+    public void rejectsInvalidSizes() throws Exception {
+        for (int capacity : new int[] { 0, 3, -4 }) {
+            try {
+                StringTable table = new StringTable(capacity, 8);
+                fail("Created table " + table);
+            } catch (IllegalArgumentException e) {
+                // ok.
+            }
+        }
+    }
+
+    private static void assertShared(CompoundTag root) {
+        List<Tag> items = ((ListTag) root.getValue().get("items")).getValue();
+        StringTag first =
+                (StringTag) ((CompoundTag) items.get(0)).getValue().get("id");
+        StringTag second =
+                (StringTag) ((CompoundTag) items.get(1)).getValue().get("id");
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getValue(), second.getValue());
+    }
+
+    @Test
+    public void parsersShareNamesAndValues() throws Exception {
+        assertShared(HnbtToNbt.parseHnbtIntoNbt(DOCUMENT));
+        // reads the chars of the document directly
+        assertShared(HnbtParser.builder().build().parse(DOCUMENT));
+        assertShared(HnbtToNbt.parseHnbtIntoNbtDirect(DOCUMENT));
+        assertShared(HnbtToNbt
+                .parseHnbtIntoNbtDirect(new StringReader(DOCUMENT)));
+        assertShared(HnbtToNbt.parseHnbtIntoNbtLazy(DOCUMENT));
+    }
+
+    @Test
+    public void readersCanShareTables() throws Exception {
+        StringTable strings = new StringTable();
+        HnbtReader first = new HnbtReader(new StringReader(DOCUMENT));
+        HnbtReader second = new HnbtReader(new StringReader(DOCUMENT));
+        first.setStringTable(strings);
+        second.setStringTable(strings);
+        CompoundTag a = new DirectHnbtParser(first).parseRoot();
+        CompoundTag b = new DirectHnbtParser(second).parseRoot();
+        assertSame(a.getValue().keySet().iterator().next(),
+                b.getValue().keySet().iterator().next());
+    }
+
+}
@@ -0,0 +1,68 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.Test;
+
+import me.kenzierocks.hnbt.grammar.HNBTLexer;
+import me.kenzierocks.hnbt.util.TagNames;
+
+public class TagNamesTest {
+
+    private static boolean lexesAsName(String name) {
+        HNBTLexer lexer = new HNBTLexer(new ANTLRInputStream(name));
+        lexer.removeErrorListeners();
+        lexer.mode(HNBTLexer.NAME);
+        List<? extends Token> tokens = lexer.getAllTokens();
+        return tokens.size() == 1
+                && tokens.get(0).getType() == HNBTLexer.TagName
+                && tokens.get(0).getText().equals(name);
+    }
+
+    @Test
+    public void everyCharMatchesGrammar() throws Exception {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            String single = String.valueOf((char) c);
+            assertEquals("start char " + c, lexesAsName(single),
+                    TagNames.isNameStartChar(c));
+            assertEquals("name char " + c, lexesAsName("a" + single),
+                    TagNames.isNameChar(c));
+        }
+    }
+
+    @Test
+    public void wholeNameMustMatch() throws Exception {
+        assertTrue(TagNames.isValidName("root"));
+        assertTrue(TagNames.isValidName("-_a1\u00B7"));
+        assertFalse(TagNames.isValidName(""));
+        assertFalse(TagNames.isValidName("1abc"));
+        assertFalse(TagNames.isValidName("a b"));
+        assertFalse(TagNames.isValidName("ab="));
+        assertFalse(TagNames.isNameChar(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkRejectsTrailingGarbage() throws Exception {
+        TagNames.checkTagName("no spaces allowed!");
+    }
+
+    @Test
+    public void cachedNamesStayValid() throws Exception {
+        TagNames.checkTagName("cached");
+        TagNames.checkTagName("cached");
+        try {
+            TagNames.checkTagName("cached ");
+            fail("Accepted an invalid name");
+        } catch (IllegalArgumentException expected) {
+            // ok.
+        }
+    }
+
+}
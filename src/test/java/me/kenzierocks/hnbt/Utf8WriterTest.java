@@ -0,0 +1,100 @@
+package me.kenzierocks.hnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.jnbt.CompoundTag;
+import org.jnbt.StringTag;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.kenzierocks.hnbt.util.Utf8Writer;
+
+public class Utf8WriterTest {
+
+    private static final char[] CHARS = { 'a', '\n', '\u007F', '\u0080',
+            '\u00E9', '\u07FF', '\u0800', '\u2603', '\uFFFF', '\uD83D',
+            '\uDE00', '\uD800', '\uDFFF' };
+
+    private static String randomString(Random random) {
+        char[] chars = new char[random.nextInt(40)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = CHARS[random.nextInt(CHARS.length)];
+        }
+        return new String(chars);
+    }
+
+    private static void writeInPieces(Writer writer, String text,
+            Random random) throws Exception {
+        int i = 0;
+        while (i < text.length()) {
+            int end = i + random.nextInt(text.length() - i + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    writer.write(text, i, end - i);
+                    break;
+                case 1:
+                    writer.write(text.toCharArray(), i, end - i);
+                    break;
+                case 2:
+                    writer.append(new StringBuilder(text), i, end);
+                    break;
+                default:
+                    if (i < end) {
+                        writer.write(text.charAt(i));
+                        end = i + 1;
+                    }
+                    break;
+            }
+            i = end;
+        }
+    }
+
+    @Test
+    public void matchesStringGetBytes() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomString(random);
+            byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Writer writer = new Utf8Writer(bytes);
+            writeInPieces(writer, text, random);
+            writer.flush();
+            assertArrayEquals(text, expected, bytes.toByteArray());
+
+            bytes.reset();
+            ByteBuffer buffer = random.nextBoolean() ? ByteBuffer.allocate(4)
+                    : ByteBuffer.allocateDirect(5);
+            writer = new Utf8Writer(Channels.newChannel(bytes), buffer);
+            writeInPieces(writer, text, random);
+            writer.flush();
+            assertArrayEquals(text, expected, bytes.toByteArray());
+        }
+    }
+
+    @Test
+    public void serializesToStreamAndChannel() throws Exception {
+        CompoundTag nbt = new CompoundTag("root", ImmutableMap.of("s",
+                new StringTag("s", "\u2603 \uD83D\uDE00 \u00E9")));
+        byte[] expected = NbtToHnbt.parseNbtIntoHnbt(nbt)
+                .getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NbtToHnbt.parseNbtIntoHnbtUtf8(nbt, bytes);
+        assertArrayEquals(expected, bytes.toByteArray());
+
+        bytes.reset();
+        NbtToHnbt.parseNbtIntoHnbtUtf8(nbt, Channels.newChannel(bytes),
+                ByteBuffer.allocateDirect(16));
+        assertArrayEquals(expected, bytes.toByteArray());
+    }
+
+}